@@ -0,0 +1,191 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteSource;
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import io.zucchiniui.backend.feature.domain.Feature;
+import io.zucchiniui.backend.reportconverter.report.ReportFeature;
+import io.zucchiniui.backend.reportconverter.report.ReportFeatureElement;
+import io.zucchiniui.backend.reportconverter.report.ReportScenario;
+import io.zucchiniui.backend.reportgenerator.ReportGenerator;
+import io.zucchiniui.backend.reportgenerator.ReportShape;
+import io.zucchiniui.backend.scenario.domain.ScenarioBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the conversion of Cucumber JSON reports, from the deserialization of features to the build of scenarii.
+ * <p>
+ * Each operation processes a whole synthetic report. Run with <code>./gradlew jmh</code>: the GC profiler reports
+ * allocation rates (<code>gc.alloc.rate.norm</code> is the number of bytes allocated per report).
+ * <p>
+ * Converted features are consumed as soon as they are converted, like in the import pipeline. The conversion is
+ * measured with and without sharing repeated values in a {@link ConversionInterner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportConversionBenchmark {
+
+    private static final String TEST_RUN_ID = "testRunId";
+
+    @Param({"10", "100"})
+    public int featureCount;
+
+    @Param({"5", "20"})
+    public int stepsPerScenario;
+
+    @Param({"0", "65536"})
+    public int embeddingSize;
+
+    private byte[] report;
+
+    private ReportFeatureReader reportFeatureReader;
+
+    private ReportConverter reportConverter;
+
+    private ReportScenarioConverter reportScenarioConverter;
+
+    private List<ReportFeature> reportFeatures;
+
+    private Feature parentFeature;
+
+    private List<ReportScenario> reportScenarii;
+
+    private List<ScenarioBuilder> scenarioBuilders;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Every scenario has an embedding, so that its size is measured
+        final ReportShape shape = new ReportShape()
+            .withSeed(42)
+            .withFeatureCount(featureCount)
+            .withStepsPerScenario(stepsPerScenario)
+            .withEmbeddingRate(embeddingSize > 0 ? 1 : 0)
+            .withEmbeddingSize(embeddingSize);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ReportGenerator(shape).write(outputStream);
+        report = outputStream.toByteArray();
+
+        final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        reportFeatureReader = new ReportFeatureReader(objectMapper);
+
+        // Attachments are not stored: only the conversion is measured
+        final AttachmentStore attachmentStore = new NoOpAttachmentStore();
+        reportScenarioConverter = new ReportScenarioConverter(attachmentStore, new StepTextSpiller(attachmentStore, new BackendConfiguration()));
+        final ReportFeatureConverter reportFeatureConverter = new ReportFeatureConverter();
+        reportConverter = new ReportConverter(reportFeatureConverter, reportScenarioConverter);
+
+        reportFeatures = new ArrayList<>(featureCount);
+        try (final InputStream inputStream = new ByteArrayInputStream(report)) {
+            reportFeatureReader.read(inputStream, reportFeatures::add);
+        }
+
+        final ConversionInterner interner = new ConversionInterner();
+        parentFeature = reportFeatureConverter.convert(TEST_RUN_ID, Optional.empty(), reportFeatures.get(0), interner);
+
+        reportScenarii = new ArrayList<>();
+        scenarioBuilders = new ArrayList<>();
+        for (final ReportFeature reportFeature : reportFeatures) {
+            for (final ReportFeatureElement element : reportFeature.getElements()) {
+                if (element instanceof ReportScenario) {
+                    final ReportScenario reportScenario = (ReportScenario) element;
+                    reportScenarii.add(reportScenario);
+                    scenarioBuilders.add(reportScenarioConverter.createScenarioBuilder(parentFeature, reportScenario, interner));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void deserializeReportFeatures(final Blackhole blackhole) throws IOException {
+        try (final InputStream inputStream = new ByteArrayInputStream(report)) {
+            reportFeatureReader.read(inputStream, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void convertReportFeatures(final Blackhole blackhole) {
+        final ConversionInterner interner = new ConversionInterner();
+        for (final ReportFeature reportFeature : reportFeatures) {
+            blackhole.consume(reportConverter.convert(TEST_RUN_ID, Optional.empty(), reportFeature, interner));
+        }
+    }
+
+    @Benchmark
+    public void createScenarioBuilders(final Blackhole blackhole) {
+        final ConversionInterner interner = new ConversionInterner();
+        for (final ReportScenario reportScenario : reportScenarii) {
+            blackhole.consume(reportScenarioConverter.createScenarioBuilder(parentFeature, reportScenario, interner));
+        }
+    }
+
+    @Benchmark
+    public void buildScenarii(final Blackhole blackhole) {
+        for (final ScenarioBuilder scenarioBuilder : scenarioBuilders) {
+            blackhole.consume(scenarioBuilder.build());
+        }
+    }
+
+    @Benchmark
+    public void deserializeAndConvertReport(final Blackhole blackhole) throws IOException {
+        deserializeAndConvertReport(blackhole, new ConversionInterner());
+    }
+
+    @Benchmark
+    public void deserializeAndConvertReportWithoutInterner(final Blackhole blackhole) throws IOException {
+        deserializeAndConvertReport(blackhole, new ConversionInterner(0));
+    }
+
+    private void deserializeAndConvertReport(final Blackhole blackhole, final ConversionInterner interner) throws IOException {
+        try (final InputStream inputStream = new ByteArrayInputStream(report)) {
+            reportFeatureReader.read(inputStream, reportFeature -> {
+                blackhole.consume(reportConverter.convert(TEST_RUN_ID, Optional.empty(), reportFeature, interner));
+            });
+        }
+    }
+
+    private static class NoOpAttachmentStore implements AttachmentStore {
+
+        @Override
+        public String store(final byte[] data) {
+            return "hash";
+        }
+
+        @Override
+        public void store(final String hash, final ByteSource content) {
+        }
+
+        @Override
+        public Optional<InputStream> open(final String hash) {
+            return Optional.empty();
+        }
+
+    }
+
+}
@@ -8,6 +8,7 @@ import io.dropwizard.configuration.SubstitutingSourceProvider;
 import io.dropwizard.jersey.setup.JerseyEnvironment;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.zucchiniui.backend.reportgenerator.GenerateReportCommand;
 import io.zucchiniui.backend.support.ddd.rest.ConcurrentEntityModificationExceptionMapper;
 import io.zucchiniui.backend.support.ddd.rest.EntityNotFoundExceptionMapper;
 import io.zucchiniui.backend.support.spring.SpringBundle;
@@ -42,6 +43,9 @@ public class BackendBundle implements ConfiguredBundle<BackendConfiguration> {
         // Register Spring context
         applicationContext.register(BackendSpringConfig.class);
         bootstrap.addBundle(new SpringBundle(applicationContext));
+
+        // Generator of synthetic reports, for load tests
+        bootstrap.addCommand(new GenerateReportCommand());
     }
 
     @Override
@@ -1,6 +1,7 @@
 package io.zucchiniui.backend;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
 import io.dropwizard.metrics.MetricsFactory;
 
@@ -19,6 +20,11 @@ public class BackendConfiguration extends Configuration {
     @Valid
     private final MetricsFactory metrics = new MetricsFactory();
 
+    @Valid
+    @NotNull
+    @JsonProperty("import")
+    private ImportConfiguration importConfiguration = new ImportConfiguration();
+
     public String getMongoUri() {
         return mongoUri;
     }
@@ -38,4 +44,13 @@ public class BackendConfiguration extends Configuration {
     public void setNumberLatest(Integer numberLatest) {
         this.numberLatest = numberLatest;
     }
+
+    public ImportConfiguration getImportConfiguration() {
+        return importConfiguration;
+    }
+
+    public void setImportConfiguration(final ImportConfiguration importConfiguration) {
+        this.importConfiguration = importConfiguration;
+    }
+
 }
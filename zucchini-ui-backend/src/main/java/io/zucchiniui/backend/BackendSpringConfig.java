@@ -10,6 +10,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+
 @Configuration
 @ComponentScan(basePackageClasses = BackendSpringConfig.class)
 public class BackendSpringConfig {
@@ -34,4 +37,25 @@ public class BackendSpringConfig {
             .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
+    @Bean
+    public ExecutorService importExecutor() {
+        final ImportConfiguration importConfiguration = configuration.getImportConfiguration();
+        return dropwizardEnvironment.lifecycle()
+            .executorService("import-%d")
+            .minThreads(importConfiguration.getMaxThreads())
+            .maxThreads(importConfiguration.getMaxThreads())
+            .workQueue(new ArrayBlockingQueue<>(importConfiguration.getMaxQueuedJobs()))
+            .build();
+    }
+
+    @Bean
+    public ExecutorService featureImportExecutor() {
+        final int parallelism = configuration.getImportConfiguration().getParallelism();
+        return dropwizardEnvironment.lifecycle()
+            .executorService("feature-import-%d")
+            .minThreads(parallelism)
+            .maxThreads(parallelism)
+            .build();
+    }
+
 }
@@ -0,0 +1,160 @@
+package io.zucchiniui.backend;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+import io.dropwizard.validation.MinDuration;
+import io.dropwizard.validation.MinSize;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of report imports.
+ */
+public class ImportConfiguration {
+
+    /**
+     * Directory where uploaded reports are spooled before being processed by import jobs.
+     */
+    @NotNull
+    private String spoolDirectory = System.getProperty("java.io.tmpdir") + "/zucchini-imports";
+
+    /**
+     * Number of import jobs processed at the same time.
+     */
+    @Min(1)
+    private int maxThreads = 2;
+
+    /**
+     * Max number of import jobs waiting to be processed.
+     */
+    @Min(1)
+    private int maxQueuedJobs = 32;
+
+    /**
+     * Number of features of a report converted and saved at the same time, shared by all imports.
+     */
+    @Min(1)
+    private int parallelism = 4;
+
+    /**
+     * Number of upload requests processed at the same time by import endpoints.
+     */
+    @Min(1)
+    private int maxConcurrentImports = 4;
+
+    /**
+     * Max total size of the uploads processed at the same time. Uploads are admitted according to their
+     * <code>Content-Length</code>, then charged for their decoded size while they are read.
+     */
+    @NotNull
+    @MinSize(1)
+    private Size maxInFlightSize = Size.megabytes(256);
+
+    /**
+     * Max number of upload requests waiting to be processed; other requests are rejected at once.
+     */
+    @Min(0)
+    private int maxWaitingImports = 16;
+
+    /**
+     * Max time an upload request waits to be processed.
+     */
+    @NotNull
+    @MinDuration(0)
+    private Duration admissionTimeout = Duration.seconds(30);
+
+    /**
+     * Max length of step outputs and error messages stored in scenarii. Longer texts are stored in the attachment store,
+     * and only their preview is stored in scenarii.
+     */
+    @Min(1)
+    private int maxInlineTextLength = 32 * 1024;
+
+    /**
+     * Length of the preview of texts stored in the attachment store.
+     */
+    @Min(0)
+    private int textPreviewLength = 4 * 1024;
+
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    public void setSpoolDirectory(final String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(final int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public int getMaxQueuedJobs() {
+        return maxQueuedJobs;
+    }
+
+    public void setMaxQueuedJobs(final int maxQueuedJobs) {
+        this.maxQueuedJobs = maxQueuedJobs;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getMaxConcurrentImports() {
+        return maxConcurrentImports;
+    }
+
+    public void setMaxConcurrentImports(final int maxConcurrentImports) {
+        this.maxConcurrentImports = maxConcurrentImports;
+    }
+
+    public Size getMaxInFlightSize() {
+        return maxInFlightSize;
+    }
+
+    public void setMaxInFlightSize(final Size maxInFlightSize) {
+        this.maxInFlightSize = maxInFlightSize;
+    }
+
+    public int getMaxWaitingImports() {
+        return maxWaitingImports;
+    }
+
+    public void setMaxWaitingImports(final int maxWaitingImports) {
+        this.maxWaitingImports = maxWaitingImports;
+    }
+
+    public Duration getAdmissionTimeout() {
+        return admissionTimeout;
+    }
+
+    public void setAdmissionTimeout(final Duration admissionTimeout) {
+        this.admissionTimeout = admissionTimeout;
+    }
+
+    public int getMaxInlineTextLength() {
+        return maxInlineTextLength;
+    }
+
+    public void setMaxInlineTextLength(final int maxInlineTextLength) {
+        this.maxInlineTextLength = maxInlineTextLength;
+    }
+
+    public int getTextPreviewLength() {
+        return textPreviewLength;
+    }
+
+    public void setTextPreviewLength(final int textPreviewLength) {
+        this.textPreviewLength = textPreviewLength;
+    }
+
+}
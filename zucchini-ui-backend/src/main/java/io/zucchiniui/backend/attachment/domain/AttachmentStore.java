@@ -0,0 +1,40 @@
+package io.zucchiniui.backend.attachment.domain;
+
+import com.google.common.io.ByteSource;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Content-addressed store for attachment contents.
+ * <p>
+ * Contents are identified by their SHA-256 hash, so identical contents are stored once, whatever the number of scenarii
+ * or test runs that reference them.
+ */
+public interface AttachmentStore {
+
+    /**
+     * Store an attachment content, if not already stored.
+     *
+     * @param data Content
+     * @return Hash of the stored content
+     */
+    String store(byte[] data);
+
+    /**
+     * Store an attachment content whose hash is already known, if not already stored.
+     *
+     * @param hash    SHA-256 hash of the content, as a lowercase hex string
+     * @param content Content, only read if it is not already stored
+     */
+    void store(String hash, ByteSource content);
+
+    /**
+     * Open a stored attachment content.
+     *
+     * @param hash Hash of the content
+     * @return Stream on the content, to be closed by the caller, or empty if there is no content with this hash
+     */
+    Optional<InputStream> open(String hash);
+
+}
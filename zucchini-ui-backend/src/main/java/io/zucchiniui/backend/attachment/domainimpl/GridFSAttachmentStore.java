@@ -0,0 +1,105 @@
+package io.zucchiniui.backend.attachment.domainimpl;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.gridfs.GridFS;
+import com.mongodb.gridfs.GridFSDBFile;
+import com.mongodb.gridfs.GridFSInputFile;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import org.springframework.stereotype.Component;
+import xyz.morphia.Datastore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Attachment store backed by the "attachments" GridFS bucket. Files are identified by the SHA-256 hash of their content.
+ */
+@Component
+class GridFSAttachmentStore implements AttachmentStore {
+
+    private static final String BUCKET = "attachments";
+
+    private final GridFS gridFS;
+
+    private final DBCollection chunksCollection;
+
+    public GridFSAttachmentStore(final Datastore datastore) {
+        gridFS = new GridFS(datastore.getDB(), BUCKET);
+        chunksCollection = datastore.getDB().getCollection(BUCKET + ".chunks");
+    }
+
+    @Override
+    public String store(final byte[] data) {
+        final String hash = Hashing.sha256().hashBytes(data).toString();
+        store(hash, ByteSource.wrap(data));
+        return hash;
+    }
+
+    @Override
+    public void store(final String hash, final ByteSource content) {
+        if (exists(hash)) {
+            return;
+        }
+
+        try {
+            save(hash, content);
+        } catch (final MongoException e) {
+            if (ErrorCategory.fromErrorCode(e.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+
+            // Same content stored at the same time by another import
+            if (exists(hash)) {
+                return;
+            }
+
+            // Chunks left by an interrupted upload, without their files document
+            removeOrphanChunks(hash);
+            save(hash, content);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> open(final String hash) {
+        return Optional.ofNullable(gridFS.findOne(new BasicDBObject("_id", hash)))
+            .map(GridFSDBFile::getInputStream);
+    }
+
+    private void save(final String hash, final ByteSource content) {
+        try (final InputStream contentStream = content.openBufferedStream()) {
+            final GridFSInputFile file = gridFS.createFile(contentStream);
+            file.setId(hash);
+            file.save();
+        } catch (final IOException e) {
+            removeOrphanChunks(hash);
+            throw new UncheckedIOException("Can't store attachment " + hash, e);
+        } catch (final MongoException e) {
+            if (ErrorCategory.fromErrorCode(e.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                removeOrphanChunks(hash);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remove chunks of a file, if its files document doesn't exist. Chunks are written before the files document, so
+     * a failed upload may leave chunks that would make every later upload of the same content fail.
+     */
+    private void removeOrphanChunks(final String hash) {
+        if (!exists(hash)) {
+            chunksCollection.remove(new BasicDBObject("files_id", hash));
+        }
+    }
+
+    private boolean exists(final String hash) {
+        return gridFS.findOne(new BasicDBObject("_id", hash)) != null;
+    }
+
+}
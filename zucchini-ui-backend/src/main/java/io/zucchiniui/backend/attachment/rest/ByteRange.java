@@ -0,0 +1,113 @@
+package io.zucchiniui.backend.attachment.rest;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Strings;
+import com.google.common.primitives.Longs;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.Optional;
+
+/**
+ * Single byte range requested with a HTTP <code>Range</code> header.
+ */
+public final class ByteRange {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private final long start;
+
+    private final long end;
+
+    private final long length;
+
+    private ByteRange(final long start, final long end, final long length) {
+        this.start = start;
+        this.end = end;
+        this.length = length;
+    }
+
+    /**
+     * Parse a <code>Range</code> header.
+     *
+     * @param rangeHeader Header value
+     * @param length      Length of the requested content
+     * @return Requested range, or empty if the header must be ignored: missing, malformed or with multiple ranges
+     * @throws WebApplicationException Range can't be satisfied, with a 416 response
+     */
+    public static Optional<ByteRange> parse(final String rangeHeader, final long length) {
+        if (Strings.isNullOrEmpty(rangeHeader) || !rangeHeader.startsWith(BYTES_UNIT)) {
+            return Optional.empty();
+        }
+
+        final String rangeSpec = CharMatcher.whitespace().removeFrom(rangeHeader.substring(BYTES_UNIT.length()));
+        final int dashIndex = rangeSpec.indexOf('-');
+        if (dashIndex < 0 || rangeSpec.indexOf(',') >= 0) {
+            return Optional.empty();
+        }
+
+        final String firstPos = rangeSpec.substring(0, dashIndex);
+        final String lastPos = rangeSpec.substring(dashIndex + 1);
+
+        final long start;
+        final long end;
+        if (firstPos.isEmpty()) {
+            // Suffix range: last N bytes
+            final Long suffixLength = Longs.tryParse(lastPos);
+            if (suffixLength == null) {
+                return Optional.empty();
+            }
+            if (suffixLength == 0 || length == 0) {
+                throw notSatisfiable(length);
+            }
+            start = Math.max(0, length - suffixLength);
+            end = length - 1;
+        } else {
+            final Long first = Longs.tryParse(firstPos);
+            final Long last = lastPos.isEmpty() ? Long.valueOf(Long.MAX_VALUE) : Longs.tryParse(lastPos);
+            if (first == null || last == null || last < first) {
+                return Optional.empty();
+            }
+            if (first >= length) {
+                throw notSatisfiable(length);
+            }
+            start = first;
+            end = Math.min(last, length - 1);
+        }
+
+        return Optional.of(new ByteRange(start, end, length));
+    }
+
+    private static WebApplicationException notSatisfiable(final long length) {
+        return new WebApplicationException(
+            Response.status(RANGE_NOT_SATISFIABLE)
+                .header("Content-Range", "bytes */" + length)
+                .build()
+        );
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return Number of bytes in this range
+     */
+    public long getRangeLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * @return Value of the <code>Content-Range</code> header for this range
+     */
+    public String toContentRange() {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
+}
@@ -1,5 +1,6 @@
 package io.zucchiniui.backend.feature.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.zucchiniui.backend.shared.domain.BasicInfo;
 import io.zucchiniui.backend.shared.domain.Location;
 import io.zucchiniui.backend.support.ddd.BaseEntity;
@@ -47,6 +48,11 @@ public class Feature extends BaseEntity<String> {
      */
     private Set<String> tags = new HashSet<>();
 
+    /**
+     * Tags before the last merge with another feature, not saved.
+     */
+    private transient Set<String> tagsBeforeMerge = Collections.emptySet();
+
     /**
      * Location.
      */
@@ -126,6 +132,7 @@ public class Feature extends BaseEntity<String> {
         }
 
         info = other.info;
+        tagsBeforeMerge = tags;
         tags = new HashSet<>(other.tags);
         location = other.location;
         description = other.description;
@@ -206,6 +213,14 @@ public class Feature extends BaseEntity<String> {
         return Collections.unmodifiableSet(tags);
     }
 
+    /**
+     * Get tags of this feature before its last merge with another feature, empty if it has never been merged.
+     */
+    @JsonIgnore
+    public Set<String> getTagsBeforeMerge() {
+        return Collections.unmodifiableSet(tagsBeforeMerge);
+    }
+
     public Location getLocation() {
         return location;
     }
@@ -1,17 +1,37 @@
 package io.zucchiniui.backend.feature.domain;
 
+import io.zucchiniui.backend.scenario.domain.ScenarioMergeResult;
+
+import java.util.Set;
+
 public interface FeatureService {
 
     void calculateStatusFromScenarii(Feature feature);
 
     void updateStatusFromScenarii(String featureId);
 
+    /**
+     * Calculate the status of a feature after its scenarii have been merged, from the scenarii of the merge result.
+     * Only the statuses of the other scenarii of the feature are queried, and no query is run for a new feature.
+     *
+     * @param feature     Feature
+     * @param mergeResult Result of the merge of the scenarii of the feature
+     * @param newFeature  True if the feature has just been created, so that it has no other scenario
+     */
+    void calculateStatusFromMergeResult(Feature feature, ScenarioMergeResult mergeResult, boolean newFeature);
+
     void deleteByTestRunId(String testRunId);
 
     void deleteById(String featureId);
 
     Feature tryToMergeWithExistingFeature(Feature newFeature);
 
-    void updateScenariiWithFeatureTags(Feature feature);
+    /**
+     * Add tags of a feature to its scenarii, and remove former tags of the feature that are not own tags of scenarii.
+     *
+     * @param feature      Feature
+     * @param previousTags Tags of the feature when its scenarii were last updated
+     */
+    void updateScenariiWithFeatureTags(Feature feature, Set<String> previousTags);
 
 }
@@ -3,6 +3,8 @@ package io.zucchiniui.backend.feature.domainimpl;
 import io.zucchiniui.backend.feature.domain.Feature;
 import io.zucchiniui.backend.feature.domain.FeatureRepository;
 import io.zucchiniui.backend.feature.domain.FeatureService;
+import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.ScenarioMergeResult;
 import io.zucchiniui.backend.scenario.domain.ScenarioRepository;
 import io.zucchiniui.backend.scenario.views.ScenarioStats;
 import io.zucchiniui.backend.scenario.views.ScenarioViewAccess;
@@ -10,6 +12,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Component
 class FeatureServiceImpl implements FeatureService {
 
@@ -37,6 +46,23 @@ class FeatureServiceImpl implements FeatureService {
         feature.setStatus(scenarioStats.computeFeatureStatus());
     }
 
+    @Override
+    public void calculateStatusFromMergeResult(final Feature feature, final ScenarioMergeResult mergeResult, final boolean newFeature) {
+        final List<Scenario> mergedScenarii = mergeResult.getAllScenarii();
+
+        // Scenarii of the merge result are already loaded: only the scenarii left out of the merge are counted in the database
+        final ScenarioStats scenarioStats;
+        if (newFeature) {
+            scenarioStats = new ScenarioStats();
+        } else {
+            final Set<String> mergedScenarioKeys = mergedScenarii.stream().map(Scenario::getScenarioKey).collect(Collectors.toSet());
+            scenarioStats = scenarioViewAccess.getStats(q -> q.withFeatureId(feature.getId()).withScenarioKeyNotIn(mergedScenarioKeys));
+        }
+
+        mergedScenarii.forEach(scenario -> scenarioStats.addScenarioStatus(scenario.getStatus(), scenario.isReviewed()));
+        feature.setStatus(scenarioStats.computeFeatureStatus());
+    }
+
     @Override
     public void updateStatusFromScenarii(final String featureId) {
         final Feature feature = featureRepository.getById(featureId);
@@ -71,9 +97,25 @@ class FeatureServiceImpl implements FeatureService {
     }
 
     @Override
-    public void updateScenariiWithFeatureTags(final Feature feature) {
-        scenarioRepository.query(q -> q.withFeatureId(feature.getId()))
-            .update(scenario -> scenario.updateWithExtraTags(feature.getTags()));
+    public void updateScenariiWithFeatureTags(final Feature feature, final Set<String> previousTags) {
+        final Set<String> featureTags = feature.getTags();
+        final ZonedDateTime now = ZonedDateTime.now();
+
+        // All tags of a scenario are its own tags plus the tags of its feature: they are updated inside the database,
+        // and only for scenarii that are not up to date
+
+        if (!featureTags.isEmpty()) {
+            scenarioRepository.query(q -> q.withFeatureId(feature.getId()).withMissingTags(featureTags))
+                .updateFields(u -> u.addAllToSet("allTags", featureTags).set("modifiedAt", now));
+        }
+
+        // Former feature tags are removed, unless they are own tags of the scenario
+        final Set<String> removedTags = new HashSet<>(previousTags);
+        removedTags.removeAll(featureTags);
+        for (final String tag : removedTags) {
+            scenarioRepository.query(q -> q.withFeatureId(feature.getId()).withInheritedTag(tag))
+                .updateFields(u -> u.removeAll("allTags", Collections.singleton(tag)).set("modifiedAt", now));
+        }
     }
 
 }
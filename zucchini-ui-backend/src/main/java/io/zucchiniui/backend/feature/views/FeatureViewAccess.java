@@ -14,6 +14,7 @@ import xyz.morphia.query.Query;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -51,31 +52,35 @@ public class FeatureViewAccess {
         final TagSelection tagSelection,
         final boolean withStats
     ) {
-        Consumer<FeatureQuery> updatedPreparator = preparator;
-
-        if (tagSelection.isActive()) {
-            final Set<String> featureIdsForTags = scenarioViewAccess.getFeatureIdsForTags(tagSelection);
-            updatedPreparator = updatedPreparator.andThen(q -> q.withIdIn(featureIdsForTags));
-        }
-
-        final Query<Feature> query = featureDAO.prepareTypedQuery(updatedPreparator)
+        final Query<Feature> query = featureDAO.prepareTypedQuery(preparator)
             .project("testRunId", true)
             .project("info", true)
             .project("group", true)
             .project("status", true);
 
-        return MorphiaUtils.streamQuery(query)
-            .map(feature -> {
-                final FeatureListItem item = featureToListItemMapper.map(feature);
+        final List<FeatureListItem> items = MorphiaUtils.streamQuery(query)
+            .map(featureToListItemMapper::map)
+            .collect(Collectors.toList());
 
-                if (withStats || tagSelection.isActive()) {
-                    final ScenarioStats stats = scenarioViewAccess.getStats(q -> q.withFeatureId(feature.getId()).withSelectedTags(tagSelection));
-                    item.setStatus(stats.computeFeatureStatus());
-                    item.setStats(stats);
-                }
-                return item;
-            })
+        if (!withStats && !tagSelection.isActive()) {
+            return items;
+        }
+
+        // Stats of all features are computed at once, only features with scenarii matching the tag selection are kept
+        final Set<String> featureIds = items.stream().map(FeatureListItem::getId).collect(Collectors.toSet());
+        final Map<String, ScenarioStats> statsByFeatureId = scenarioViewAccess.getStatsByFeatureId(featureIds, tagSelection);
+
+        final List<FeatureListItem> selectedItems = items.stream()
+            .filter(item -> !tagSelection.isActive() || statsByFeatureId.containsKey(item.getId()))
             .collect(Collectors.toList());
+
+        selectedItems.forEach(item -> {
+            final ScenarioStats stats = statsByFeatureId.getOrDefault(item.getId(), new ScenarioStats());
+            item.setStatus(stats.computeFeatureStatus());
+            item.setStats(stats);
+        });
+
+        return selectedItems;
     }
 
     public List<FeatureHistoryItem> getFeatureHistory(final String featureKey) {
@@ -0,0 +1,26 @@
+package io.zucchiniui.backend.importjob.dao;
+
+import io.zucchiniui.backend.importjob.domain.ImportJob;
+import io.zucchiniui.backend.importjob.domain.ImportJobQuery;
+import io.zucchiniui.backend.support.ddd.morphia.MorphiaTypedQueryDAO;
+import org.springframework.stereotype.Component;
+import xyz.morphia.Datastore;
+import xyz.morphia.query.Query;
+
+import java.util.function.Consumer;
+
+@Component
+public class ImportJobDAO extends MorphiaTypedQueryDAO<ImportJob, String, ImportJobQuery> {
+
+    public ImportJobDAO(final Datastore ds) {
+        super(ds);
+    }
+
+    @Override
+    public Query<ImportJob> prepareTypedQuery(final Consumer<? super ImportJobQuery> preparator) {
+        final ImportJobQueryImpl typedQuery = new ImportJobQueryImpl(createQuery());
+        preparator.accept(typedQuery);
+        return typedQuery.morphiaQuery();
+    }
+
+}
@@ -0,0 +1,27 @@
+package io.zucchiniui.backend.importjob.dao;
+
+import io.zucchiniui.backend.importjob.domain.ImportJob;
+import io.zucchiniui.backend.importjob.domain.ImportJobQuery;
+import io.zucchiniui.backend.importjob.domain.ImportJobStatus;
+import io.zucchiniui.backend.support.ddd.morphia.BaseMorphiaQuery;
+import xyz.morphia.query.Query;
+
+class ImportJobQueryImpl extends BaseMorphiaQuery<ImportJob> implements ImportJobQuery {
+
+    protected ImportJobQueryImpl(final Query<ImportJob> query) {
+        super(query);
+    }
+
+    @Override
+    public ImportJobQuery withStatus(final ImportJobStatus status) {
+        configureQuery(q -> q.field("status").equal(status));
+        return this;
+    }
+
+    @Override
+    public ImportJobQuery orderByCreationDate() {
+        configureQuery(q -> q.order("createdAt"));
+        return this;
+    }
+
+}
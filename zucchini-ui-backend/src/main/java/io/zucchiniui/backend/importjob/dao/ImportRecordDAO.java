@@ -0,0 +1,26 @@
+package io.zucchiniui.backend.importjob.dao;
+
+import io.zucchiniui.backend.importjob.domain.ImportRecord;
+import io.zucchiniui.backend.importjob.domain.ImportRecordQuery;
+import io.zucchiniui.backend.support.ddd.morphia.MorphiaTypedQueryDAO;
+import org.springframework.stereotype.Component;
+import xyz.morphia.Datastore;
+import xyz.morphia.query.Query;
+
+import java.util.function.Consumer;
+
+@Component
+public class ImportRecordDAO extends MorphiaTypedQueryDAO<ImportRecord, String, ImportRecordQuery> {
+
+    public ImportRecordDAO(final Datastore ds) {
+        super(ds);
+    }
+
+    @Override
+    public Query<ImportRecord> prepareTypedQuery(final Consumer<? super ImportRecordQuery> preparator) {
+        final ImportRecordQueryImpl typedQuery = new ImportRecordQueryImpl(createQuery());
+        preparator.accept(typedQuery);
+        return typedQuery.morphiaQuery();
+    }
+
+}
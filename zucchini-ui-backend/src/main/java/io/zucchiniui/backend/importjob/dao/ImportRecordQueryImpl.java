@@ -0,0 +1,47 @@
+package io.zucchiniui.backend.importjob.dao;
+
+import io.zucchiniui.backend.importjob.domain.ImportRecord;
+import io.zucchiniui.backend.importjob.domain.ImportRecordQuery;
+import io.zucchiniui.backend.support.ddd.morphia.BaseMorphiaQuery;
+import xyz.morphia.query.Query;
+
+import java.util.Optional;
+
+class ImportRecordQueryImpl extends BaseMorphiaQuery<ImportRecord> implements ImportRecordQuery {
+
+    protected ImportRecordQueryImpl(final Query<ImportRecord> query) {
+        super(query);
+    }
+
+    @Override
+    public ImportRecordQuery withTestRunId(final String testRunId) {
+        configureQuery(q -> q.field("testRunId").equal(testRunId));
+        return this;
+    }
+
+    @Override
+    public ImportRecordQuery withGroup(final Optional<String> group) {
+        configureQuery(q -> q.field("group").equal(group.orElse(null)));
+        return this;
+    }
+
+    @Override
+    public ImportRecordQuery withImportOptions(final boolean onlyNewScenarii, final boolean mergeOnlyNewPassedScenarii) {
+        configureQuery(q -> q.field("onlyNewScenarii").equal(onlyNewScenarii)
+            .field("mergeOnlyNewPassedScenarii").equal(mergeOnlyNewPassedScenarii));
+        return this;
+    }
+
+    @Override
+    public ImportRecordQuery withDigest(final String digest) {
+        configureQuery(q -> q.field("digest").equal(digest));
+        return this;
+    }
+
+    @Override
+    public ImportRecordQuery withIdempotencyKey(final String idempotencyKey) {
+        configureQuery(q -> q.field("idempotencyKey").equal(idempotencyKey));
+        return this;
+    }
+
+}
@@ -0,0 +1,266 @@
+package io.zucchiniui.backend.importjob.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
+import io.zucchiniui.backend.support.ddd.BaseEntity;
+import xyz.morphia.annotations.Entity;
+import xyz.morphia.annotations.Id;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Asynchronous import of a Cucumber report into a test run.
+ */
+@Entity("importJobs")
+public class ImportJob extends BaseEntity<String> {
+
+    /**
+     * ID.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Test run ID.
+     */
+    private String testRunId;
+
+    /**
+     * Import options.
+     */
+    private String group;
+
+    private boolean dryRun;
+
+    private boolean onlyNewScenarii;
+
+    private boolean mergeOnlyNewPassedScenarii;
+
+    /**
+     * Path of the spooled report, on the local disk.
+     */
+    @JsonIgnore
+    private String spoolFile;
+
+    /**
+     * SHA-256 digest of the report, and idempotency key given by the client.
+     */
+    private String digest;
+
+    @JsonIgnore
+    private String idempotencyKey;
+
+    /**
+     * Job status.
+     */
+    private ImportJobStatus status;
+
+    private ZonedDateTime createdAt;
+
+    private ZonedDateTime startedAt;
+
+    private ZonedDateTime endedAt;
+
+    /**
+     * Progress of the import.
+     */
+    private int featureCount;
+
+    private int insertedScenarioCount;
+
+    private int updatedScenarioCount;
+
+    private long bytesRead;
+
+    private long totalBytes;
+
+    /**
+     * Errors that occurred during the import.
+     */
+    private List<String> errors = new ArrayList<>();
+
+    /**
+     * Private constructor for Morphia.
+     */
+    private ImportJob() {
+    }
+
+    /**
+     * Create a new pending import job.
+     *
+     * @param testRunId                  Test run ID
+     * @param group                      Group of imported features
+     * @param dryRun                     Dry run
+     * @param onlyNewScenarii            Only import new scenarii
+     * @param mergeOnlyNewPassedScenarii Only merge new passed scenarii
+     */
+    public ImportJob(
+        final String testRunId,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii
+    ) {
+        id = UUID.randomUUID().toString();
+        this.testRunId = Objects.requireNonNull(testRunId);
+        this.group = group.orElse(null);
+        this.dryRun = dryRun;
+        this.onlyNewScenarii = onlyNewScenarii;
+        this.mergeOnlyNewPassedScenarii = mergeOnlyNewPassedScenarii;
+        status = ImportJobStatus.PENDING;
+        createdAt = ZonedDateTime.now();
+    }
+
+    /**
+     * Attach the spooled report to this job.
+     *
+     * @param spooledReport  Spooled report
+     * @param idempotencyKey Idempotency key given by the client
+     */
+    public void setSpooledReport(final SpooledReport spooledReport, final Optional<String> idempotencyKey) {
+        spoolFile = spooledReport.getFile().toString();
+        totalBytes = spooledReport.getSize();
+        digest = spooledReport.getDigest();
+        this.idempotencyKey = idempotencyKey.orElse(null);
+    }
+
+    /**
+     * Start the job. A job that was running when the server stopped is started again from the beginning.
+     */
+    public void start() {
+        if (status.isEnded()) {
+            throw new IllegalStateException("Job " + id + " already ended with status " + status);
+        }
+        status = ImportJobStatus.RUNNING;
+        startedAt = ZonedDateTime.now();
+        featureCount = 0;
+        insertedScenarioCount = 0;
+        updatedScenarioCount = 0;
+        bytesRead = 0;
+    }
+
+    /**
+     * Update progress of the import.
+     *
+     * @param importResult Current import result
+     * @param bytesRead    Number of bytes read from the spooled report
+     */
+    public void updateProgress(final ImportResult importResult, final long bytesRead) {
+        featureCount = importResult.getFeatureCount();
+        insertedScenarioCount = importResult.getInsertedScenarioCount();
+        updatedScenarioCount = importResult.getUpdatedScenarioCount();
+        this.bytesRead = bytesRead;
+    }
+
+    /**
+     * Mark the job as done.
+     *
+     * @param importResult Result of the import
+     */
+    public void succeed(final ImportResult importResult) {
+        updateProgress(importResult, totalBytes);
+        status = ImportJobStatus.DONE;
+        endedAt = ZonedDateTime.now();
+    }
+
+    /**
+     * Mark the job as failed.
+     *
+     * @param error Error message
+     */
+    public void fail(final String error) {
+        errors.add(error);
+        status = ImportJobStatus.FAILED;
+        endedAt = ZonedDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTestRunId() {
+        return testRunId;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public boolean isOnlyNewScenarii() {
+        return onlyNewScenarii;
+    }
+
+    public boolean isMergeOnlyNewPassedScenarii() {
+        return mergeOnlyNewPassedScenarii;
+    }
+
+    @JsonIgnore
+    public Optional<String> getSpoolFile() {
+        return Optional.ofNullable(spoolFile);
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    @JsonIgnore
+    public Optional<String> getIdempotencyKey() {
+        return Optional.ofNullable(idempotencyKey);
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public ZonedDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public ZonedDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public ZonedDateTime getEndedAt() {
+        return endedAt;
+    }
+
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+    public int getInsertedScenarioCount() {
+        return insertedScenarioCount;
+    }
+
+    public int getUpdatedScenarioCount() {
+        return updatedScenarioCount;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    protected String getEntityId() {
+        return id;
+    }
+
+}
@@ -0,0 +1,9 @@
+package io.zucchiniui.backend.importjob.domain;
+
+public interface ImportJobQuery {
+
+    ImportJobQuery withStatus(ImportJobStatus status);
+
+    ImportJobQuery orderByCreationDate();
+
+}
@@ -0,0 +1,6 @@
+package io.zucchiniui.backend.importjob.domain;
+
+import io.zucchiniui.backend.support.ddd.QueriableRepository;
+
+public interface ImportJobRepository extends QueriableRepository<ImportJob, String, ImportJobQuery> {
+}
@@ -0,0 +1,102 @@
+package io.zucchiniui.backend.importjob.domain;
+
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
+
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+public interface ImportJobService {
+
+    /**
+     * Spool a Cucumber report on the local disk, and compute its digest.
+     *
+     * @param reportStream Cucumber report
+     * @return Spooled report, that must be imported, submitted or discarded
+     */
+    SpooledReport spool(InputStream reportStream);
+
+    /**
+     * Delete a spooled report that will not be imported.
+     *
+     * @param spooledReport Spooled report
+     */
+    void discard(SpooledReport spooledReport);
+
+    /**
+     * Check if a report has already been imported into a test run with an idempotency key.
+     * <p>
+     * Only spooled Cucumber JSON reports are recorded: Cucumber Messages, multipart uploads and appended features are
+     * never found.
+     *
+     * @param testRunId      Test run ID
+     * @param idempotencyKey Idempotency key given by the client
+     * @return True if a report has already been imported with this key
+     */
+    boolean isAlreadyImported(String testRunId, String idempotencyKey);
+
+    /**
+     * Check if the same report has already been imported into a test run, in the same group and with the same options.
+     *
+     * @param testRunId                  Test run ID
+     * @param group                      Group of imported features
+     * @param onlyNewScenarii            Only import new scenarii
+     * @param mergeOnlyNewPassedScenarii Only merge new passed scenarii
+     * @param spooledReport              Spooled report
+     * @return True if a report with the same digest has already been imported
+     */
+    boolean isAlreadyImported(
+        String testRunId,
+        Optional<String> group,
+        boolean onlyNewScenarii,
+        boolean mergeOnlyNewPassedScenarii,
+        SpooledReport spooledReport
+    );
+
+    /**
+     * Import a spooled report now, then delete it. Import is recorded, unless it is a dry run.
+     *
+     * @param testRunId                  Test run ID
+     * @param spooledReport              Spooled report
+     * @param group                      Group of imported features
+     * @param dryRun                     Dry run
+     * @param onlyNewScenarii            Only import new scenarii
+     * @param mergeOnlyNewPassedScenarii Only merge new passed scenarii
+     * @param idempotencyKey             Idempotency key given by the client
+     * @return Import result
+     */
+    ImportResult importNow(
+        String testRunId,
+        SpooledReport spooledReport,
+        Optional<String> group,
+        boolean dryRun,
+        boolean onlyNewScenarii,
+        boolean mergeOnlyNewPassedScenarii,
+        Optional<String> idempotencyKey
+    );
+
+    /**
+     * Submit a job that will import a spooled report asynchronously, then delete it.
+     * Import is recorded when the job is done, unless it is a dry run.
+     *
+     * @param testRunId                  Test run ID
+     * @param spooledReport              Spooled report
+     * @param group                      Group of imported features
+     * @param dryRun                     Dry run
+     * @param onlyNewScenarii            Only import new scenarii
+     * @param mergeOnlyNewPassedScenarii Only merge new passed scenarii
+     * @param idempotencyKey             Idempotency key given by the client
+     * @return Submitted job
+     * @throws RejectedExecutionException Too many jobs are waiting to be processed, the job has been failed
+     */
+    ImportJob submit(
+        String testRunId,
+        SpooledReport spooledReport,
+        Optional<String> group,
+        boolean dryRun,
+        boolean onlyNewScenarii,
+        boolean mergeOnlyNewPassedScenarii,
+        Optional<String> idempotencyKey
+    );
+
+}
@@ -0,0 +1,32 @@
+package io.zucchiniui.backend.importjob.domain;
+
+/**
+ * Import job status.
+ */
+public enum ImportJobStatus {
+
+    /**
+     * Job waiting to be processed.
+     */
+    PENDING,
+
+    /**
+     * Job being processed.
+     */
+    RUNNING,
+
+    /**
+     * Job successfully processed.
+     */
+    DONE,
+
+    /**
+     * Job failed.
+     */
+    FAILED;
+
+    public boolean isEnded() {
+        return this == DONE || this == FAILED;
+    }
+
+}
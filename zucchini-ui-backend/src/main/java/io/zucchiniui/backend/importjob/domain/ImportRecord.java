@@ -0,0 +1,127 @@
+package io.zucchiniui.backend.importjob.domain;
+
+import io.zucchiniui.backend.support.ddd.BaseEntity;
+import xyz.morphia.annotations.Entity;
+import xyz.morphia.annotations.Id;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Record of a Cucumber report imported into a test run, used to skip the same report when it is imported again.
+ */
+@Entity("importRecords")
+public class ImportRecord extends BaseEntity<String> {
+
+    /**
+     * ID.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Test run ID.
+     */
+    private String testRunId;
+
+    /**
+     * Group of imported features.
+     */
+    private String group;
+
+    /**
+     * Only new scenarii have been imported.
+     */
+    private boolean onlyNewScenarii;
+
+    /**
+     * Only new passed scenarii have been merged.
+     */
+    private boolean mergeOnlyNewPassedScenarii;
+
+    /**
+     * SHA-256 digest of the report.
+     */
+    private String digest;
+
+    /**
+     * Idempotency key given by the client.
+     */
+    private String idempotencyKey;
+
+    private ZonedDateTime createdAt;
+
+    /**
+     * Private constructor for Morphia.
+     */
+    private ImportRecord() {
+    }
+
+    /**
+     * Record a report import.
+     *
+     * @param testRunId                  Test run ID
+     * @param group                      Group of imported features
+     * @param onlyNewScenarii            Only new scenarii have been imported
+     * @param mergeOnlyNewPassedScenarii Only new passed scenarii have been merged
+     * @param digest                     SHA-256 digest of the report
+     * @param idempotencyKey             Idempotency key given by the client
+     */
+    public ImportRecord(
+        final String testRunId,
+        final Optional<String> group,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii,
+        final String digest,
+        final Optional<String> idempotencyKey
+    ) {
+        id = UUID.randomUUID().toString();
+        this.testRunId = Objects.requireNonNull(testRunId);
+        this.group = group.orElse(null);
+        this.onlyNewScenarii = onlyNewScenarii;
+        this.mergeOnlyNewPassedScenarii = mergeOnlyNewPassedScenarii;
+        this.digest = Objects.requireNonNull(digest);
+        this.idempotencyKey = idempotencyKey.orElse(null);
+        createdAt = ZonedDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTestRunId() {
+        return testRunId;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public boolean isOnlyNewScenarii() {
+        return onlyNewScenarii;
+    }
+
+    public boolean isMergeOnlyNewPassedScenarii() {
+        return mergeOnlyNewPassedScenarii;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public ZonedDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    protected String getEntityId() {
+        return id;
+    }
+
+}
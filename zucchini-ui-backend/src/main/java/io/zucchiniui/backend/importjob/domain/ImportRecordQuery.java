@@ -0,0 +1,17 @@
+package io.zucchiniui.backend.importjob.domain;
+
+import java.util.Optional;
+
+public interface ImportRecordQuery {
+
+    ImportRecordQuery withTestRunId(String testRunId);
+
+    ImportRecordQuery withGroup(Optional<String> group);
+
+    ImportRecordQuery withImportOptions(boolean onlyNewScenarii, boolean mergeOnlyNewPassedScenarii);
+
+    ImportRecordQuery withDigest(String digest);
+
+    ImportRecordQuery withIdempotencyKey(String idempotencyKey);
+
+}
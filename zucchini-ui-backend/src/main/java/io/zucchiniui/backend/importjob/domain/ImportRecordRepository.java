@@ -0,0 +1,6 @@
+package io.zucchiniui.backend.importjob.domain;
+
+import io.zucchiniui.backend.support.ddd.QueriableRepository;
+
+public interface ImportRecordRepository extends QueriableRepository<ImportRecord, String, ImportRecordQuery> {
+}
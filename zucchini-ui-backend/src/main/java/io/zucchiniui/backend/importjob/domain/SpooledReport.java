@@ -0,0 +1,40 @@
+package io.zucchiniui.backend.importjob.domain;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Cucumber report spooled on the local disk, with its digest computed while it was spooled.
+ */
+public final class SpooledReport {
+
+    private final Path file;
+
+    private final long size;
+
+    private final String digest;
+
+    public SpooledReport(final Path file, final long size, final String digest) {
+        this.file = Objects.requireNonNull(file);
+        this.size = size;
+        this.digest = Objects.requireNonNull(digest);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the SHA-256 digest of the report.
+     *
+     * @return Digest, as a lowercase hex string
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+}
@@ -0,0 +1,17 @@
+package io.zucchiniui.backend.importjob.domainimpl;
+
+import io.zucchiniui.backend.importjob.dao.ImportJobDAO;
+import io.zucchiniui.backend.importjob.domain.ImportJob;
+import io.zucchiniui.backend.importjob.domain.ImportJobQuery;
+import io.zucchiniui.backend.importjob.domain.ImportJobRepository;
+import io.zucchiniui.backend.support.ddd.morphia.MorphiaQueriableRepository;
+import org.springframework.stereotype.Component;
+
+@Component
+class ImportJobRepositoryImpl extends MorphiaQueriableRepository<ImportJob, String, ImportJobQuery> implements ImportJobRepository {
+
+    public ImportJobRepositoryImpl(final ImportJobDAO dao) {
+        super(dao);
+    }
+
+}
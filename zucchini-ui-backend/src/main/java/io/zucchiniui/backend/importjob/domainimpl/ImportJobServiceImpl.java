@@ -0,0 +1,272 @@
+package io.zucchiniui.backend.importjob.domainimpl;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.CountingInputStream;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import io.dropwizard.lifecycle.Managed;
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.importjob.domain.ImportJob;
+import io.zucchiniui.backend.importjob.domain.ImportJobRepository;
+import io.zucchiniui.backend.importjob.domain.ImportJobService;
+import io.zucchiniui.backend.importjob.domain.ImportJobStatus;
+import io.zucchiniui.backend.importjob.domain.ImportRecord;
+import io.zucchiniui.backend.importjob.domain.ImportRecordRepository;
+import io.zucchiniui.backend.importjob.domain.SpooledReport;
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
+import io.zucchiniui.backend.reportconverter.domain.ReportConverterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Component
+class ImportJobServiceImpl implements ImportJobService, Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportJobServiceImpl.class);
+
+    /**
+     * Min delay between two saves of the progress of a job.
+     */
+    private static final long PROGRESS_SAVE_INTERVAL_MILLIS = 1000;
+
+    private final ImportJobRepository importJobRepository;
+
+    private final ImportRecordRepository importRecordRepository;
+
+    private final ReportConverterService reportConverterService;
+
+    private final ExecutorService importExecutor;
+
+    private final Path spoolDirectory;
+
+    public ImportJobServiceImpl(
+        final ImportJobRepository importJobRepository,
+        final ImportRecordRepository importRecordRepository,
+        final ReportConverterService reportConverterService,
+        @Qualifier("importExecutor") final ExecutorService importExecutor,
+        final BackendConfiguration configuration
+    ) {
+        this.importJobRepository = importJobRepository;
+        this.importRecordRepository = importRecordRepository;
+        this.reportConverterService = reportConverterService;
+        this.importExecutor = importExecutor;
+        spoolDirectory = Paths.get(configuration.getImportConfiguration().getSpoolDirectory());
+    }
+
+    @Override
+    public void start() throws IOException {
+        Files.createDirectories(spoolDirectory);
+
+        // Jobs interrupted by a shutdown are processed again if their report is still spooled, otherwise they are failed
+        for (final ImportJobStatus status : Arrays.asList(ImportJobStatus.RUNNING, ImportJobStatus.PENDING)) {
+            importJobRepository.query(q -> q.withStatus(status).orderByCreationDate())
+                .find()
+                .forEach(this::resume);
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Nothing to do: the import executor is managed by Dropwizard, and running jobs are resumed on next start
+    }
+
+    @Override
+    public SpooledReport spool(final InputStream reportStream) {
+        // Digest is computed while the report is written, so the report is read once
+        final Path spoolFile = spoolDirectory.resolve(UUID.randomUUID() + ".json");
+        try (final HashingInputStream hashingStream = new HashingInputStream(Hashing.sha256(), reportStream)) {
+            final long size = Files.copy(hashingStream, spoolFile);
+            return new SpooledReport(spoolFile, size, hashingStream.hash().toString());
+        } catch (final IOException e) {
+            deleteSpoolFile(spoolFile);
+            throw new UncheckedIOException("Can't spool report", e);
+        }
+    }
+
+    @Override
+    public void discard(final SpooledReport spooledReport) {
+        deleteSpoolFile(spooledReport.getFile());
+    }
+
+    @Override
+    public boolean isAlreadyImported(final String testRunId, final String idempotencyKey) {
+        return importRecordRepository.query(q -> q.withTestRunId(testRunId).withIdempotencyKey(idempotencyKey))
+            .tryToFindOne()
+            .isPresent();
+    }
+
+    @Override
+    public boolean isAlreadyImported(
+        final String testRunId,
+        final Optional<String> group,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii,
+        final SpooledReport spooledReport
+    ) {
+        return importRecordRepository.query(q -> q.withTestRunId(testRunId)
+            .withGroup(group)
+            .withImportOptions(onlyNewScenarii, mergeOnlyNewPassedScenarii)
+            .withDigest(spooledReport.getDigest()))
+            .tryToFindOne()
+            .isPresent();
+    }
+
+    @Override
+    public ImportResult importNow(
+        final String testRunId,
+        final SpooledReport spooledReport,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii,
+        final Optional<String> idempotencyKey
+    ) {
+        try (final InputStream reportStream = Files.newInputStream(spooledReport.getFile())) {
+            final ImportResult importResult = reportConverterService.convertAndSaveFeatures(
+                testRunId,
+                reportStream,
+                group,
+                dryRun,
+                onlyNewScenarii,
+                mergeOnlyNewPassedScenarii
+            );
+            if (!dryRun) {
+                record(new ImportRecord(testRunId, group, onlyNewScenarii, mergeOnlyNewPassedScenarii, spooledReport.getDigest(), idempotencyKey));
+            }
+            return importResult;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't read spooled report " + spooledReport.getFile(), e);
+        } finally {
+            discard(spooledReport);
+        }
+    }
+
+    @Override
+    public ImportJob submit(
+        final String testRunId,
+        final SpooledReport spooledReport,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii,
+        final Optional<String> idempotencyKey
+    ) {
+        final ImportJob job = new ImportJob(testRunId, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+        job.setSpooledReport(spooledReport, idempotencyKey);
+
+        importJobRepository.save(job);
+        schedule(job);
+        return job;
+    }
+
+    private void resume(final ImportJob job) {
+        final boolean spooled = job.getSpoolFile().map(Paths::get).filter(Files::exists).isPresent();
+        if (!spooled) {
+            LOGGER.warn("Spooled report of import job {} has been lost, failing job", job.getId());
+            job.fail("Spooled report has been lost after a restart");
+            importJobRepository.save(job);
+            return;
+        }
+
+        LOGGER.info("Resuming import job {}", job.getId());
+        try {
+            schedule(job);
+        } catch (final RejectedExecutionException e) {
+            LOGGER.warn("Can't resume import job {}", job.getId(), e);
+        }
+    }
+
+    private void schedule(final ImportJob job) {
+        try {
+            importExecutor.execute(() -> run(job.getId()));
+        } catch (final RejectedExecutionException e) {
+            job.fail("Too many pending imports");
+            importJobRepository.save(job);
+            job.getSpoolFile().map(Paths::get).ifPresent(ImportJobServiceImpl::deleteSpoolFile);
+            throw e;
+        }
+    }
+
+    private void run(final String jobId) {
+        final ImportJob job = importJobRepository.getById(jobId);
+        final Path spoolFile = Paths.get(job.getSpoolFile().orElseThrow(() -> new IllegalStateException("No spooled report for job " + jobId)));
+
+        LOGGER.info("Starting import job {} for test run {}", jobId, job.getTestRunId());
+        job.start();
+        importJobRepository.save(job);
+
+        try (final CountingInputStream reportStream = new CountingInputStream(Files.newInputStream(spoolFile))) {
+            final Stopwatch sinceLastSave = Stopwatch.createStarted();
+            final ImportResult importResult = reportConverterService.convertAndSaveFeatures(
+                job.getTestRunId(),
+                reportStream,
+                Optional.ofNullable(job.getGroup()),
+                job.isDryRun(),
+                job.isOnlyNewScenarii(),
+                job.isMergeOnlyNewPassedScenarii(),
+                progress -> {
+                    if (sinceLastSave.elapsed(TimeUnit.MILLISECONDS) >= PROGRESS_SAVE_INTERVAL_MILLIS) {
+                        job.updateProgress(progress, reportStream.getCount());
+                        importJobRepository.save(job);
+                        sinceLastSave.reset().start();
+                    }
+                }
+            );
+            job.succeed(importResult);
+            if (!job.isDryRun()) {
+                record(new ImportRecord(
+                    job.getTestRunId(),
+                    Optional.ofNullable(job.getGroup()),
+                    job.isOnlyNewScenarii(),
+                    job.isMergeOnlyNewPassedScenarii(),
+                    job.getDigest(),
+                    job.getIdempotencyKey()
+                ));
+            }
+            LOGGER.info("Import job {} done", jobId);
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.error("Import job {} failed", jobId, e);
+            job.fail(Objects.toString(e.getMessage(), e.getClass().getName()));
+        }
+
+        importJobRepository.save(job);
+        deleteSpoolFile(spoolFile);
+    }
+
+    private void record(final ImportRecord importRecord) {
+        try {
+            importRecordRepository.save(importRecord);
+        } catch (final MongoException e) {
+            // Same report imported at the same time by another request
+            if (ErrorCategory.fromErrorCode(e.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+        }
+    }
+
+    private static void deleteSpoolFile(final Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (final IOException e) {
+            LOGGER.warn("Can't delete spooled report {}", spoolFile, e);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package io.zucchiniui.backend.importjob.domainimpl;
+
+import io.zucchiniui.backend.importjob.dao.ImportRecordDAO;
+import io.zucchiniui.backend.importjob.domain.ImportRecord;
+import io.zucchiniui.backend.importjob.domain.ImportRecordQuery;
+import io.zucchiniui.backend.importjob.domain.ImportRecordRepository;
+import io.zucchiniui.backend.support.ddd.morphia.MorphiaQueriableRepository;
+import org.springframework.stereotype.Component;
+
+@Component
+class ImportRecordRepositoryImpl extends MorphiaQueriableRepository<ImportRecord, String, ImportRecordQuery> implements ImportRecordRepository {
+
+    public ImportRecordRepositoryImpl(final ImportRecordDAO dao) {
+        super(dao);
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.zucchiniui.backend.importjob.rest;
+
+import io.zucchiniui.backend.importjob.domain.ImportJob;
+import io.zucchiniui.backend.importjob.domain.ImportJobRepository;
+import org.springframework.stereotype.Component;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+@Component
+@Path("/imports")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class ImportJobResource {
+
+    private final ImportJobRepository importJobRepository;
+
+    public ImportJobResource(final ImportJobRepository importJobRepository) {
+        this.importJobRepository = importJobRepository;
+    }
+
+    @GET
+    @Path("{jobId}")
+    public ImportJob get(@PathParam("jobId") final String jobId) {
+        return importJobRepository.getById(jobId);
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import io.zucchiniui.backend.shared.domain.Location;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Dictionary of the low-cardinality values of a report, shared by all features converted during an import.
+ * <p>
+ * Keywords, tags, languages and step definition locations repeat for each scenario and step of a report:
+ * converted values are cached by raw value, so all occurrences share the same instance instead of allocating
+ * a new one each time. Only these fields should be converted here, as names and outputs are mostly unique.
+ * <p>
+ * The dictionary is thread-safe, as features of a report are converted in parallel. Its size is bounded: once full,
+ * new values are converted without being cached.
+ */
+public final class ConversionInterner {
+
+    private static final int DEFAULT_MAX_ENTRIES = 16 * 1024;
+
+    private final int maxEntries;
+
+    private final Map<String, String> trimmedStrings = new ConcurrentHashMap<>();
+
+    private final Map<String, String> tags = new ConcurrentHashMap<>();
+
+    private final Map<String, Location> locations = new ConcurrentHashMap<>();
+
+    public ConversionInterner() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries Max number of values cached for each kind of value
+     */
+    ConversionInterner(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Trim a low-cardinality string, like a keyword or a language.
+     */
+    public String trim(final String source) {
+        return lookup(trimmedStrings, source, ConversionUtils::trimString);
+    }
+
+    /**
+     * Convert a tag name, stripping the leading <code>@</code>.
+     */
+    public String tag(final String source) {
+        return lookup(tags, source, ConversionUtils::stripAtSign);
+    }
+
+    /**
+     * Parse a location, like a step definition location.
+     *
+     * @param parser Location parser, that may return null for an invalid location
+     */
+    public Location location(final String source, final Function<String, Location> parser) {
+        return lookup(locations, source, parser);
+    }
+
+    int size() {
+        return trimmedStrings.size() + tags.size() + locations.size();
+    }
+
+    private <T> T lookup(final Map<String, T> cache, final String source, final Function<String, T> converter) {
+        if (source == null) {
+            return null;
+        }
+
+        final T cached = cache.get(source);
+        if (cached != null) {
+            return cached;
+        }
+
+        final T value = converter.apply(source);
+        if (value == null || cache.size() >= maxEntries) {
+            return value;
+        }
+
+        final T previous = cache.putIfAbsent(source, value);
+        return previous != null ? previous : value;
+    }
+
+}
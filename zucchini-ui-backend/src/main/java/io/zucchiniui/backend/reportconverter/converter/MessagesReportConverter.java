@@ -0,0 +1,641 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.io.ByteSource;
+import com.google.common.io.FileBackedOutputStream;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import io.zucchiniui.backend.feature.domain.Feature;
+import io.zucchiniui.backend.reportconverter.report.ReportAttachmentData;
+import io.zucchiniui.backend.reportconverter.report.ReportAttachmentDataDeserializer;
+import io.zucchiniui.backend.scenario.domain.Attachment;
+import io.zucchiniui.backend.scenario.domain.AroundActionBuilder;
+import io.zucchiniui.backend.scenario.domain.BackgroundBuilder;
+import io.zucchiniui.backend.scenario.domain.ScenarioBuilder;
+import io.zucchiniui.backend.scenario.domain.StepBuilder;
+import io.zucchiniui.backend.scenario.domain.StepStatus;
+import io.zucchiniui.backend.shared.domain.Argument;
+import io.zucchiniui.backend.shared.domain.BasicInfo;
+import io.zucchiniui.backend.shared.domain.Location;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming converter for Cucumber Messages reports, written as NDJSON by newer Cucumber versions.
+ * <p>
+ * Envelopes are read line by line. Only gherkin documents, step definitions, and the pickles and test cases that
+ * are not finished yet are kept in memory: each scenario is emitted as soon as its test case is finished, and
+ * attachments are moved to the attachment store as soon as they are read.
+ * <p>
+ * Lines are spooled as bytes, to a temporary file for long lines. Attachment bodies are decoded from the spooled line
+ * while they are parsed, like attachments of JSON reports: a large attachment is never held as a string nor as an
+ * array.
+ * <p>
+ * Feature and scenario keys are computed from names, like the ids of the legacy JSON report of cucumber-jvm, so
+ * that scenarii imported from both formats are linked to each other.
+ */
+@Component
+public class MessagesReportConverter {
+
+    private static final Pattern ID_SEPARATOR_PATTERN = Pattern.compile("[\\s'_,!]");
+
+    private static final String LOG_MEDIA_TYPE = "text/x.cucumber.log+plain";
+
+    private final JsonFactory jsonFactory;
+
+    private final ObjectReader messageReader;
+
+    private final AttachmentStore attachmentStore;
+
+    private final StepTextSpiller stepTextSpiller;
+
+    public MessagesReportConverter(
+        @Qualifier("reportObjectMapper") final ObjectMapper objectMapper,
+        final AttachmentStore attachmentStore,
+        final StepTextSpiller stepTextSpiller
+    ) {
+        jsonFactory = objectMapper.getFactory();
+        messageReader = objectMapper.readerFor(JsonNode.class);
+        this.attachmentStore = attachmentStore;
+        this.stepTextSpiller = stepTextSpiller;
+    }
+
+    /**
+     * Read a Cucumber Messages report and give each scenario to a consumer, as soon as its test case is finished.
+     * Test cases that will be retried are skipped: only the last attempt is given to the consumer.
+     *
+     * @param testRunId        Test run ID
+     * @param group            Group of features
+     * @param messageStream    Stream containing the NDJSON envelopes, closed when read
+     * @param scenarioConsumer Consumer for the parent feature and the builder of each finished scenario
+     * @throws IOException Can't read or parse the report
+     */
+    public void read(
+        final String testRunId,
+        final Optional<String> group,
+        final InputStream messageStream,
+        final BiConsumer<Feature, ScenarioBuilder> scenarioConsumer
+    ) throws IOException {
+        final Conversion conversion = new Conversion(testRunId, group, scenarioConsumer);
+        final FileBackedOutputStream line = new FileBackedOutputStream(ReportAttachmentDataDeserializer.MEMORY_THRESHOLD, true);
+        try (final NdjsonLineReader lineReader = new NdjsonLineReader(messageStream)) {
+            while (lineReader.nextLine(line)) {
+                conversion.accept(line.asByteSource());
+                line.reset();
+            }
+        } finally {
+            line.reset();
+        }
+    }
+
+    /**
+     * State of the conversion of a report.
+     */
+    private class Conversion {
+
+        private final String testRunId;
+
+        private final Optional<String> group;
+
+        private final BiConsumer<Feature, ScenarioBuilder> scenarioConsumer;
+
+        private final Map<String, Document> documentsByUri = new HashMap<>();
+
+        private final Map<String, Location> stepDefinitionLocations = new HashMap<>();
+
+        private final Map<String, JsonNode> pickles = new HashMap<>();
+
+        private final Map<String, JsonNode> testCases = new HashMap<>();
+
+        private final Map<String, RunningTestCase> runningTestCases = new HashMap<>();
+
+        private final ConversionInterner interner = new ConversionInterner();
+
+        Conversion(final String testRunId, final Optional<String> group, final BiConsumer<Feature, ScenarioBuilder> scenarioConsumer) {
+            this.testRunId = testRunId;
+            this.group = group;
+            this.scenarioConsumer = scenarioConsumer;
+        }
+
+        /**
+         * Read an envelope. Its message is read as a tree, except attachments, which are read from the parser.
+         *
+         * @param line Line containing the envelope
+         */
+        void accept(final ByteSource line) throws IOException {
+            final String type;
+            final JsonNode message;
+            try (final JsonParser parser = jsonFactory.createParser(line.openStream())) {
+                // Blank lines are ignored
+                if (parser.nextToken() == null) {
+                    return;
+                }
+                type = parser.nextFieldName();
+                if (type == null) {
+                    return;
+                }
+                parser.nextToken();
+
+                if ("attachment".equals(type)) {
+                    readAttachment(parser, line);
+                    return;
+                }
+                message = messageReader.readValue(parser);
+            }
+
+            switch (type) {
+                case "gherkinDocument":
+                    readGherkinDocument(message);
+                    break;
+                case "pickle":
+                    pickles.put(message.path("id").asText(), message);
+                    break;
+                case "stepDefinition":
+                    readStepDefinition(message);
+                    break;
+                case "testCase":
+                    testCases.put(message.path("id").asText(), message);
+                    break;
+                case "testCaseStarted":
+                    runningTestCases.put(message.path("id").asText(), new RunningTestCase(message.path("testCaseId").asText()));
+                    break;
+                case "testStepFinished":
+                    getRunningTestCase(message.path("testCaseStartedId").asText())
+                        .results.put(message.path("testStepId").asText(), message.path("testStepResult"));
+                    break;
+                case "testCaseFinished":
+                    finishTestCase(message);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void readGherkinDocument(final JsonNode gherkinDocument) {
+            final JsonNode reportFeature = gherkinDocument.path("feature");
+            if (reportFeature.isMissingNode()) {
+                return;
+            }
+
+            final String uri = gherkinDocument.path("uri").asText();
+            final String featureId = convertToId(reportFeature.path("name").asText());
+
+            final BasicInfo info = new BasicInfo(
+                interner.trim(reportFeature.path("keyword").asText()),
+                ConversionUtils.trimString(reportFeature.path("name").asText())
+            );
+            final Location location = new Location(uri, reportFeature.path("location").path("line").asInt());
+
+            final Feature feature = new Feature(
+                ConversionUtils.stringToSha1Sum(featureId),
+                testRunId,
+                info,
+                location,
+                interner.trim(reportFeature.path("language").asText("en"))
+            );
+            feature.setDescription(StringUtils.trimToNull(reportFeature.path("description").asText()));
+            group.ifPresent(feature::setGroup);
+            feature.setTags(convertTags(reportFeature.path("tags"), interner));
+
+            final Document document = new Document(feature, featureId);
+            indexChildren(document, reportFeature.path("children"));
+            documentsByUri.put(uri, document);
+        }
+
+        private void indexChildren(final Document document, final JsonNode children) {
+            for (final JsonNode child : children) {
+                if (child.has("background")) {
+                    final JsonNode background = child.get("background");
+                    document.background = background;
+                    for (final JsonNode step : background.path("steps")) {
+                        document.stepKeywords.put(step.path("id").asText(), step.path("keyword").asText());
+                        document.backgroundStepIds.add(step.path("id").asText());
+                    }
+                } else if (child.has("scenario")) {
+                    indexScenario(document, child.get("scenario"));
+                } else if (child.has("rule")) {
+                    indexChildren(document, child.get("rule").path("children"));
+                }
+            }
+        }
+
+        private void indexScenario(final Document document, final JsonNode scenario) {
+            final String scenarioId = document.featureId + ";" + convertToId(scenario.path("name").asText());
+            document.scenarioKeywords.put(scenario.path("id").asText(), scenario.path("keyword").asText());
+            document.scenarioIds.put(scenario.path("id").asText(), scenarioId);
+
+            for (final JsonNode step : scenario.path("steps")) {
+                document.stepKeywords.put(step.path("id").asText(), step.path("keyword").asText());
+            }
+
+            // Examples rows are numbered like cucumber-jvm does: the header is row 1, first body row is row 2
+            for (final JsonNode examples : scenario.path("examples")) {
+                final String examplesId = scenarioId + ";" + convertToId(examples.path("name").asText());
+                int rowIndex = 2;
+                for (final JsonNode row : examples.path("tableBody")) {
+                    document.scenarioIds.put(row.path("id").asText(), examplesId + ";" + rowIndex);
+                    rowIndex++;
+                }
+            }
+        }
+
+        private void readStepDefinition(final JsonNode stepDefinition) {
+            final JsonNode sourceReference = stepDefinition.path("sourceReference");
+            if (sourceReference.has("uri")) {
+                stepDefinitionLocations.put(
+                    stepDefinition.path("id").asText(),
+                    new Location(sourceReference.get("uri").asText(), sourceReference.path("location").path("line").asInt())
+                );
+            }
+        }
+
+        /**
+         * Read an attachment: its fields are read first, skipping the body. The body is then read from the line
+         * again, as text for logs, or decoded while it is parsed to the attachment store.
+         *
+         * @param parser Parser, positioned on the start of the attachment
+         * @param line   Line containing the attachment envelope
+         */
+        private void readAttachment(final JsonParser parser, final ByteSource line) throws IOException {
+            final Map<String, String> fields = new HashMap<>();
+            String fieldName;
+            while ((fieldName = parser.nextFieldName()) != null) {
+                if (parser.nextToken() == JsonToken.VALUE_STRING && !"body".equals(fieldName)) {
+                    fields.put(fieldName, parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            final RunningTestCase runningTestCase = getRunningTestCase(fields.getOrDefault("testCaseStartedId", ""));
+            final String testStepId = fields.getOrDefault("testStepId", "");
+            final String mediaType = fields.getOrDefault("mediaType", "");
+            final boolean base64 = "BASE64".equals(fields.get("contentEncoding"));
+
+            if (LOG_MEDIA_TYPE.equals(mediaType) && !base64) {
+                final String output = readAttachmentBody(line, JsonParser::getText);
+                runningTestCase.outputs.computeIfAbsent(testStepId, id -> new ArrayList<>()).add(output == null ? "" : output);
+                return;
+            }
+
+            // Content is moved to the attachment store right away, the running test case only references it
+            final ReportAttachmentData data = readAttachmentBody(
+                line,
+                base64 ? ReportAttachmentDataDeserializer::readBase64 : ReportAttachmentDataDeserializer::readText
+            );
+            if (data == null) {
+                return;
+            }
+            try {
+                attachmentStore.store(data.getSha256(), data.asByteSource());
+            } finally {
+                data.release();
+            }
+            runningTestCase.attachments.computeIfAbsent(testStepId, id -> new ArrayList<>())
+                .add(new Attachment(data.getSha256(), data.getSize(), mediaType, fields.get("fileName")));
+        }
+
+        /**
+         * Read the body of an attachment envelope.
+         *
+         * @return Body, or null if the attachment has no body
+         */
+        private <T> T readAttachmentBody(final ByteSource line, final BodyReader<T> bodyReader) throws IOException {
+            try (final JsonParser parser = jsonFactory.createParser(line.openStream())) {
+                parser.nextToken();
+                parser.nextFieldName();
+                parser.nextToken();
+
+                String fieldName;
+                while ((fieldName = parser.nextFieldName()) != null) {
+                    if (parser.nextToken() == JsonToken.VALUE_STRING && "body".equals(fieldName)) {
+                        return bodyReader.read(parser);
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            }
+        }
+
+        private void finishTestCase(final JsonNode testCaseFinished) {
+            final String testCaseStartedId = testCaseFinished.path("testCaseStartedId").asText();
+            final RunningTestCase runningTestCase = getRunningTestCase(testCaseStartedId);
+            runningTestCases.remove(testCaseStartedId);
+
+            // Only the last attempt of a retried test case is kept
+            if (testCaseFinished.path("willBeRetried").asBoolean()) {
+                return;
+            }
+
+            final JsonNode testCase = testCases.remove(runningTestCase.testCaseId);
+            if (testCase == null) {
+                throw new IllegalStateException("Unknown test case: " + runningTestCase.testCaseId);
+            }
+            final JsonNode pickle = pickles.remove(testCase.path("pickleId").asText());
+            if (pickle == null) {
+                throw new IllegalStateException("Unknown pickle: " + testCase.path("pickleId").asText());
+            }
+            final Document document = documentsByUri.get(pickle.path("uri").asText());
+            if (document == null) {
+                throw new IllegalStateException("Unknown gherkin document: " + pickle.path("uri").asText());
+            }
+
+            scenarioConsumer.accept(document.feature, createScenarioBuilder(document, pickle, testCase, runningTestCase));
+        }
+
+        private ScenarioBuilder createScenarioBuilder(
+            final Document document,
+            final JsonNode pickle,
+            final JsonNode testCase,
+            final RunningTestCase runningTestCase
+        ) {
+            final Feature feature = document.feature;
+
+            // Pickle references its scenario, then its examples row for scenario outlines
+            final JsonNode astNodeIds = pickle.path("astNodeIds");
+            final String scenarioNodeId = astNodeIds.path(0).asText();
+            final String scenarioId = document.scenarioIds.getOrDefault(
+                astNodeIds.path(astNodeIds.size() - 1).asText(),
+                document.featureId + ";" + convertToId(pickle.path("name").asText())
+            );
+
+            final BasicInfo scenarioInfo = new BasicInfo(
+                interner.trim(document.scenarioKeywords.get(scenarioNodeId)),
+                ConversionUtils.trimString(pickle.path("name").asText())
+            );
+
+            final ScenarioBuilder scenarioBuilder = new ScenarioBuilder()
+                .withTestRunId(feature.getTestRunId())
+                .withFeatureId(feature.getId())
+                .withScenarioKey(ConversionUtils.stringToSha1Sum(scenarioId))
+                .withLanguage(feature.getLanguage())
+                .withInfo(scenarioInfo)
+                .withTags(convertTags(pickle.path("tags"), interner))
+                .withExtraTags(feature.getTags());
+
+            final Map<String, JsonNode> pickleSteps = new HashMap<>();
+            for (final JsonNode pickleStep : pickle.path("steps")) {
+                pickleSteps.put(pickleStep.path("id").asText(), pickleStep);
+            }
+
+            boolean hasBackgroundSteps = false;
+            final List<JsonNode> afterHooks = new ArrayList<>();
+            boolean stepsStarted = false;
+
+            for (final JsonNode testStep : testCase.path("testSteps")) {
+                final String testStepId = testStep.path("id").asText();
+
+                if (testStep.has("hookId")) {
+                    if (stepsStarted) {
+                        afterHooks.add(testStep);
+                    } else {
+                        scenarioBuilder.addBeforeAction(b -> buildAroundAction(runningTestCase.results.get(testStepId), b));
+                    }
+                    continue;
+                }
+
+                stepsStarted = true;
+                final JsonNode pickleStep = pickleSteps.get(testStep.path("pickleStepId").asText());
+                if (pickleStep == null) {
+                    continue;
+                }
+
+                final String stepNodeId = pickleStep.path("astNodeIds").path(0).asText();
+                if (document.backgroundStepIds.contains(stepNodeId)) {
+                    hasBackgroundSteps = true;
+                    continue;
+                }
+                scenarioBuilder.addStep(b -> buildStep(document, pickleStep, testStep, runningTestCase, b));
+            }
+
+            for (final JsonNode afterHook : afterHooks) {
+                final String testStepId = afterHook.path("id").asText();
+                scenarioBuilder.addAfterAction(b -> buildAroundAction(runningTestCase.results.get(testStepId), b));
+            }
+
+            if (hasBackgroundSteps) {
+                scenarioBuilder.withBackground(b -> buildBackground(document, pickleSteps, testCase, runningTestCase, b));
+            }
+
+            return scenarioBuilder;
+        }
+
+        private void buildBackground(
+            final Document document,
+            final Map<String, JsonNode> pickleSteps,
+            final JsonNode testCase,
+            final RunningTestCase runningTestCase,
+            final BackgroundBuilder backgroundBuilder
+        ) {
+            backgroundBuilder.withInfo(new BasicInfo(
+                interner.trim(document.background.path("keyword").asText()),
+                ConversionUtils.trimString(document.background.path("name").asText())
+            ));
+
+            for (final JsonNode testStep : testCase.path("testSteps")) {
+                final JsonNode pickleStep = pickleSteps.get(testStep.path("pickleStepId").asText());
+                if (pickleStep != null && document.backgroundStepIds.contains(pickleStep.path("astNodeIds").path(0).asText())) {
+                    backgroundBuilder.addStep(b -> buildStep(document, pickleStep, testStep, runningTestCase, b));
+                }
+            }
+        }
+
+        private void buildStep(
+            final Document document,
+            final JsonNode pickleStep,
+            final JsonNode testStep,
+            final RunningTestCase runningTestCase,
+            final StepBuilder stepBuilder
+        ) {
+            final String testStepId = testStep.path("id").asText();
+
+            final List<Argument> arguments = new ArrayList<>();
+            for (final JsonNode stepMatchArgument : testStep.path("stepMatchArgumentsLists").path(0).path("stepMatchArguments")) {
+                final JsonNode argumentGroup = stepMatchArgument.path("group");
+                if (!StringUtils.isEmpty(argumentGroup.path("value").asText())) {
+                    arguments.add(new Argument(argumentGroup.path("start").asInt(), argumentGroup.path("value").asText()));
+                }
+            }
+
+            final BasicInfo stepInfo = new BasicInfo(
+                interner.trim(document.stepKeywords.get(pickleStep.path("astNodeIds").path(0).asText())),
+                ConversionUtils.trimString(pickleStep.path("text").asText()),
+                arguments
+            );
+
+            final JsonNode stepDefinitionIds = testStep.path("stepDefinitionIds");
+            final Location definitionLocation = stepDefinitionIds.size() == 1
+                ? stepDefinitionLocations.get(stepDefinitionIds.get(0).asText())
+                : null;
+
+            final List<String> outputs = runningTestCase.outputs.get(testStepId);
+            final String output = outputs == null ? null : StringUtils.trimToNull(String.join("\n", outputs));
+
+            final JsonNode result = runningTestCase.results.get(testStepId);
+
+            stepBuilder
+                .withInfo(stepInfo)
+                .withDefinitionLocation(definitionLocation)
+                .withTable(convertTable(pickleStep.path("argument").path("dataTable")))
+                .withAttachments(runningTestCase.attachments.getOrDefault(testStepId, new ArrayList<>()));
+            stepTextSpiller.setOutput(stepBuilder, output);
+
+            if (result != null) {
+                stepBuilder
+                    .withStatus(convertStepStatus(result.path("status").asText()))
+                    .withDuration(convertDuration(result.path("duration")));
+                stepTextSpiller.setErrorMessage(stepBuilder, result.hasNonNull("message") ? result.get("message").asText() : null);
+            }
+        }
+
+        private void buildAroundAction(final JsonNode result, final AroundActionBuilder aroundActionBuilder) {
+            if (result != null) {
+                aroundActionBuilder
+                    .withStatus(convertStepStatus(result.path("status").asText()))
+                    .withDuration(convertDuration(result.path("duration")))
+                    .withErrorMessage(result.hasNonNull("message") ? result.get("message").asText() : null);
+            }
+        }
+
+        private RunningTestCase getRunningTestCase(final String testCaseStartedId) {
+            final RunningTestCase runningTestCase = runningTestCases.get(testCaseStartedId);
+            if (runningTestCase == null) {
+                throw new IllegalStateException("Unknown started test case: " + testCaseStartedId);
+            }
+            return runningTestCase;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+
+        T read(JsonParser parser) throws IOException;
+
+    }
+
+    /**
+     * Gherkin document of a feature, indexed by AST node ID.
+     */
+    private static class Document {
+
+        private final Feature feature;
+
+        private final String featureId;
+
+        private final Map<String, String> scenarioIds = new HashMap<>();
+
+        private final Map<String, String> scenarioKeywords = new HashMap<>();
+
+        private final Map<String, String> stepKeywords = new HashMap<>();
+
+        private final Set<String> backgroundStepIds = new HashSet<>();
+
+        private JsonNode background;
+
+        Document(final Feature feature, final String featureId) {
+            this.feature = feature;
+            this.featureId = featureId;
+        }
+
+    }
+
+    /**
+     * Results, outputs and attachments of a started test case, indexed by test step ID.
+     */
+    private static class RunningTestCase {
+
+        private final String testCaseId;
+
+        private final Map<String, JsonNode> results = new HashMap<>();
+
+        private final Map<String, List<String>> outputs = new HashMap<>();
+
+        private final Map<String, List<Attachment>> attachments = new HashMap<>();
+
+        RunningTestCase(final String testCaseId) {
+            this.testCaseId = testCaseId;
+        }
+
+    }
+
+    private static Set<String> convertTags(final JsonNode tags, final ConversionInterner interner) {
+        final Set<String> tagNames = new LinkedHashSet<>();
+        for (final JsonNode tag : tags) {
+            tagNames.add(interner.tag(tag.path("name").asText()));
+        }
+        return tagNames;
+    }
+
+    private static String[][] convertTable(final JsonNode dataTable) {
+        final JsonNode rows = dataTable.path("rows");
+        if (rows.size() == 0) {
+            return null;
+        }
+
+        final String[][] table = new String[rows.size()][];
+        for (int i = 0; i < rows.size(); i++) {
+            final JsonNode cells = rows.get(i).path("cells");
+            table[i] = new String[cells.size()];
+            for (int j = 0; j < cells.size(); j++) {
+                table[i][j] = cells.get(j).path("value").asText();
+            }
+        }
+        return table;
+    }
+
+    private static StepStatus convertStepStatus(final String source) {
+        switch (source) {
+            case "PASSED":
+                return StepStatus.PASSED;
+            case "FAILED":
+            case "AMBIGUOUS":
+                return StepStatus.FAILED;
+            case "SKIPPED":
+                return StepStatus.SKIPPED;
+            case "PENDING":
+                return StepStatus.PENDING;
+            case "UNDEFINED":
+                return StepStatus.UNDEFINED;
+            default:
+                return StepStatus.NOT_RUN;
+        }
+    }
+
+    /**
+     * Convert a message duration, made of seconds and nanoseconds, to nanoseconds.
+     */
+    private static Long convertDuration(final JsonNode duration) {
+        if (duration.isMissingNode() || duration.isNull()) {
+            return null;
+        }
+        return TimeUnit.SECONDS.toNanos(duration.path("seconds").asLong()) + duration.path("nanos").asLong();
+    }
+
+    /**
+     * Compute an ID from a name, like cucumber-jvm does for its JSON reports.
+     */
+    private static String convertToId(final String name) {
+        return ID_SEPARATOR_PATTERN.matcher(name).replaceAll("-").toLowerCase();
+    }
+
+}
@@ -0,0 +1,67 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Split a NDJSON stream into lines, without decoding them: each line is copied as bytes to an output stream, so long
+ * lines can be spooled to a temporary file instead of being held as strings.
+ */
+class NdjsonLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream stream;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    NdjsonLineReader(final InputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Copy the next line, without its line feed.
+     *
+     * @param line Output stream receiving the line
+     * @return false if the end of the stream is reached, and there is no line left
+     * @throws IOException Can't read the stream or write the line
+     */
+    boolean nextLine(final OutputStream line) throws IOException {
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = stream.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return read;
+                }
+            }
+            read = true;
+
+            int end = position;
+            while (end < limit && buffer[end] != '\n') {
+                end++;
+            }
+            line.write(buffer, position, end - position);
+
+            if (end < limit) {
+                position = end + 1;
+                return true;
+            }
+            position = limit;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+}
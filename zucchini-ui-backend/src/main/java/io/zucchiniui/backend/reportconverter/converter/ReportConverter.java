@@ -37,19 +37,26 @@ public class ReportConverter {
         this.reportScenarioConverter = reportScenarioConverter;
     }
 
+    /**
+     * Convert a report feature and its scenarii.
+     *
+     * @param interner Dictionary of repeated values, shared by all features of the same import
+     */
     public ConversionResult convert(
         final String testRunId,
         final Optional<String> group,
-        final ReportFeature reportFeature
+        final ReportFeature reportFeature,
+        final ConversionInterner interner
     ) {
-        final Feature feature = reportFeatureConverter.convert(testRunId, group, reportFeature);
-        final List<Scenario> scenarii = convertFeatureElementsToScenarii(feature, reportFeature.getElements());
+        final Feature feature = reportFeatureConverter.convert(testRunId, group, reportFeature, interner);
+        final List<Scenario> scenarii = convertFeatureElementsToScenarii(feature, reportFeature.getElements(), interner);
         return new ConversionResult(feature, scenarii);
     }
 
     private List<Scenario> convertFeatureElementsToScenarii(
         final Feature feature,
-        final List<ReportFeatureElement> reportFeatureElements
+        final List<ReportFeatureElement> reportFeatureElements,
+        final ConversionInterner interner
     ) {
 
         final List<ScenarioBuilder> scenarioBuilders = new ArrayList<>(reportFeatureElements.size());
@@ -61,7 +68,8 @@ public class ReportConverter {
 
                 final ScenarioBuilder scenarioBuilder = reportScenarioConverter.createScenarioBuilder(
                     feature,
-                    (ReportScenario) reportFeatureElement
+                    (ReportScenario) reportFeatureElement,
+                    interner
                 );
 
                 if (backgroundBuilderConsumer != null) {
@@ -71,7 +79,7 @@ public class ReportConverter {
                 scenarioBuilders.add(scenarioBuilder);
 
             } else if (reportFeatureElement instanceof ReportBackground) {
-                backgroundBuilderConsumer = reportScenarioConverter.createBackgroundBuilderConsumer((ReportBackground) reportFeatureElement);
+                backgroundBuilderConsumer = reportScenarioConverter.createBackgroundBuilderConsumer((ReportBackground) reportFeatureElement, interner);
             } else if (reportFeatureElement instanceof ReportScenarioOutline) {
                 LOGGER.debug("Ignoring scenario outline: {}", reportFeatureElement);
             } else {
@@ -21,11 +21,11 @@ class ReportFeatureConverter {
 
     private static final Pattern LANGUAGE_PATTERN = Pattern.compile("#\\s*language:\\s*(\\S+)\\s*");
 
-    public Feature convert(final String testRunId, final Optional<String> group, final ReportFeature reportFeature) {
+    public Feature convert(final String testRunId, final Optional<String> group, final ReportFeature reportFeature, final ConversionInterner interner) {
         final String featureKey = ConversionUtils.stringToSha1Sum(reportFeature.getId());
 
         final BasicInfo info = new BasicInfo(
-            ConversionUtils.trimString(reportFeature.getKeyword()),
+            interner.trim(reportFeature.getKeyword()),
             ConversionUtils.trimString(reportFeature.getName())
         );
 
@@ -34,14 +34,14 @@ class ReportFeatureConverter {
             reportFeature.getLine()
         );
 
-        final String language = getLanguage(reportFeature);
+        final String language = interner.trim(getLanguage(reportFeature));
         final Feature feature = new Feature(featureKey, testRunId, info, location, language);
         feature.setDescription(reportFeature.getDescription());
         group.ifPresent(feature::setGroup);
 
         final Set<String> tags = reportFeature.getTags().stream()
             .map(Tag::getName)
-            .map(ConversionUtils::stripAtSign)
+            .map(interner::tag)
             .collect(Collectors.toSet());
 
         feature.setTags(tags);
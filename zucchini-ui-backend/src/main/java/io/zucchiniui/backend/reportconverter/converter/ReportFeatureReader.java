@@ -0,0 +1,78 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.zucchiniui.backend.reportconverter.report.ReportFeature;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for Cucumber JSON reports.
+ * <p>
+ * Features are read one at a time from the top-level array, so only the feature being processed
+ * is kept in memory, instead of the whole report.
+ */
+@Component
+public class ReportFeatureReader {
+
+    private final ObjectReader featureReader;
+
+    public ReportFeatureReader(@Qualifier("reportObjectMapper") final ObjectMapper objectMapper) {
+        featureReader = objectMapper.readerFor(ReportFeature.class);
+    }
+
+    /**
+     * Read a Cucumber report and give each feature to a consumer, as soon as it has been parsed.
+     *
+     * @param featureStream   Stream containing the Cucumber report, closed when read
+     * @param featureConsumer Consumer for each parsed feature
+     * @throws IOException Can't read or parse the report
+     */
+    public void read(final InputStream featureStream, final Consumer<ReportFeature> featureConsumer) throws IOException {
+        try (final JsonParser parser = featureReader.getFactory().createParser(featureStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of features");
+            }
+            readArray(parser, featureConsumer);
+        }
+    }
+
+    /**
+     * Read a single feature, or an array of features, and give each feature to a consumer, as soon as it has been parsed.
+     *
+     * @param featureStream   Stream containing a feature or an array of features, closed when read
+     * @param featureConsumer Consumer for each parsed feature
+     * @throws IOException Can't read or parse the features
+     */
+    public void readOneOrMany(final InputStream featureStream, final Consumer<ReportFeature> featureConsumer) throws IOException {
+        try (final JsonParser parser = featureReader.getFactory().createParser(featureStream)) {
+            final JsonToken firstToken = parser.nextToken();
+            if (firstToken == JsonToken.START_OBJECT) {
+                featureConsumer.accept(featureReader.readValue(parser));
+            } else if (firstToken == JsonToken.START_ARRAY) {
+                readArray(parser, featureConsumer);
+            } else {
+                throw new JsonParseException(parser, "Expected a feature or an array of features");
+            }
+        }
+    }
+
+    private void readArray(final JsonParser parser, final Consumer<ReportFeature> featureConsumer) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            final ReportFeature reportFeature = featureReader.readValue(parser);
+            featureConsumer.accept(reportFeature);
+        }
+
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Expected a feature object, got " + parser.currentToken());
+        }
+    }
+
+}
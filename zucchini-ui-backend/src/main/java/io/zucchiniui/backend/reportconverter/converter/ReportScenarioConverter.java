@@ -2,7 +2,7 @@ package io.zucchiniui.backend.reportconverter.converter;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.io.BaseEncoding;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
 import io.zucchiniui.backend.feature.domain.Feature;
 import io.zucchiniui.backend.reportconverter.report.*;
 import io.zucchiniui.backend.scenario.domain.*;
@@ -23,16 +23,25 @@ class ReportScenarioConverter {
 
     private static final Joiner LINE_JOINER = Joiner.on('\n');
 
-    public ScenarioBuilder createScenarioBuilder(final Feature parentFeature, final ReportScenario reportScenario) {
+    private final AttachmentStore attachmentStore;
+
+    private final StepTextSpiller stepTextSpiller;
+
+    public ReportScenarioConverter(final AttachmentStore attachmentStore, final StepTextSpiller stepTextSpiller) {
+        this.attachmentStore = attachmentStore;
+        this.stepTextSpiller = stepTextSpiller;
+    }
+
+    public ScenarioBuilder createScenarioBuilder(final Feature parentFeature, final ReportScenario reportScenario, final ConversionInterner interner) {
 
         final BasicInfo scenarioInfo = new BasicInfo(
-            ConversionUtils.trimString(reportScenario.getKeyword()),
+            interner.trim(reportScenario.getKeyword()),
             ConversionUtils.trimString(reportScenario.getName())
         );
 
         final Set<String> scenarioTags = reportScenario.getTags().stream()
             .map(Tag::getName)
-            .map(ConversionUtils::stripAtSign)
+            .map(interner::tag)
             .collect(Collectors.toSet());
 
         final String comment = convertComment(reportScenario.getComments());
@@ -48,7 +57,7 @@ class ReportScenarioConverter {
             .withComment(comment);
 
         for (final ReportStep reportStep : reportScenario.getSteps()) {
-            scenarioBuilder.addStep(b -> buildStep(reportStep, b));
+            scenarioBuilder.addStep(b -> buildStep(reportStep, b, interner));
         }
 
         for (final ReportAroundAction reportAroundAction : reportScenario.getBeforeActions()) {
@@ -62,23 +71,23 @@ class ReportScenarioConverter {
         return scenarioBuilder;
     }
 
-    public Consumer<BackgroundBuilder> createBackgroundBuilderConsumer(final ReportBackground reportBackground) {
+    public Consumer<BackgroundBuilder> createBackgroundBuilderConsumer(final ReportBackground reportBackground, final ConversionInterner interner) {
         return backgroundBuilder -> {
 
             final BasicInfo backgroundInfo = new BasicInfo(
-                ConversionUtils.trimString(reportBackground.getKeyword()),
+                interner.trim(reportBackground.getKeyword()),
                 ConversionUtils.trimString(reportBackground.getName())
             );
 
             backgroundBuilder.withInfo(backgroundInfo);
 
             for (final ReportStep reportStep : reportBackground.getSteps()) {
-                backgroundBuilder.addStep(b -> buildStep(reportStep, b));
+                backgroundBuilder.addStep(b -> buildStep(reportStep, b, interner));
             }
         };
     }
 
-    private static void buildStep(final ReportStep reportStep, final StepBuilder stepBuilder) {
+    private void buildStep(final ReportStep reportStep, final StepBuilder stepBuilder, final ConversionInterner interner) {
 
         final List<Argument> arguments = reportStep.getMatch().getArguments().stream()
             .filter(a -> !Strings.isNullOrEmpty(a.getValue()))
@@ -86,7 +95,7 @@ class ReportScenarioConverter {
             .collect(Collectors.toList());
 
         final BasicInfo stepInfo = new BasicInfo(
-            ConversionUtils.trimString(reportStep.getKeyword()),
+            interner.trim(reportStep.getKeyword()),
             ConversionUtils.trimString(reportStep.getName()),
             arguments
         );
@@ -104,20 +113,24 @@ class ReportScenarioConverter {
         }
 
         stepBuilder
-            .withErrorMessage(reportStep.getResult().getErrorMessage())
             .withStatus(convertStepStatus(reportStep.getResult().getStatus()))
+            .withDuration(reportStep.getResult().getDuration())
             .withInfo(stepInfo)
-            .withDefinitionLocation(parseLocation(reportStep.getMatch().getLocation()))
+            .withDefinitionLocation(interner.location(reportStep.getMatch().getLocation(), ReportScenarioConverter::parseLocation))
             .withComment(stepComment)
-            .withOutput(output)
             .withTable(table)
             .withAttachments(attachments);
+
+        // Long texts are moved to the attachment store, so they don't bloat scenarii
+        stepTextSpiller.setErrorMessage(stepBuilder, reportStep.getResult().getErrorMessage());
+        stepTextSpiller.setOutput(stepBuilder, output);
     }
 
     private static void buildAroundAction(final ReportAroundAction reportAroundAction, final AroundActionBuilder aroundActionBuilder) {
         aroundActionBuilder
             .withErrorMessage(reportAroundAction.getResult().getErrorMessage())
-            .withStatus(convertStepStatus(reportAroundAction.getResult().getStatus()));
+            .withStatus(convertStepStatus(reportAroundAction.getResult().getStatus()))
+            .withDuration(reportAroundAction.getResult().getDuration());
     }
 
     private static String[][] convertTable(final List<TableRow> source) {
@@ -159,12 +172,19 @@ class ReportScenarioConverter {
         return StepStatus.valueOf(source.toUpperCase());
     }
 
-    private static List<Attachment> convertEmbeddings(final List<ReportAttachment> source) {
+    private List<Attachment> convertEmbeddings(final List<ReportAttachment> source) {
         return source.stream()
+            .filter(reportAttachment -> reportAttachment.getData() != null)
             .map(reportAttachment -> {
-                final byte[] data = BaseEncoding.base64().decode(reportAttachment.getData());
-                final String mimeType = reportAttachment.getMimeType();
-                return new Attachment(data, mimeType);
+                // Content has been decoded while parsing the report: it is moved to the attachment store,
+                // scenario only references it
+                final ReportAttachmentData data = reportAttachment.getData();
+                try {
+                    attachmentStore.store(data.getSha256(), data.asByteSource());
+                } finally {
+                    data.release();
+                }
+                return new Attachment(data.getSha256(), data.getSize(), reportAttachment.getMimeType(), reportAttachment.getLabel());
             })
             .collect(Collectors.toList());
     }
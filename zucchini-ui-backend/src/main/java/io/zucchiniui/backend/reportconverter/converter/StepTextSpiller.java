@@ -0,0 +1,71 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.ImportConfiguration;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import io.zucchiniui.backend.scenario.domain.StepBuilder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Set step outputs and error messages, moving texts too long to be stored in scenarii to the attachment store.
+ * <p>
+ * Scenarii only contain a preview of these texts, and the hash of the full text in the attachment store.
+ */
+@Component
+class StepTextSpiller {
+
+    private final AttachmentStore attachmentStore;
+
+    private final int maxInlineTextLength;
+
+    private final int textPreviewLength;
+
+    public StepTextSpiller(final AttachmentStore attachmentStore, final BackendConfiguration configuration) {
+        this.attachmentStore = attachmentStore;
+
+        final ImportConfiguration importConfiguration = configuration.getImportConfiguration();
+        maxInlineTextLength = importConfiguration.getMaxInlineTextLength();
+        textPreviewLength = Math.min(importConfiguration.getTextPreviewLength(), maxInlineTextLength);
+    }
+
+    public void setOutput(final StepBuilder stepBuilder, final String output) {
+        if (isInline(output)) {
+            stepBuilder.withOutput(output);
+        } else {
+            stepBuilder
+                .withOutput(preview(output))
+                .withOutputHash(store(output));
+        }
+    }
+
+    public void setErrorMessage(final StepBuilder stepBuilder, final String errorMessage) {
+        if (isInline(errorMessage)) {
+            stepBuilder.withErrorMessage(errorMessage);
+        } else {
+            stepBuilder
+                .withErrorMessage(preview(errorMessage))
+                .withErrorMessageHash(store(errorMessage));
+        }
+    }
+
+    private boolean isInline(final String text) {
+        return text == null || text.length() <= maxInlineTextLength;
+    }
+
+    private String preview(final String text) {
+        int end = textPreviewLength;
+
+        // Don't split a surrogate pair
+        if (end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private String store(final String text) {
+        return attachmentStore.store(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
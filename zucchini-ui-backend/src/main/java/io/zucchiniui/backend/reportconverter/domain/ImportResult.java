@@ -0,0 +1,73 @@
+package io.zucchiniui.backend.reportconverter.domain;
+
+/**
+ * Result of a report import. Features can be recorded by several threads.
+ */
+public class ImportResult {
+
+    private int featureCount;
+
+    private int insertedScenarioCount;
+
+    private int updatedScenarioCount;
+
+    private boolean skipped;
+
+    /**
+     * Create the result of an import that has been skipped, because the same report has already been imported.
+     *
+     * @return Skipped import result
+     */
+    public static ImportResult skipped() {
+        final ImportResult importResult = new ImportResult();
+        importResult.skipped = true;
+        return importResult;
+    }
+
+    /**
+     * Record an imported feature.
+     *
+     * @param insertedScenarioCount Number of scenarii inserted for this feature
+     * @param updatedScenarioCount  Number of existing scenarii updated for this feature
+     */
+    public synchronized void addFeature(final int insertedScenarioCount, final int updatedScenarioCount) {
+        featureCount++;
+        this.insertedScenarioCount += insertedScenarioCount;
+        this.updatedScenarioCount += updatedScenarioCount;
+    }
+
+    /**
+     * Record an imported feature, whose scenarii are recorded separately.
+     */
+    public synchronized void addFeature() {
+        featureCount++;
+    }
+
+    /**
+     * Record scenarii imported for a feature that has already been recorded.
+     *
+     * @param insertedScenarioCount Number of scenarii inserted
+     * @param updatedScenarioCount  Number of existing scenarii updated
+     */
+    public synchronized void addScenarii(final int insertedScenarioCount, final int updatedScenarioCount) {
+        this.insertedScenarioCount += insertedScenarioCount;
+        this.updatedScenarioCount += updatedScenarioCount;
+    }
+
+    public synchronized int getFeatureCount() {
+        return featureCount;
+    }
+
+    public synchronized int getInsertedScenarioCount() {
+        return insertedScenarioCount;
+    }
+
+    public synchronized int getUpdatedScenarioCount() {
+        return updatedScenarioCount;
+    }
+
+    public synchronized boolean isSkipped() {
+        return skipped;
+    }
+
+}
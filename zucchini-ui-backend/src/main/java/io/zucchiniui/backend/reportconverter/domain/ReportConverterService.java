@@ -1,10 +1,76 @@
 package io.zucchiniui.backend.reportconverter.domain;
 
+import com.google.common.io.ByteSource;
+
 import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ReportConverterService {
 
-    void convertAndSaveFeatures(String testRunId, InputStream featureStream, Optional<String> group, boolean dryRun, boolean onlyNewScenarii, boolean mergeOnlyNewPassedScenarii);
+    ImportResult convertAndSaveFeatures(String testRunId, InputStream featureStream, Optional<String> group, boolean dryRun, boolean onlyNewScenarii, boolean mergeOnlyNewPassedScenarii);
+
+    /**
+     * Convert and save features, and notify the progress of the import after each saved feature.
+     * <p>
+     * Features are saved in parallel: the listener is called from worker threads, but by one thread at a time.
+     *
+     * @param progressListener Listener called with the current import result after each saved feature
+     */
+    ImportResult convertAndSaveFeatures(
+        String testRunId,
+        InputStream featureStream,
+        Optional<String> group,
+        boolean dryRun,
+        boolean onlyNewScenarii,
+        boolean mergeOnlyNewPassedScenarii,
+        Consumer<ImportResult> progressListener
+    );
+
+    /**
+     * Convert and save features appended to a test run, for example by a runner that sends features as soon as they are run.
+     * Each feature is merged with the features and scenarii already saved in the test run.
+     *
+     * @param featureStream Stream containing a single feature, or an array of features
+     */
+    ImportResult appendFeatures(
+        String testRunId,
+        InputStream featureStream,
+        Optional<String> group,
+        boolean onlyNewScenarii,
+        boolean mergeOnlyNewPassedScenarii
+    );
+
+    /**
+     * Convert and save a Cucumber Messages report. Scenarii are saved as soon as their test case is finished in the
+     * report, and the status of each feature is computed once all scenarii have been saved.
+     *
+     * @param messageStream Stream containing the NDJSON envelopes of the report
+     */
+    ImportResult convertAndSaveMessages(
+        String testRunId,
+        InputStream messageStream,
+        Optional<String> group,
+        boolean dryRun,
+        boolean onlyNewScenarii,
+        boolean mergeOnlyNewPassedScenarii
+    );
+
+    /**
+     * Convert and save several Cucumber reports of the same test run, like the reports of a sharded CI job.
+     * Reports are read one after the other, and their features are saved by the same pipeline. Status of each feature,
+     * and tags of its scenarii, are updated once, when all reports have been saved.
+     *
+     * @param reports Cucumber reports, each containing an array of features
+     */
+    ImportResult convertAndSaveReports(
+        String testRunId,
+        List<ByteSource> reports,
+        Optional<String> group,
+        boolean dryRun,
+        boolean onlyNewScenarii,
+        boolean mergeOnlyNewPassedScenarii
+    );
 
 }
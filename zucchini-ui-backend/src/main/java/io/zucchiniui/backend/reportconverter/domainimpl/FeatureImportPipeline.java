@@ -0,0 +1,115 @@
+package io.zucchiniui.backend.reportconverter.domainimpl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Import features of a report in parallel.
+ * <p>
+ * Features are submitted by the thread that parses the report. Imports of features with the same key are run one after
+ * the other, so that two parts of the same feature never race when they are merged. The number of features waiting or
+ * being imported is bounded: parsing is suspended when workers can't keep up.
+ * <p>
+ * This class is not thread-safe: features must be submitted and awaited by a single thread.
+ */
+class FeatureImportPipeline {
+
+    private final Executor executor;
+
+    private final Semaphore pendingFeatures;
+
+    private final Map<String, CompletableFuture<Void>> lastImportByKey = new HashMap<>();
+
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private volatile boolean aborted;
+
+    FeatureImportPipeline(final Executor executor, final int maxPendingFeatures) {
+        this.executor = executor;
+        pendingFeatures = new Semaphore(maxPendingFeatures);
+    }
+
+    /**
+     * Submit a feature import. Wait if too many features are already pending.
+     *
+     * @param key           Feature key: imports with the same key are run sequentially, in submission order
+     * @param featureImport Feature import
+     * @throws RuntimeException A previous feature import has failed
+     */
+    public void submit(final String key, final Runnable featureImport) {
+        throwIfFailed();
+
+        try {
+            pendingFeatures.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for pending features", e);
+        }
+
+        final Runnable task = () -> {
+            try {
+                if (!aborted && failure.get() == null) {
+                    featureImport.run();
+                }
+            } catch (final RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                pendingFeatures.release();
+            }
+        };
+
+        final CompletableFuture<Void> previousImport = lastImportByKey.get(key);
+        final CompletableFuture<Void> nextImport;
+        try {
+            if (previousImport == null || previousImport.isDone()) {
+                nextImport = CompletableFuture.runAsync(task, executor);
+            } else {
+                nextImport = previousImport.thenRunAsync(task, executor);
+            }
+        } catch (final RuntimeException e) {
+            pendingFeatures.release();
+            throw e;
+        }
+        lastImportByKey.put(key, nextImport);
+    }
+
+    /**
+     * Wait for all submitted feature imports.
+     *
+     * @throws RuntimeException First failure of a feature import
+     */
+    public void await() {
+        awaitAll();
+        throwIfFailed();
+    }
+
+    /**
+     * Skip features that are not started yet, and wait for running feature imports.
+     */
+    public void abort() {
+        aborted = true;
+        awaitAll();
+    }
+
+    private void awaitAll() {
+        try {
+            CompletableFuture.allOf(lastImportByKey.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException e) {
+            // Task failures are recorded by the tasks, only scheduling failures end up here
+            failure.compareAndSet(null, e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e);
+        }
+    }
+
+    private void throwIfFailed() {
+        final RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+}
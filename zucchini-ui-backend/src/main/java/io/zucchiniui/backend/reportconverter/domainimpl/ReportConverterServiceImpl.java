@@ -1,33 +1,60 @@
 package io.zucchiniui.backend.reportconverter.domainimpl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
+import com.google.common.io.ByteSource;
+import io.zucchiniui.backend.BackendConfiguration;
 import io.zucchiniui.backend.feature.domain.Feature;
 import io.zucchiniui.backend.feature.domain.FeatureRepository;
 import io.zucchiniui.backend.feature.domain.FeatureService;
+import io.zucchiniui.backend.reportconverter.converter.ConversionInterner;
 import io.zucchiniui.backend.reportconverter.converter.ConversionResult;
+import io.zucchiniui.backend.reportconverter.converter.MessagesReportConverter;
 import io.zucchiniui.backend.reportconverter.converter.ReportConverter;
+import io.zucchiniui.backend.reportconverter.converter.ReportFeatureReader;
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
 import io.zucchiniui.backend.reportconverter.domain.ReportConverterService;
 import io.zucchiniui.backend.reportconverter.report.ReportFeature;
 import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.ScenarioMergeResult;
 import io.zucchiniui.backend.scenario.domain.ScenarioRepository;
 import io.zucchiniui.backend.scenario.domain.ScenarioService;
 import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 
 @Component
 class ReportConverterServiceImpl implements ReportConverterService {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(ReportConverterServiceImpl.class);
+    /**
+     * Number of features that can wait for a worker thread, per worker thread.
+     */
+    private static final int PENDING_FEATURES_PER_THREAD = 2;
+
+    /**
+     * Max number of scenarii of a messages report merged and saved together.
+     */
+    private static final int SCENARII_PER_BATCH = 100;
+
+    /**
+     * Max number of scenarii of a messages report waiting for their batch, all features included.
+     */
+    private static final int MAX_PENDING_SCENARII = 2_000;
 
     private final FeatureRepository featureRepository;
 
@@ -39,43 +66,274 @@ class ReportConverterServiceImpl implements ReportConverterService {
 
     private final ReportConverter reportConverter;
 
-    private final ObjectMapper objectMapper;
+    private final ReportFeatureReader reportFeatureReader;
+
+    private final MessagesReportConverter messagesReportConverter;
+
+    private final ExecutorService featureImportExecutor;
+
+    private final int maxPendingFeatures;
 
     public ReportConverterServiceImpl(
         final FeatureRepository featureRepository,
         final FeatureService featureService,
         final ScenarioRepository scenarioRepository,
         final ScenarioService scenarioService, final ReportConverter reportConverter,
-        @Qualifier("reportObjectMapper") final ObjectMapper objectMapper
+        final ReportFeatureReader reportFeatureReader,
+        final MessagesReportConverter messagesReportConverter,
+        @Qualifier("featureImportExecutor") final ExecutorService featureImportExecutor,
+        final BackendConfiguration configuration
     ) {
         this.featureRepository = featureRepository;
         this.featureService = featureService;
         this.scenarioRepository = scenarioRepository;
         this.scenarioService = scenarioService;
         this.reportConverter = reportConverter;
-        this.objectMapper = objectMapper;
+        this.reportFeatureReader = reportFeatureReader;
+        this.messagesReportConverter = messagesReportConverter;
+        this.featureImportExecutor = featureImportExecutor;
+        maxPendingFeatures = configuration.getImportConfiguration().getParallelism() * PENDING_FEATURES_PER_THREAD;
     }
 
     @Override
-    public void convertAndSaveFeatures(
+    public ImportResult convertAndSaveFeatures(
         final String testRunId,
         final InputStream featureStream,
         final Optional<String> group,
         final boolean dryRun,
         final boolean onlyNewScenarii,
         final boolean mergeOnlyNewPassedScenarii) {
-        final CollectionType featureListJavaType = objectMapper.getTypeFactory().constructCollectionType(List.class, ReportFeature.class);
+        return convertAndSaveFeatures(testRunId, featureStream, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii, importResult -> {
+        });
+    }
+
+    @Override
+    public ImportResult convertAndSaveFeatures(
+        final String testRunId,
+        final InputStream featureStream,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii,
+        final Consumer<ImportResult> progressListener
+    ) {
+        return importFeatures(
+            reportFeatureReader::read,
+            testRunId,
+            featureStream,
+            group,
+            dryRun,
+            onlyNewScenarii,
+            mergeOnlyNewPassedScenarii,
+            progressListener
+        );
+    }
+
+    @Override
+    public ImportResult appendFeatures(
+        final String testRunId,
+        final InputStream featureStream,
+        final Optional<String> group,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii
+    ) {
+        return importFeatures(
+            reportFeatureReader::readOneOrMany,
+            testRunId,
+            featureStream,
+            group,
+            false,
+            onlyNewScenarii,
+            mergeOnlyNewPassedScenarii,
+            importResult -> {
+            }
+        );
+    }
+
+    @Override
+    public ImportResult convertAndSaveMessages(
+        final String testRunId,
+        final InputStream messageStream,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii
+    ) {
+        final ImportResult importResult = new ImportResult();
+
+        // Features saved during this import, by feature key. Batches of scenarii of a feature are saved one after the
+        // other by the pipeline, so a feature is merged and saved once, when its first batch is saved.
+        final Map<String, Feature> savedFeatures = new ConcurrentHashMap<>();
+
+        // Tags of saved features before this import, by feature key
+        final Map<String, Set<String>> previousTags = new ConcurrentHashMap<>();
+
+        final FeatureImportPipeline pipeline = new FeatureImportPipeline(featureImportExecutor, maxPendingFeatures);
+
+        // Scenarii are merged and saved in batches, not one by one
+        final ScenarioBatches scenarioBatches = new ScenarioBatches((reportFeature, scenarii) -> {
+            pipeline.submit(reportFeature.getFeatureKey(), () -> {
+                Feature feature = savedFeatures.get(reportFeature.getFeatureKey());
+                if (feature == null) {
+                    feature = featureService.tryToMergeWithExistingFeature(reportFeature);
+                    featureRepository.save(feature);
+                    savedFeatures.put(feature.getFeatureKey(), feature);
+                    previousTags.put(feature.getFeatureKey(), feature.getTagsBeforeMerge());
+                    importResult.addFeature();
+                }
+                convertAndSaveScenarii(importResult, feature, scenarii, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+            });
+        });
         try {
-            final List<ReportFeature> reportFeatures = objectMapper.readValue(featureStream, featureListJavaType);
-            for (final ReportFeature reportFeature : reportFeatures) {
-                convertAndSaveFeature(testRunId, reportFeature, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+            messagesReportConverter.read(testRunId, group, messageStream, (reportFeature, scenarioBuilder) -> {
+                scenarioBatches.add(reportFeature, scenarioBuilder.build());
+            });
+            scenarioBatches.flush();
+        } catch (final IOException e) {
+            pipeline.abort();
+            throw new IllegalStateException("Can't parse report message stream", e);
+        } catch (final RuntimeException e) {
+            pipeline.abort();
+            throw e;
+        }
+        pipeline.await();
+
+        updateSavedFeatures(savedFeatures.values(), previousTags);
+
+        return importResult;
+    }
+
+    @Override
+    public ImportResult convertAndSaveReports(
+        final String testRunId,
+        final List<ByteSource> reports,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii
+    ) {
+        final ImportResult importResult = new ImportResult();
+        final ConversionInterner interner = new ConversionInterner();
+
+        // Features saved during this import, by feature key. A feature may be split between several reports:
+        // its parts are saved one after the other by the pipeline.
+        final Map<String, Feature> savedFeatures = new ConcurrentHashMap<>();
+
+        // Tags of saved features before this import, by feature key: the first part of a feature is merged with
+        // the feature found before this import
+        final Map<String, Set<String>> previousTags = new ConcurrentHashMap<>();
+
+        final FeatureImportPipeline pipeline = new FeatureImportPipeline(featureImportExecutor, maxPendingFeatures);
+        try {
+            for (final ByteSource report : reports) {
+                try (final InputStream featureStream = report.openBufferedStream()) {
+                    reportFeatureReader.read(featureStream, reportFeature -> {
+                        pipeline.submit(reportFeature.getId(), () -> {
+                            final ConversionResult conversionResult = reportConverter.convert(testRunId, group, reportFeature, interner);
+                            if (dryRun) {
+                                markScenariiAsNotRun(conversionResult.getScenarii());
+                            }
+
+                            final Feature feature = featureService.tryToMergeWithExistingFeature(conversionResult.getFeature());
+                            conversionResult.getScenarii().forEach(s -> s.setFeatureId(feature.getId()));
+
+                            final ScenarioMergeResult mergeResult = scenarioService.mergeWithExistingScenarii(
+                                feature.getId(),
+                                conversionResult.getScenarii(),
+                                onlyNewScenarii,
+                                mergeOnlyNewPassedScenarii
+                            );
+                            scenarioRepository.saveAll(mergeResult.getScenariiToSave());
+                            featureRepository.save(feature);
+
+                            if (savedFeatures.put(feature.getFeatureKey(), feature) == null) {
+                                previousTags.put(feature.getFeatureKey(), feature.getTagsBeforeMerge());
+                                importResult.addFeature();
+                            }
+                            importResult.addScenarii(mergeResult.getNewScenarii().size(), mergeResult.getMergedScenarii().size());
+                        });
+                    });
+                }
             }
         } catch (final IOException e) {
+            pipeline.abort();
             throw new IllegalStateException("Can't parse report feature stream", e);
+        } catch (final RuntimeException e) {
+            pipeline.abort();
+            throw e;
         }
+        pipeline.await();
+
+        updateSavedFeatures(savedFeatures.values(), previousTags);
+
+        return importResult;
+    }
+
+    /**
+     * Compute status of features once all their scenarii are saved, and propagate their tags to their scenarii.
+     * Features are updated in parallel by the feature import executor.
+     */
+    private void updateSavedFeatures(final Collection<Feature> savedFeatures, final Map<String, Set<String>> previousTags) {
+        final FeatureImportPipeline pipeline = new FeatureImportPipeline(featureImportExecutor, maxPendingFeatures);
+        try {
+            for (final Feature feature : savedFeatures) {
+                pipeline.submit(feature.getFeatureKey(), () -> {
+                    featureService.calculateStatusFromScenarii(feature);
+                    featureRepository.save(feature);
+                    featureService.updateScenariiWithFeatureTags(feature, previousTags.getOrDefault(feature.getFeatureKey(), Collections.emptySet()));
+                });
+            }
+        } catch (final RuntimeException e) {
+            pipeline.abort();
+            throw e;
+        }
+        pipeline.await();
+    }
+
+    private ImportResult importFeatures(
+        final FeatureStreamReader featureStreamReader,
+        final String testRunId,
+        final InputStream featureStream,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii,
+        final Consumer<ImportResult> progressListener
+    ) {
+        final ImportResult importResult = new ImportResult();
+
+        // Keywords, tags and step definition locations repeat in all features: they are shared during the import
+        final ConversionInterner interner = new ConversionInterner();
+
+        // Features are parsed by this thread, then converted and saved by the feature import executor
+        // as soon as they are parsed: the whole report is never loaded in memory
+        final FeatureImportPipeline pipeline = new FeatureImportPipeline(featureImportExecutor, maxPendingFeatures);
+        try {
+            featureStreamReader.read(featureStream, reportFeature -> {
+                pipeline.submit(reportFeature.getId(), () -> {
+                    convertAndSaveFeature(importResult, interner, testRunId, reportFeature, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+
+                    // Listener is called by one thread at a time
+                    synchronized (importResult) {
+                        progressListener.accept(importResult);
+                    }
+                });
+            });
+        } catch (final IOException e) {
+            pipeline.abort();
+            throw new IllegalStateException("Can't parse report feature stream", e);
+        } catch (final RuntimeException e) {
+            pipeline.abort();
+            throw e;
+        }
+        pipeline.await();
+
+        return importResult;
     }
 
     private void convertAndSaveFeature(
+        final ImportResult importResult,
+        final ConversionInterner interner,
         final String testRunId,
         final ReportFeature reportFeature,
         final Optional<String> group,
@@ -83,39 +341,116 @@ class ReportConverterServiceImpl implements ReportConverterService {
         final boolean onlyNewScenarii,
         final boolean mergeOnlyNewPassedScenarii
     ) {
-        final ConversionResult conversionResult = reportConverter.convert(testRunId, group, reportFeature);
+        final ConversionResult conversionResult = reportConverter.convert(testRunId, group, reportFeature, interner);
 
         if (dryRun) {
-            conversionResult.getScenarii().forEach(s -> {
-                s.doIgnoringChanges(ignored -> {
-                    s.setStatus(ScenarioStatus.NOT_RUN);
-                });
-            });
+            markScenariiAsNotRun(conversionResult.getScenarii());
         }
 
         // If feature has been merged to an existing feature, re-link scenarii to this existing feature
         final Feature feature = featureService.tryToMergeWithExistingFeature(conversionResult.getFeature());
-        if (!conversionResult.getFeature().equals(feature)) {
+        final boolean newFeature = conversionResult.getFeature().equals(feature);
+        if (!newFeature) {
             conversionResult.getScenarii().forEach(s -> s.setFeatureId(feature.getId()));
         }
 
-        saveScenariiIfNeeded(conversionResult.getScenarii(), onlyNewScenarii, mergeOnlyNewPassedScenarii);
+        // Existing scenarii are loaded with one query, and merged scenarii are written with bulk writes
+        final ScenarioMergeResult mergeResult = scenarioService.mergeWithExistingScenarii(
+            feature.getId(),
+            conversionResult.getScenarii(),
+            onlyNewScenarii,
+            mergeOnlyNewPassedScenarii
+        );
+        scenarioRepository.saveAll(mergeResult.getScenariiToSave());
+        importResult.addFeature(mergeResult.getNewScenarii().size(), mergeResult.getMergedScenarii().size());
 
-        featureService.calculateStatusFromScenarii(feature);
+        featureService.calculateStatusFromMergeResult(feature, mergeResult, newFeature);
         featureRepository.save(feature);
 
-        featureService.updateScenariiWithFeatureTags(feature);
+        featureService.updateScenariiWithFeatureTags(feature, feature.getTagsBeforeMerge());
     }
 
-    private void saveScenariiIfNeeded(final List<Scenario> allScenarii, final boolean onlyNewScenarii, final boolean mergeOnlyNewPassedScenarii) {
-        for (final Scenario scenario : allScenarii) {
-            final Scenario mergedScenario = scenarioService.tryToMergeWithExistingScenario(scenario, mergeOnlyNewPassedScenarii);
-            if (!onlyNewScenarii || mergedScenario.equals(scenario)) {
-                scenarioRepository.save(mergedScenario);
-            } else {
-                LOGGER.debug("Scenario {} will not be imported", scenario);
+    private void convertAndSaveScenarii(
+        final ImportResult importResult,
+        final Feature feature,
+        final List<Scenario> scenarii,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii
+    ) {
+        if (dryRun) {
+            markScenariiAsNotRun(scenarii);
+        }
+        scenarii.forEach(s -> s.setFeatureId(feature.getId()));
+
+        final ScenarioMergeResult mergeResult = scenarioService.mergeWithExistingScenarii(
+            feature.getId(),
+            scenarii,
+            onlyNewScenarii,
+            mergeOnlyNewPassedScenarii
+        );
+        scenarioRepository.saveAll(mergeResult.getScenariiToSave());
+        importResult.addScenarii(mergeResult.getNewScenarii().size(), mergeResult.getMergedScenarii().size());
+    }
+
+    private static void markScenariiAsNotRun(final List<Scenario> scenarii) {
+        scenarii.forEach(s -> {
+            s.doIgnoringChanges(ignored -> {
+                s.setStatus(ScenarioStatus.NOT_RUN);
+            });
+        });
+    }
+
+    /**
+     * Scenarii of a messages report waiting to be saved, grouped by feature. A batch is given to the flush action
+     * when it is full; all batches are flushed when too many scenarii are waiting.
+     * <p>
+     * This class is not thread-safe: scenarii are added by the thread that parses the report.
+     */
+    private static class ScenarioBatches {
+
+        private final BiConsumer<Feature, List<Scenario>> flushAction;
+
+        private final Map<String, Feature> features = new HashMap<>();
+
+        private final Map<String, List<Scenario>> scenariiByFeatureKey = new LinkedHashMap<>();
+
+        private int scenarioCount;
+
+        ScenarioBatches(final BiConsumer<Feature, List<Scenario>> flushAction) {
+            this.flushAction = flushAction;
+        }
+
+        void add(final Feature feature, final Scenario scenario) {
+            final String featureKey = feature.getFeatureKey();
+            features.putIfAbsent(featureKey, feature);
+
+            final List<Scenario> scenarii = scenariiByFeatureKey.computeIfAbsent(featureKey, key -> new ArrayList<>());
+            scenarii.add(scenario);
+            scenarioCount++;
+
+            if (scenarii.size() >= SCENARII_PER_BATCH) {
+                scenariiByFeatureKey.remove(featureKey);
+                scenarioCount -= scenarii.size();
+                flushAction.accept(features.get(featureKey), scenarii);
+            } else if (scenarioCount >= MAX_PENDING_SCENARII) {
+                flush();
             }
         }
+
+        void flush() {
+            scenariiByFeatureKey.forEach((featureKey, scenarii) -> flushAction.accept(features.get(featureKey), scenarii));
+            scenariiByFeatureKey.clear();
+            scenarioCount = 0;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface FeatureStreamReader {
+
+        void read(InputStream featureStream, Consumer<ReportFeature> featureConsumer) throws IOException;
+
     }
 
 }
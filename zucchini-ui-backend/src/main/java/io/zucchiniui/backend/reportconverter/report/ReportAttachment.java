@@ -2,10 +2,12 @@ package io.zucchiniui.backend.reportconverter.report;
 
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 public class ReportAttachment {
 
-    private String data;
+    @JsonDeserialize(using = ReportAttachmentDataDeserializer.class)
+    private ReportAttachmentData data;
 
     @JsonProperty("mime_type")
     private String mimeType;
@@ -20,11 +22,11 @@ public class ReportAttachment {
         this.mimeType = mimeType;
     }
 
-    public String getData() {
+    public ReportAttachmentData getData() {
         return data;
     }
 
-    public void setData(String data) {
+    public void setData(ReportAttachmentData data) {
         this.data = data;
     }
 
@@ -0,0 +1,54 @@
+package io.zucchiniui.backend.reportconverter.report;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.FileBackedOutputStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Decoded content of a report attachment.
+ * <p>
+ * Small contents are kept in memory, larger contents are kept in a temporary file until they are released.
+ */
+public class ReportAttachmentData {
+
+    private final FileBackedOutputStream content;
+
+    private final long size;
+
+    private final String sha256;
+
+    public ReportAttachmentData(final FileBackedOutputStream content, final long size, final String sha256) {
+        this.content = content;
+        this.size = size;
+        this.sha256 = sha256;
+    }
+
+    public ByteSource asByteSource() {
+        return content.asByteSource();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return SHA-256 hash of the content, as a lowercase hex string
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * Release the content, and delete its temporary file if any.
+     */
+    public void release() {
+        try {
+            content.reset();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't release attachment content", e);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package io.zucchiniui.backend.reportconverter.report;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.io.FileBackedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decode base64 attachment contents while they are parsed, without building the encoded string nor the decoded array.
+ */
+public class ReportAttachmentDataDeserializer extends StdDeserializer<ReportAttachmentData> {
+
+    /**
+     * Contents larger than this size are written to a temporary file.
+     */
+    public static final int MEMORY_THRESHOLD = 256 * 1024;
+
+    public ReportAttachmentDataDeserializer() {
+        super(ReportAttachmentData.class);
+    }
+
+    @Override
+    public ReportAttachmentData deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+        return readBase64(parser);
+    }
+
+    /**
+     * Decode the base64 string of the current token, while it is parsed.
+     *
+     * @param parser Parser, positioned on a string token that was not read yet
+     * @return Decoded content
+     * @throws IOException Can't parse or decode the string
+     */
+    public static ReportAttachmentData readBase64(final JsonParser parser) throws IOException {
+        return read(parser, parser::readBinaryValue);
+    }
+
+    /**
+     * Encode the string of the current token as UTF-8.
+     *
+     * @param parser Parser, positioned on a string token
+     * @return Encoded content
+     * @throws IOException Can't parse the string
+     */
+    public static ReportAttachmentData readText(final JsonParser parser) throws IOException {
+        return read(parser, stream -> {
+            final CountingOutputStream countingStream = new CountingOutputStream(stream);
+            final Writer writer = new OutputStreamWriter(countingStream, StandardCharsets.UTF_8);
+            parser.getText(writer);
+            writer.flush();
+            return (int) countingStream.getCount();
+        });
+    }
+
+    private static ReportAttachmentData read(final JsonParser parser, final ContentWriter contentWriter) throws IOException {
+        final FileBackedOutputStream content = new FileBackedOutputStream(MEMORY_THRESHOLD, true);
+        try (final HashingOutputStream hashingStream = new HashingOutputStream(Hashing.sha256(), content)) {
+            final int size = contentWriter.write(hashingStream);
+            hashingStream.flush();
+            return new ReportAttachmentData(content, size, hashingStream.hash().toString());
+        } catch (final IOException | RuntimeException e) {
+            content.reset();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+
+        int write(OutputStream stream) throws IOException;
+
+    }
+
+}
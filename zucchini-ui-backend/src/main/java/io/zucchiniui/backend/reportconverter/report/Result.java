@@ -10,6 +10,8 @@ public class Result {
     @JsonProperty("error_message")
     private String errorMessage;
 
+    private Long duration;
+
     public String getStatus() {
         return status;
     }
@@ -26,11 +28,23 @@ public class Result {
         this.errorMessage = errorMessage;
     }
 
+    /**
+     * Duration, in nanoseconds.
+     */
+    public Long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(final Long duration) {
+        this.duration = duration;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
             .add("status", status)
             .add("errorMessage", errorMessage)
+            .add("duration", duration)
             .toString();
     }
 
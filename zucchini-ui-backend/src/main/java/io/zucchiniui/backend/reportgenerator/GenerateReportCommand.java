@@ -0,0 +1,145 @@
+package io.zucchiniui.backend.reportgenerator;
+
+import com.google.common.io.ByteStreams;
+import io.dropwizard.cli.Command;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.impl.Arguments;
+import net.sourceforge.argparse4j.inf.MutuallyExclusiveGroup;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generate a synthetic Cucumber JSON report, and write it to a file or stream it to the import endpoint of a test run.
+ * <p>
+ * Example: <code>java -jar zucchini-ui-app.jar generate-report --features 5000 --seed 42 --output report.json</code>
+ */
+public class GenerateReportCommand extends Command {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    public GenerateReportCommand() {
+        super("generate-report", "Generate a synthetic Cucumber JSON report");
+    }
+
+    @Override
+    public void configure(final Subparser subparser) {
+        final ReportShape defaults = new ReportShape();
+
+        subparser.addArgument("--seed").type(Long.class).setDefault(defaults.getSeed())
+            .help("seed of the random generator, the same seed always produces the same report");
+        subparser.addArgument("--features").type(Integer.class).setDefault(defaults.getFeatureCount())
+            .help("number of features");
+        subparser.addArgument("--scenarii-per-feature").type(Integer.class).setDefault(defaults.getScenariiPerFeature())
+            .help("number of scenarii of each feature");
+        subparser.addArgument("--steps").type(Integer.class).setDefault(defaults.getStepsPerScenario())
+            .help("number of steps of each scenario");
+        subparser.addArgument("--background-steps").type(Integer.class).setDefault(defaults.getBackgroundStepCount())
+            .help("number of background steps of each feature");
+        subparser.addArgument("--table-rows").type(Integer.class).setDefault(defaults.getTableRowCount())
+            .help("number of rows of the data table of the first step of each scenario");
+        subparser.addArgument("--failure-rate").type(Double.class).setDefault(defaults.getFailureRate())
+            .help("ratio of failed scenarii");
+        subparser.addArgument("--embedding-rate").type(Double.class).setDefault(defaults.getEmbeddingRate())
+            .help("ratio of scenarii with an embedding");
+        subparser.addArgument("--embedding-size").type(Integer.class).setDefault(defaults.getEmbeddingSize())
+            .help("size of embeddings, in bytes");
+
+        final MutuallyExclusiveGroup target = subparser.addMutuallyExclusiveGroup().required(true);
+        target.addArgument("--output")
+            .help("file to write, - for the standard output");
+        target.addArgument("--url")
+            .help("import URL to stream the report to, like http://localhost:8080/api/testRuns/<testRunId>/import");
+
+        subparser.addArgument("--gzip").action(Arguments.storeTrue())
+            .help("compress the report with gzip");
+    }
+
+    @Override
+    public void run(final Bootstrap<?> bootstrap, final Namespace namespace) throws Exception {
+        final ReportShape shape = new ReportShape()
+            .withSeed(namespace.getLong("seed"))
+            .withFeatureCount(namespace.getInt("features"))
+            .withScenariiPerFeature(namespace.getInt("scenarii_per_feature"))
+            .withStepsPerScenario(namespace.getInt("steps"))
+            .withBackgroundStepCount(namespace.getInt("background_steps"))
+            .withTableRowCount(namespace.getInt("table_rows"))
+            .withFailureRate(namespace.getDouble("failure_rate"))
+            .withEmbeddingRate(namespace.getDouble("embedding_rate"))
+            .withEmbeddingSize(namespace.getInt("embedding_size"));
+        final ReportGenerator generator = new ReportGenerator(shape);
+        final boolean gzip = namespace.getBoolean("gzip");
+
+        final String url = namespace.getString("url");
+        if (url != null) {
+            post(generator, new URL(url), gzip);
+            return;
+        }
+
+        final String output = namespace.getString("output");
+        if ("-".equals(output)) {
+            write(generator, System.out, gzip);
+            System.out.flush();
+        } else {
+            try (final OutputStream outputStream = Files.newOutputStream(Paths.get(output))) {
+                write(generator, outputStream, gzip);
+            }
+        }
+    }
+
+    private static void post(final ReportGenerator generator, final URL url, final boolean gzip) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setChunkedStreamingMode(CHUNK_SIZE);
+            connection.setRequestProperty("Content-Type", "application/json");
+            if (gzip) {
+                connection.setRequestProperty("Content-Encoding", "gzip");
+            }
+
+            try (final OutputStream outputStream = connection.getOutputStream()) {
+                write(generator, outputStream, gzip);
+            }
+
+            final int status = connection.getResponseCode();
+            final InputStream responseStream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            final String response = responseStream == null ? "" : readFully(responseStream);
+            if (status >= 400) {
+                throw new IOException("Import failed with status " + status + ": " + response);
+            }
+            System.err.println("Import done with status " + status + ": " + response);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void write(final ReportGenerator generator, final OutputStream outputStream, final boolean gzip) throws IOException {
+        final OutputStream bufferedStream = new BufferedOutputStream(outputStream, CHUNK_SIZE);
+        if (gzip) {
+            final GZIPOutputStream gzipStream = new GZIPOutputStream(bufferedStream, CHUNK_SIZE);
+            generator.write(gzipStream);
+            gzipStream.finish();
+        } else {
+            generator.write(bufferedStream);
+        }
+        bufferedStream.flush();
+    }
+
+    private static String readFully(final InputStream inputStream) throws IOException {
+        try (final InputStream closeableStream = inputStream) {
+            return new String(ByteStreams.toByteArray(closeableStream), StandardCharsets.UTF_8);
+        }
+    }
+
+}
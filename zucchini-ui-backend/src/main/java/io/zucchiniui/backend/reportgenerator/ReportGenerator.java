@@ -0,0 +1,335 @@
+package io.zucchiniui.backend.reportgenerator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Generate synthetic Cucumber JSON reports.
+ * <p>
+ * Reports are streamed, so their size is not limited by memory, and only depend on their {@link ReportShape}: the same
+ * shape and seed always produce the same report. Failed scenarii share a few root causes, so their error messages
+ * look alike without being identical, like in real test runs.
+ */
+public class ReportGenerator {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final String[] KEYWORDS = {"Given ", "When ", "And ", "Then "};
+
+    private static final String[] TAGS = {
+        "@smoke", "@regression", "@api", "@ui", "@slow", "@nightly", "@wip", "@flaky", "@mobile", "@desktop",
+        "@billing", "@search", "@account", "@checkout", "@catalog", "@admin", "@security", "@i18n", "@batch", "@legacy",
+    };
+
+    private static final int TICKET_COUNT = 1_000;
+
+    private static final String[] STEP_CLASSES = {
+        "AccountSteps", "CatalogSteps", "CheckoutSteps", "SearchSteps", "BillingSteps", "AdminSteps", "CommonSteps",
+    };
+
+    private static final int STEP_DEFINITION_COUNT = 500;
+
+    private static final String[] FAILURES = {
+        "java.lang.AssertionError: expected:<%d> but was:<%d>",
+        "org.openqa.selenium.NoSuchElementException: Unable to locate element: #item-%d (waited %d ms)",
+        "java.net.SocketTimeoutException: Read timed out after %d ms (attempt %d)",
+        "java.lang.NullPointerException: order %d has no customer (line %d)",
+        "java.lang.IllegalStateException: Unexpected HTTP status %d for request %d",
+    };
+
+    private static final String[] FRAMEWORK_FRAMES = {
+        "sun.reflect.NativeMethodAccessorImpl.invoke0(Native Method)",
+        "sun.reflect.NativeMethodAccessorImpl.invoke(NativeMethodAccessorImpl.java:62)",
+        "sun.reflect.DelegatingMethodAccessorImpl.invoke(DelegatingMethodAccessorImpl.java:43)",
+        "java.lang.reflect.Method.invoke(Method.java:498)",
+        "cucumber.runtime.Utils$1.call(Utils.java:26)",
+        "cucumber.runtime.Timeout.timeout(Timeout.java:16)",
+        "cucumber.runtime.Utils.invoke(Utils.java:20)",
+        "cucumber.runtime.java.JavaStepDefinition.execute(JavaStepDefinition.java:57)",
+        "cucumber.runner.PickleStepDefinitionMatch.runStep(PickleStepDefinitionMatch.java:50)",
+        "cucumber.runner.TestStep.executeStep(TestStep.java:63)",
+        "cucumber.runner.TestStep.run(TestStep.java:49)",
+        "cucumber.runner.PickleStepTestStep.run(PickleStepTestStep.java:43)",
+        "cucumber.runner.TestCase.run(TestCase.java:46)",
+        "cucumber.runner.Runner.runPickle(Runner.java:50)",
+    };
+
+    private final ReportShape shape;
+
+    public ReportGenerator(final ReportShape shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * Write a report. The output stream is not closed.
+     *
+     * @param outputStream Output stream
+     * @throws IOException If the report can't be written
+     */
+    public void write(final OutputStream outputStream) throws IOException {
+        final Random random = new Random(shape.getSeed());
+        try (final JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            for (int featureIndex = 0; featureIndex < shape.getFeatureCount(); featureIndex++) {
+                writeFeature(generator, random, featureIndex);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeFeature(final JsonGenerator generator, final Random random, final int featureIndex) throws IOException {
+        final String featureId = "feature-" + featureIndex;
+
+        generator.writeStartObject();
+        generator.writeStringField("id", featureId);
+        generator.writeStringField("keyword", "Feature");
+        generator.writeStringField("name", "Feature " + featureIndex);
+        generator.writeStringField("description", "  As a user of area " + featureIndex % 50 + "\n  I want to check feature " + featureIndex);
+        generator.writeStringField("uri", "features/area-" + featureIndex % 50 + "/" + featureId + ".feature");
+        generator.writeNumberField("line", 2);
+        writeTags(generator, random, 1 + random.nextInt(2));
+
+        // Background steps are the same for every scenario of a feature
+        final int[] backgroundStepDefinitions = new int[shape.getBackgroundStepCount()];
+        for (int i = 0; i < backgroundStepDefinitions.length; i++) {
+            backgroundStepDefinitions[i] = random.nextInt(STEP_DEFINITION_COUNT);
+        }
+
+        final int scenarioLineCount = shape.getStepsPerScenario() + shape.getTableRowCount() + 3;
+        int line = 6;
+
+        generator.writeArrayFieldStart("elements");
+        for (int scenarioIndex = 0; scenarioIndex < shape.getScenariiPerFeature(); scenarioIndex++) {
+            if (backgroundStepDefinitions.length > 0) {
+                writeBackground(generator, random, backgroundStepDefinitions);
+            }
+            writeScenario(generator, random, featureId, scenarioIndex, line + backgroundStepDefinitions.length + 2);
+            line += scenarioLineCount;
+        }
+        generator.writeEndArray();
+
+        generator.writeEndObject();
+    }
+
+    private void writeBackground(final JsonGenerator generator, final Random random, final int[] stepDefinitions) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "background");
+        generator.writeStringField("keyword", "Background");
+        generator.writeStringField("name", "");
+        generator.writeNumberField("line", 6);
+
+        generator.writeArrayFieldStart("steps");
+        for (int stepIndex = 0; stepIndex < stepDefinitions.length; stepIndex++) {
+            writeStepStart(generator, random, stepIndex, 7 + stepIndex, stepDefinitions[stepIndex]);
+            writeResult(generator, random, "passed", null);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        generator.writeEndObject();
+    }
+
+    private void writeScenario(
+        final JsonGenerator generator,
+        final Random random,
+        final String featureId,
+        final int scenarioIndex,
+        final int line
+    ) throws IOException {
+        final boolean outline = scenarioIndex % 4 == 3;
+        final int stepCount = shape.getStepsPerScenario();
+        final int failedStepIndex = random.nextDouble() < shape.getFailureRate() ? random.nextInt(stepCount) : -1;
+        final int lastExecutedStepIndex = failedStepIndex >= 0 ? failedStepIndex : stepCount - 1;
+        final boolean withEmbedding = shape.getEmbeddingSize() > 0 && random.nextDouble() < shape.getEmbeddingRate();
+
+        generator.writeStartObject();
+        generator.writeStringField("type", "scenario");
+        if (outline) {
+            generator.writeStringField("id", featureId + ";outline-" + scenarioIndex + ";;" + (scenarioIndex % 10 + 2));
+            generator.writeStringField("keyword", "Scenario Outline");
+        } else {
+            generator.writeStringField("id", featureId + ";scenario-" + scenarioIndex);
+            generator.writeStringField("keyword", "Scenario");
+        }
+        generator.writeStringField("name", "Scenario " + scenarioIndex);
+        generator.writeNumberField("line", line);
+        writeTags(generator, random, random.nextInt(4));
+
+        writeHook(generator, random, "before");
+
+        generator.writeArrayFieldStart("steps");
+        for (int stepIndex = 0; stepIndex < stepCount; stepIndex++) {
+            writeStepStart(generator, random, stepIndex, line + 1 + stepIndex, random.nextInt(STEP_DEFINITION_COUNT));
+
+            if (stepIndex == 0 && shape.getTableRowCount() > 0) {
+                writeTable(generator, random);
+            }
+
+            if (stepIndex == failedStepIndex) {
+                writeResult(generator, random, "failed", errorMessage(random));
+            } else if (stepIndex > lastExecutedStepIndex) {
+                writeResult(generator, random, "skipped", null);
+            } else {
+                writeResult(generator, random, "passed", null);
+            }
+
+            if (stepIndex <= lastExecutedStepIndex && random.nextInt(5) == 0) {
+                generator.writeArrayFieldStart("output");
+                generator.writeString("Request " + random.nextInt(1_000_000) + " sent in " + random.nextInt(2_000) + " ms");
+                generator.writeEndArray();
+            }
+
+            if (stepIndex == lastExecutedStepIndex && withEmbedding) {
+                writeEmbedding(generator, random);
+            }
+
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        writeHook(generator, random, "after");
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Start a step object, with everything but its result, table, output and embeddings. The object is left open.
+     */
+    private void writeStepStart(
+        final JsonGenerator generator,
+        final Random random,
+        final int stepIndex,
+        final int line,
+        final int stepDefinition
+    ) throws IOException {
+        final String prefix = "step " + stepDefinition + " with value ";
+        final String value = Integer.toString(random.nextInt(10_000));
+
+        generator.writeStartObject();
+        generator.writeStringField("keyword", KEYWORDS[Math.min(stepIndex, KEYWORDS.length - 1)]);
+        generator.writeStringField("name", prefix + value);
+        generator.writeNumberField("line", line);
+
+        generator.writeObjectFieldStart("match");
+        generator.writeStringField("location", stepDefinitionLocation(stepDefinition));
+        generator.writeArrayFieldStart("arguments");
+        generator.writeStartObject();
+        generator.writeStringField("val", value);
+        generator.writeNumberField("offset", prefix.length());
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private void writeTable(final JsonGenerator generator, final Random random) throws IOException {
+        generator.writeArrayFieldStart("rows");
+        writeRow(generator, "name", "quantity", "price");
+        for (int rowIndex = 0; rowIndex < shape.getTableRowCount(); rowIndex++) {
+            writeRow(
+                generator,
+                "item-" + random.nextInt(STEP_DEFINITION_COUNT),
+                Integer.toString(1 + random.nextInt(20)),
+                random.nextInt(1_000) + "." + random.nextInt(100)
+            );
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeRow(final JsonGenerator generator, final String... cells) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("cells");
+        for (final String cell : cells) {
+            generator.writeString(cell);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeResult(final JsonGenerator generator, final Random random, final String status, final String errorMessage) throws IOException {
+        generator.writeObjectFieldStart("result");
+        generator.writeStringField("status", status);
+        if (!"skipped".equals(status)) {
+            // Cucumber durations are in nanoseconds
+            generator.writeNumberField("duration", 1_000_000L + random.nextInt(500_000_000));
+        }
+        if (errorMessage != null) {
+            generator.writeStringField("error_message", errorMessage);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeHook(final JsonGenerator generator, final Random random, final String fieldName) throws IOException {
+        generator.writeArrayFieldStart(fieldName);
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("match");
+        generator.writeStringField("location", "com.example.steps.Hooks." + fieldName + "()");
+        generator.writeEndObject();
+        writeResult(generator, random, "passed", null);
+        generator.writeEndObject();
+        generator.writeEndArray();
+    }
+
+    private void writeEmbedding(final JsonGenerator generator, final Random random) throws IOException {
+        final byte[] embedding = new byte[shape.getEmbeddingSize()];
+        random.nextBytes(embedding);
+
+        generator.writeArrayFieldStart("embeddings");
+        generator.writeStartObject();
+        generator.writeStringField("mime_type", "image/png");
+        generator.writeFieldName("data");
+        generator.writeBinary(embedding);
+        generator.writeEndObject();
+        generator.writeEndArray();
+    }
+
+    private static void writeTags(final JsonGenerator generator, final Random random, final int count) throws IOException {
+        generator.writeArrayFieldStart("tags");
+        for (int i = 0; i < count; i++) {
+            generator.writeStartObject();
+            if (random.nextInt(10) == 0) {
+                generator.writeStringField("name", "@ticket-" + random.nextInt(TICKET_COUNT));
+            } else {
+                generator.writeStringField("name", TAGS[skewedIndex(random, TAGS.length)]);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static String errorMessage(final Random random) {
+        final int cause = skewedIndex(random, FAILURES.length);
+        final int stepDefinition = random.nextInt(STEP_DEFINITION_COUNT);
+
+        final StringBuilder builder = new StringBuilder(2_048)
+            .append(String.format(FAILURES[cause], random.nextInt(1_000), random.nextInt(10_000)));
+        builder.append("\n\tat com.example.support.Client").append(cause).append(".check(Client").append(cause).append(".java:")
+            .append(40 + cause * 7).append(')');
+        builder.append("\n\tat com.example.steps.").append(stepClass(stepDefinition)).append(".step").append(stepDefinition)
+            .append('(').append(stepClass(stepDefinition)).append(".java:").append(10 + stepDefinition).append(')');
+        for (final String frame : FRAMEWORK_FRAMES) {
+            builder.append("\n\tat ").append(frame);
+        }
+        return builder.toString();
+    }
+
+    private static String stepDefinitionLocation(final int stepDefinition) {
+        return "com.example.steps." + stepClass(stepDefinition) + ".step" + stepDefinition + "(String):" + (10 + stepDefinition);
+    }
+
+    private static String stepClass(final int stepDefinition) {
+        return STEP_CLASSES[stepDefinition % STEP_CLASSES.length];
+    }
+
+    /**
+     * Random index between 0 and bound, first indexes being more frequent, like the most common tags or failure causes.
+     */
+    private static int skewedIndex(final Random random, final int bound) {
+        return Math.min(random.nextInt(bound), random.nextInt(bound));
+    }
+
+}
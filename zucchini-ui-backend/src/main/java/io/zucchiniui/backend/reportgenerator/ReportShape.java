@@ -0,0 +1,152 @@
+package io.zucchiniui.backend.reportgenerator;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Size and shape of a generated report.
+ */
+public class ReportShape {
+
+    private long seed;
+
+    private int featureCount = 100;
+
+    private int scenariiPerFeature = 20;
+
+    private int stepsPerScenario = 8;
+
+    private int backgroundStepCount = 3;
+
+    private int tableRowCount = 5;
+
+    private double failureRate = 0.1;
+
+    private double embeddingRate = 0.05;
+
+    private int embeddingSize = 16 * 1024;
+
+    /**
+     * Seed of the random generator: the same shape with the same seed always produces the same report.
+     */
+    public ReportShape withSeed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public ReportShape withFeatureCount(final int featureCount) {
+        checkArgument(featureCount >= 0, "Feature count must be positive");
+        this.featureCount = featureCount;
+        return this;
+    }
+
+    public ReportShape withScenariiPerFeature(final int scenariiPerFeature) {
+        checkArgument(scenariiPerFeature >= 0, "Scenario count must be positive");
+        this.scenariiPerFeature = scenariiPerFeature;
+        return this;
+    }
+
+    public ReportShape withStepsPerScenario(final int stepsPerScenario) {
+        checkArgument(stepsPerScenario >= 1, "Scenarii must have at least one step");
+        this.stepsPerScenario = stepsPerScenario;
+        return this;
+    }
+
+    /**
+     * Number of background steps of each feature, no background if 0.
+     */
+    public ReportShape withBackgroundStepCount(final int backgroundStepCount) {
+        checkArgument(backgroundStepCount >= 0, "Background step count must be positive");
+        this.backgroundStepCount = backgroundStepCount;
+        return this;
+    }
+
+    /**
+     * Number of rows of the data table of the first step of each scenario, no table if 0.
+     */
+    public ReportShape withTableRowCount(final int tableRowCount) {
+        checkArgument(tableRowCount >= 0, "Table row count must be positive");
+        this.tableRowCount = tableRowCount;
+        return this;
+    }
+
+    /**
+     * Ratio of failed scenarii, between 0 and 1.
+     */
+    public ReportShape withFailureRate(final double failureRate) {
+        checkArgument(failureRate >= 0 && failureRate <= 1, "Failure rate must be between 0 and 1");
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * Ratio of scenarii with an embedding in their last executed step, between 0 and 1.
+     */
+    public ReportShape withEmbeddingRate(final double embeddingRate) {
+        checkArgument(embeddingRate >= 0 && embeddingRate <= 1, "Embedding rate must be between 0 and 1");
+        this.embeddingRate = embeddingRate;
+        return this;
+    }
+
+    /**
+     * Size of embeddings, in bytes.
+     */
+    public ReportShape withEmbeddingSize(final int embeddingSize) {
+        checkArgument(embeddingSize >= 0, "Embedding size must be positive");
+        this.embeddingSize = embeddingSize;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+    public int getScenariiPerFeature() {
+        return scenariiPerFeature;
+    }
+
+    public int getStepsPerScenario() {
+        return stepsPerScenario;
+    }
+
+    public int getBackgroundStepCount() {
+        return backgroundStepCount;
+    }
+
+    public int getTableRowCount() {
+        return tableRowCount;
+    }
+
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    public double getEmbeddingRate() {
+        return embeddingRate;
+    }
+
+    public int getEmbeddingSize() {
+        return embeddingSize;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("seed", seed)
+            .add("featureCount", featureCount)
+            .add("scenariiPerFeature", scenariiPerFeature)
+            .add("stepsPerScenario", stepsPerScenario)
+            .add("backgroundStepCount", backgroundStepCount)
+            .add("tableRowCount", tableRowCount)
+            .add("failureRate", failureRate)
+            .add("embeddingRate", embeddingRate)
+            .add("embeddingSize", embeddingSize)
+            .toString();
+    }
+
+}
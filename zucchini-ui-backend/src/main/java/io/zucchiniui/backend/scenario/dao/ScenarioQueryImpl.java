@@ -7,6 +7,8 @@ import io.zucchiniui.backend.shared.domain.TagSelection;
 import io.zucchiniui.backend.support.ddd.morphia.BaseMorphiaQuery;
 import xyz.morphia.query.Query;
 
+import java.util.Collection;
+
 class ScenarioQueryImpl extends BaseMorphiaQuery<Scenario> implements ScenarioQuery {
 
     protected ScenarioQueryImpl(final Query<Scenario> query) {
@@ -19,18 +21,42 @@ class ScenarioQueryImpl extends BaseMorphiaQuery<Scenario> implements ScenarioQu
         return this;
     }
 
+    @Override
+    public ScenarioQuery withFeatureIdIn(final Collection<String> featureIds) {
+        configureQuery(q -> q.field("featureId").in(featureIds));
+        return this;
+    }
+
     @Override
     public ScenarioQuery withScenarioKey(final String scenarioKey) {
         configureQuery(q -> q.field("scenarioKey").equal(scenarioKey));
         return this;
     }
 
+    @Override
+    public ScenarioQuery withScenarioKeyIn(final Collection<String> scenarioKeys) {
+        configureQuery(q -> q.field("scenarioKey").in(scenarioKeys));
+        return this;
+    }
+
+    @Override
+    public ScenarioQuery withScenarioKeyNotIn(final Collection<String> scenarioKeys) {
+        configureQuery(q -> q.field("scenarioKey").notIn(scenarioKeys));
+        return this;
+    }
+
     @Override
     public ScenarioQuery withTestRunId(final String testRunId) {
         configureQuery(q -> q.field("testRunId").equal(testRunId));
         return this;
     }
 
+    @Override
+    public ScenarioQuery withTestRunIdIn(final Collection<String> testRunIds) {
+        configureQuery(q -> q.field("testRunId").in(testRunIds));
+        return this;
+    }
+
     @Override
     public ScenarioQuery withSearch(String search) {
         configureQuery(q -> q.search(search));
@@ -68,4 +94,16 @@ class ScenarioQueryImpl extends BaseMorphiaQuery<Scenario> implements ScenarioQu
         return this;
     }
 
+    @Override
+    public ScenarioQuery withMissingTags(final Collection<String> tags) {
+        configureQuery(q -> q.field("allTags").not().hasAllOf(tags));
+        return this;
+    }
+
+    @Override
+    public ScenarioQuery withInheritedTag(final String tag) {
+        configureQuery(q -> q.field("allTags").equal(tag).field("tags").notEqual(tag));
+        return this;
+    }
+
 }
@@ -8,6 +8,8 @@ public class AroundAction {
 
     private String errorMessage;
 
+    private Long duration;
+
     /**
      * Private constructor for Morphia.
      */
@@ -17,6 +19,7 @@ public class AroundAction {
     protected AroundAction(final AroundActionBuilder builder) {
         status = Objects.requireNonNull(builder.getStatus());
         errorMessage = builder.getErrorMessage();
+        duration = builder.getDuration();
     }
 
     public StepStatus getStatus() {
@@ -27,10 +30,18 @@ public class AroundAction {
         return errorMessage;
     }
 
+    /**
+     * Duration of the action, in nanoseconds, if known.
+     */
+    public Long getDuration() {
+        return duration;
+    }
+
     protected AroundAction copy() {
         final AroundAction newAroundAction = new AroundAction();
         newAroundAction.status = status;
         newAroundAction.errorMessage = errorMessage;
+        newAroundAction.duration = duration;
         return newAroundAction;
     }
 
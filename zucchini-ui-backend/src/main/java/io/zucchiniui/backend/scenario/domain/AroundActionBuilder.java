@@ -6,6 +6,8 @@ public class AroundActionBuilder {
 
     private String errorMessage;
 
+    private Long duration;
+
     public AroundActionBuilder withStatus(final StepStatus status) {
         this.status = status;
         return this;
@@ -16,6 +18,11 @@ public class AroundActionBuilder {
         return this;
     }
 
+    public AroundActionBuilder withDuration(final Long duration) {
+        this.duration = duration;
+        return this;
+    }
+
     public AroundAction build() {
         return new AroundAction(this);
     }
@@ -28,4 +35,8 @@ public class AroundActionBuilder {
         return errorMessage;
     }
 
+    protected Long getDuration() {
+        return duration;
+    }
+
 }
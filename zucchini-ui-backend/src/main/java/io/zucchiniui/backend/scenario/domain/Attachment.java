@@ -3,20 +3,36 @@ package io.zucchiniui.backend.scenario.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import xyz.morphia.annotations.Id;
 
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Step attachment.
+ * <p>
+ * Attachment content is kept in the attachment store, and is referenced by its hash.
  */
 public class Attachment {
 
     @Id
     private String id = UUID.randomUUID().toString();
 
+    /**
+     * Inline content, only found in attachments imported before the attachment store.
+     */
     // Don't send attachment content over the wire...
     @JsonIgnore
     private byte[] data;
 
+    /**
+     * SHA-256 hash of the content, in the attachment store.
+     */
+    private String hash;
+
+    /**
+     * Content size, in bytes.
+     */
+    private long size;
+
     private String mimeType;
 
     private String label;
@@ -28,13 +44,18 @@ public class Attachment {
 
     }
 
-    public Attachment(byte[] data, String mimeType) {
-        this(data, mimeType, null);
-    }
-
-    public Attachment(byte[] data, String mimeType, String label) {
+    /**
+     * Create an attachment referencing a stored content.
+     *
+     * @param hash     Hash of the content in the attachment store
+     * @param size     Content size
+     * @param mimeType Mime type
+     * @param label    Label
+     */
+    public Attachment(String hash, long size, String mimeType, String label) {
         id = UUID.randomUUID().toString();
-        this.data = data;
+        this.hash = hash;
+        this.size = size;
         this.mimeType = mimeType;
         this.label = label;
     }
@@ -47,8 +68,18 @@ public class Attachment {
         return mimeType;
     }
 
-    public byte[] getData() {
-        return data;
+    @JsonIgnore
+    public Optional<byte[]> getData() {
+        return Optional.ofNullable(data);
+    }
+
+    @JsonIgnore
+    public Optional<String> getHash() {
+        return Optional.ofNullable(hash);
+    }
+
+    public long getSize() {
+        return data == null ? size : data.length;
     }
 
     public String getLabel() {
@@ -53,6 +53,8 @@ public class Scenario extends BaseEntity<String> {
 
     private List<AroundAction> afterActions = new ArrayList<>();
 
+    private Long duration;
+
     private List<ScenarioChange<?>> changes = new ArrayList<>();
 
     private ZonedDateTime createdAt;
@@ -106,6 +108,7 @@ public class Scenario extends BaseEntity<String> {
 
         calculateStatusFromSteps();
         calculateReviewStateFromStatus();
+        calculateDurationFromSteps();
     }
 
     public void mergeWith(final Scenario other) {
@@ -150,6 +153,7 @@ public class Scenario extends BaseEntity<String> {
 
         calculateStatusFromSteps();
         calculateReviewStateFromStatus();
+        calculateDurationFromSteps();
 
         modifiedAt = ZonedDateTime.now();
 
@@ -220,17 +224,6 @@ public class Scenario extends BaseEntity<String> {
         }
     }
 
-    public void updateWithExtraTags(final Set<String> extraTags) {
-        final Set<String> newTags = new HashSet<>();
-        newTags.addAll(tags);
-        newTags.addAll(extraTags);
-
-        if (!newTags.equals(allTags)) {
-            allTags = newTags;
-            modifiedAt = ZonedDateTime.now();
-        }
-    }
-
     public Optional<Attachment> findAttachmentById(String attachmentId) {
         return steps.stream()
             .flatMap(step -> step.getAttachments().stream())
@@ -238,6 +231,15 @@ public class Scenario extends BaseEntity<String> {
             .findFirst();
     }
 
+    /**
+     * Check if a step of this scenario references a text stored in the attachment store.
+     *
+     * @param hash Hash of the text
+     */
+    public boolean referencesStepText(final String hash) {
+        return allSteps().anyMatch(step -> step.referencesText(hash));
+    }
+
     public void setFeatureId(final String featureId) {
         this.featureId = featureId;
     }
@@ -302,6 +304,14 @@ public class Scenario extends BaseEntity<String> {
         return Collections.unmodifiableList(steps);
     }
 
+    /**
+     * Duration of the scenario, in nanoseconds: sum of the durations of its steps, background steps and hooks.
+     * Null if no duration is known.
+     */
+    public Long getDuration() {
+        return duration;
+    }
+
     public List<ScenarioChange<?>> getChanges() {
         return Collections.unmodifiableList(changes);
     }
@@ -359,6 +369,17 @@ public class Scenario extends BaseEntity<String> {
         }
     }
 
+    private void calculateDurationFromSteps() {
+        Stream<Long> stream = allSteps().map(Step::getDuration);
+        stream = Stream.concat(stream, beforeActions.stream().map(AroundAction::getDuration));
+        stream = Stream.concat(stream, afterActions.stream().map(AroundAction::getDuration));
+
+        duration = stream
+            .filter(Objects::nonNull)
+            .reduce(Long::sum)
+            .orElse(null);
+    }
+
     private void clearOutputIfPossible() {
         if (status == ScenarioStatus.PASSED || status == ScenarioStatus.NOT_RUN) {
             allSteps().forEach(Step::clearOutput);
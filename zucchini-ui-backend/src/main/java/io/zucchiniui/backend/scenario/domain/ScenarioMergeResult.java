@@ -0,0 +1,81 @@
+package io.zucchiniui.backend.scenario.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of the merge of new scenarii with the existing scenarii of a feature.
+ */
+public class ScenarioMergeResult {
+
+    private final List<Scenario> newScenarii;
+
+    private final List<Scenario> mergedScenarii;
+
+    private final List<Scenario> unchangedScenarii;
+
+    public ScenarioMergeResult(
+        final Collection<Scenario> newScenarii,
+        final Collection<Scenario> mergedScenarii,
+        final Collection<Scenario> unchangedScenarii
+    ) {
+        this.newScenarii = new ArrayList<>(newScenarii);
+        this.mergedScenarii = new ArrayList<>(mergedScenarii);
+        this.unchangedScenarii = new ArrayList<>(unchangedScenarii);
+    }
+
+    /**
+     * Scenarii that don't exist yet, and must be inserted.
+     *
+     * @return New scenarii
+     */
+    public List<Scenario> getNewScenarii() {
+        return Collections.unmodifiableList(newScenarii);
+    }
+
+    /**
+     * Existing scenarii that have been merged with new scenarii, and must be updated.
+     *
+     * @return Merged scenarii
+     */
+    public List<Scenario> getMergedScenarii() {
+        return Collections.unmodifiableList(mergedScenarii);
+    }
+
+    /**
+     * Existing scenarii that have been left untouched by the merge.
+     *
+     * @return Unchanged scenarii
+     */
+    public List<Scenario> getUnchangedScenarii() {
+        return Collections.unmodifiableList(unchangedScenarii);
+    }
+
+    /**
+     * All scenarii of the merge: new, merged and unchanged scenarii. There is one scenario per merged scenario key.
+     *
+     * @return Scenarii
+     */
+    public List<Scenario> getAllScenarii() {
+        final List<Scenario> allScenarii = new ArrayList<>(newScenarii.size() + mergedScenarii.size() + unchangedScenarii.size());
+        allScenarii.addAll(newScenarii);
+        allScenarii.addAll(mergedScenarii);
+        allScenarii.addAll(unchangedScenarii);
+        return allScenarii;
+    }
+
+    /**
+     * Scenarii to write to the repository: new and merged scenarii.
+     *
+     * @return Scenarii to save
+     */
+    public List<Scenario> getScenariiToSave() {
+        final List<Scenario> scenariiToSave = new ArrayList<>(newScenarii.size() + mergedScenarii.size());
+        scenariiToSave.addAll(newScenarii);
+        scenariiToSave.addAll(mergedScenarii);
+        return scenariiToSave;
+    }
+
+}
@@ -2,14 +2,24 @@ package io.zucchiniui.backend.scenario.domain;
 
 import io.zucchiniui.backend.shared.domain.TagSelection;
 
+import java.util.Collection;
+
 public interface ScenarioQuery {
 
     ScenarioQuery withFeatureId(String featureId);
 
+    ScenarioQuery withFeatureIdIn(Collection<String> featureIds);
+
     ScenarioQuery withScenarioKey(String scenarioKey);
 
+    ScenarioQuery withScenarioKeyIn(Collection<String> scenarioKeys);
+
+    ScenarioQuery withScenarioKeyNotIn(Collection<String> scenarioKeys);
+
     ScenarioQuery withTestRunId(String testRunId);
 
+    ScenarioQuery withTestRunIdIn(Collection<String> testRunIds);
+
     ScenarioQuery withSearch(String search);
 
     ScenarioQuery withName(String name);
@@ -19,4 +29,14 @@ public interface ScenarioQuery {
     ScenarioQuery withSelectedTags(TagSelection tagSelection);
 
     ScenarioQuery havingErrorMessage();
+
+    /**
+     * Select scenarii whose tags don't contain all given tags.
+     */
+    ScenarioQuery withMissingTags(Collection<String> tags);
+
+    /**
+     * Select scenarii that have a tag only inherited from their feature, and not in their own tags.
+     */
+    ScenarioQuery withInheritedTag(String tag);
 }
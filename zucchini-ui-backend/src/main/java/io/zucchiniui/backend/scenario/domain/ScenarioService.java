@@ -1,5 +1,7 @@
 package io.zucchiniui.backend.scenario.domain;
 
+import java.util.List;
+
 public interface ScenarioService {
 
     void updateScenario(String scenarioId, UpdateScenarioParams params);
@@ -8,4 +10,15 @@ public interface ScenarioService {
 
     Scenario tryToMergeWithExistingScenario(Scenario newScenario, boolean mergeOnlyNewPassedScenarii);
 
+    /**
+     * Merge new scenarii of a feature with existing scenarii, loaded with a single query.
+     *
+     * @param featureId                  ID of the feature owning new scenarii
+     * @param newScenarii                New scenarii
+     * @param onlyNewScenarii            If true, existing scenarii are left untouched
+     * @param mergeOnlyNewPassedScenarii If true, an existing scenario is only merged when it has not passed, and the new one has
+     * @return Scenarii to insert, merged scenarii to update, and unchanged scenarii
+     */
+    ScenarioMergeResult mergeWithExistingScenarii(String featureId, List<Scenario> newScenarii, boolean onlyNewScenarii, boolean mergeOnlyNewPassedScenarii);
+
 }
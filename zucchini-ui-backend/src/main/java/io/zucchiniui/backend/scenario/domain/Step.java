@@ -22,10 +22,16 @@ public class Step {
 
     private String output;
 
+    private String outputHash;
+
+    private String errorMessageHash;
+
     private List<Attachment> attachments = new ArrayList<>();
 
     private Location definitionLocation;
 
+    private Long duration;
+
     /**
      * Private constructor for Morphia.
      */
@@ -40,8 +46,11 @@ public class Step {
         table = builder.getTable();
         comment = builder.getComment();
         output = builder.getOutput();
+        outputHash = builder.getOutputHash();
+        errorMessageHash = builder.getErrorMessageHash();
         attachments = builder.getAttachments();
         definitionLocation = builder.getDefinitionLocation();
+        duration = builder.getDuration();
     }
 
     public BasicInfo getInfo() {
@@ -68,6 +77,22 @@ public class Step {
         return output;
     }
 
+    /**
+     * Hash of the full output in the attachment store, when the output is too long to be stored in the step.
+     * In this case, the output of the step is only a preview.
+     */
+    public String getOutputHash() {
+        return outputHash;
+    }
+
+    /**
+     * Hash of the full error message in the attachment store, when the error message is too long to be stored in the step.
+     * In this case, the error message of the step is only a preview.
+     */
+    public String getErrorMessageHash() {
+        return errorMessageHash;
+    }
+
     public List<Attachment> getAttachments() {
         return attachments;
     }
@@ -76,6 +101,13 @@ public class Step {
         return definitionLocation;
     }
 
+    /**
+     * Duration of the step, in nanoseconds, if known.
+     */
+    public Long getDuration() {
+        return duration;
+    }
+
     protected Step copy() {
         final Step newStep = new Step();
         newStep.info = info;
@@ -84,8 +116,11 @@ public class Step {
         newStep.table = table;
         newStep.comment = comment;
         newStep.output = output;
+        newStep.outputHash = outputHash;
+        newStep.errorMessageHash = errorMessageHash;
         newStep.attachments = attachments;
         newStep.definitionLocation = definitionLocation;
+        newStep.duration = duration;
         return newStep;
     }
 
@@ -107,11 +142,17 @@ public class Step {
         status = newStatus;
         if (newStatus != StepStatus.FAILED && newStatus != StepStatus.UNDEFINED) {
             errorMessage = null;
+            errorMessageHash = null;
         }
     }
 
     protected void clearOutput() {
         output = null;
+        outputHash = null;
+    }
+
+    protected boolean referencesText(final String hash) {
+        return hash.equals(outputHash) || hash.equals(errorMessageHash);
     }
 
 }
@@ -21,8 +21,14 @@ public class StepBuilder {
 
     private String output;
 
+    private String outputHash;
+
+    private String errorMessageHash;
+
     private List<Attachment> attachments;
 
+    private Long duration;
+
     public StepBuilder withInfo(final BasicInfo info) {
         this.info = info;
         return this;
@@ -53,6 +59,16 @@ public class StepBuilder {
         return this;
     }
 
+    public StepBuilder withOutputHash(final String outputHash) {
+        this.outputHash = outputHash;
+        return this;
+    }
+
+    public StepBuilder withErrorMessageHash(final String errorMessageHash) {
+        this.errorMessageHash = errorMessageHash;
+        return this;
+    }
+
     public StepBuilder withAttachments(List<Attachment> attachments) {
         this.attachments = attachments;
         return this;
@@ -63,6 +79,11 @@ public class StepBuilder {
         return this;
     }
 
+    public StepBuilder withDuration(final Long duration) {
+        this.duration = duration;
+        return this;
+    }
+
     public Step build() {
         return new Step(this);
     }
@@ -91,6 +112,14 @@ public class StepBuilder {
         return output;
     }
 
+    protected String getOutputHash() {
+        return outputHash;
+    }
+
+    protected String getErrorMessageHash() {
+        return errorMessageHash;
+    }
+
     public List<Attachment> getAttachments() {
         return attachments;
     }
@@ -99,4 +128,8 @@ public class StepBuilder {
         return definitionLocation;
     }
 
+    protected Long getDuration() {
+        return duration;
+    }
+
 }
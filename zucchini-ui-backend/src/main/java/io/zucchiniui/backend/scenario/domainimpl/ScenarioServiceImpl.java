@@ -6,6 +6,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 @Component
 class ScenarioServiceImpl implements ScenarioService {
 
@@ -57,6 +65,50 @@ class ScenarioServiceImpl implements ScenarioService {
             .orElse(newScenario);
     }
 
+    @Override
+    public ScenarioMergeResult mergeWithExistingScenarii(
+        final String featureId,
+        final List<Scenario> newScenarii,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii
+    ) {
+        final Map<String, Scenario> scenariiByKey = new HashMap<>();
+
+        final Set<String> scenarioKeys = newScenarii.stream().map(Scenario::getScenarioKey).collect(Collectors.toSet());
+        if (!scenarioKeys.isEmpty()) {
+            try (final Stream<Scenario> existingScenarii = scenarioRepository.query(q -> q.withFeatureId(featureId).withScenarioKeyIn(scenarioKeys)).stream()) {
+                existingScenarii.forEach(existingScenario -> scenariiByKey.put(existingScenario.getScenarioKey(), existingScenario));
+            }
+        }
+
+        final Set<Scenario> insertedScenarii = new LinkedHashSet<>();
+        final Set<Scenario> mergedScenarii = new LinkedHashSet<>();
+        final Set<Scenario> unchangedScenarii = new LinkedHashSet<>();
+
+        for (final Scenario newScenario : newScenarii) {
+            // A scenario key may be present more than once in a report: the last scenario is merged with the previous ones
+            final Scenario existingScenario = scenariiByKey.putIfAbsent(newScenario.getScenarioKey(), newScenario);
+
+            if (existingScenario == null) {
+                insertedScenarii.add(newScenario);
+            } else if (!onlyNewScenarii && (!mergeOnlyNewPassedScenarii || isNewPassedScenarii(existingScenario, newScenario))) {
+                LOGGER.debug("Merging new scenario {} with existing scenario {}", newScenario, existingScenario);
+                existingScenario.mergeWith(newScenario);
+                if (!insertedScenarii.contains(existingScenario)) {
+                    unchangedScenarii.remove(existingScenario);
+                    mergedScenarii.add(existingScenario);
+                }
+            } else {
+                LOGGER.debug("Scenario {} will not be merged with existing scenario {}", newScenario, existingScenario);
+                if (!insertedScenarii.contains(existingScenario) && !mergedScenarii.contains(existingScenario)) {
+                    unchangedScenarii.add(existingScenario);
+                }
+            }
+        }
+
+        return new ScenarioMergeResult(insertedScenarii, mergedScenarii, unchangedScenarii);
+    }
+
     /**
      * Define if the new scenarii is passed and the existing is not passed.
      *
@@ -2,7 +2,10 @@ package io.zucchiniui.backend.scenario.rest;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 import io.dropwizard.jersey.PATCH;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import io.zucchiniui.backend.attachment.rest.ByteRange;
 import io.zucchiniui.backend.comment.rest.CommentResource;
 import io.zucchiniui.backend.scenario.domain.*;
 import io.zucchiniui.backend.scenario.views.*;
@@ -12,12 +15,20 @@ import io.zucchiniui.backend.shared.domain.TagSelection;
 import org.springframework.stereotype.Component;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
@@ -32,6 +43,20 @@ import java.util.stream.Collectors;
 @Produces(MediaType.APPLICATION_JSON)
 public class ScenarioResource {
 
+    private static final String RANGE = "Range";
+
+    private static final String IF_RANGE = "If-Range";
+
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+
+    private static final String CONTENT_RANGE = "Content-Range";
+
+    private static final int PARTIAL_CONTENT = 206;
+
+    private static final String TEXT_PLAIN_UTF_8 = MediaType.TEXT_PLAIN + "; charset=utf-8";
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
     private final ScenarioViewAccess scenarioViewAccess;
 
     private final ScenarioRepository scenarioRepository;
@@ -40,18 +65,22 @@ public class ScenarioResource {
 
     private final CommentResource.Factory commentResourceFactory;
 
+    private final AttachmentStore attachmentStore;
+
     private UriInfo uriInfo;
 
     public ScenarioResource(
         final ScenarioViewAccess scenarioViewAccess,
         final ScenarioRepository scenarioRepository,
         final ScenarioService scenarioService,
-        final CommentResource.Factory commentResourceFactory
+        final CommentResource.Factory commentResourceFactory,
+        final AttachmentStore attachmentStore
     ) {
         this.scenarioViewAccess = scenarioViewAccess;
         this.scenarioRepository = scenarioRepository;
         this.scenarioService = scenarioService;
         this.commentResourceFactory = commentResourceFactory;
+        this.attachmentStore = attachmentStore;
     }
 
     @Context
@@ -79,13 +108,20 @@ public class ScenarioResource {
 
     @GET
     @Path("tags")
-    public List<ScenarioTagStats> getTagStats(@BeanParam final GetScenariiRequestParams requestParams) {
+    public List<ScenarioTagStats> getTagStats(
+        @BeanParam final GetScenariiRequestParams requestParams,
+        @QueryParam("limit") @Min(1) final Integer limit
+    ) {
         if (!requestParams.getExcludedTags().isEmpty()) {
             throw new BadRequestException("You can't exclude tags when requesting feature tags");
         }
 
         final Consumer<ScenarioQuery> query = prepareQueryFromRequestParams(requestParams);
-        return scenarioViewAccess.getTagStats(query, requestParams.getTags());
+        if (limit == null) {
+            return scenarioViewAccess.getTagStats(query, requestParams.getTags());
+        }
+        // Only the tags with the most scenarii
+        return scenarioViewAccess.getTopTagStats(query, requestParams.getTags(), limit);
     }
 
     @GET
@@ -119,6 +155,25 @@ public class ScenarioResource {
         });
     }
 
+    /**
+     * Analyze the durations of a test run: percentiles of scenario durations, slowest scenarii and slowest step definitions.
+     * Durations are in nanoseconds.
+     */
+    @GET
+    @Path("durations")
+    public DurationAnalysisView getDurations(
+        @QueryParam("testRunId") @NotNull final String testRunId,
+        @QueryParam("limit") @DefaultValue("20") @Min(1) @Max(500) final int limit
+    ) {
+        final Consumer<ScenarioQuery> query = q -> q.withTestRunId(testRunId);
+
+        final DurationAnalysisView view = new DurationAnalysisView();
+        view.setScenarioDurations(scenarioViewAccess.getScenarioDurationStats(query));
+        view.setSlowestScenarii(scenarioViewAccess.getSlowestScenarii(query, limit));
+        view.setSlowestStepDefinitions(scenarioViewAccess.getSlowestStepDefinitions(query, limit));
+        return view;
+    }
+
     @GET
     @Path("{scenarioId}")
     public Scenario get(@PathParam("scenarioId") final String scenarioId) {
@@ -144,14 +199,106 @@ public class ScenarioResource {
 
     @GET
     @Path("{scenarioId}/attachments/{attachmentId}")
-    public Response getAttachment(@PathParam("scenarioId") final String scenarioId, @PathParam("attachmentId") final String attachmentId) {
-        final Optional<Attachment> attachment = scenarioRepository.getById(scenarioId).findAttachmentById(attachmentId);
-        if (attachment.isPresent()) {
-            final String mimeType = attachment.get().getMimeType();
-            final byte[] attachmentData = attachment.get().getData();
-            return Response.ok(attachmentData, mimeType).build();
+    public Response getAttachment(
+        @PathParam("scenarioId") final String scenarioId,
+        @PathParam("attachmentId") final String attachmentId,
+        @HeaderParam(RANGE) final String rangeHeader,
+        @HeaderParam(IF_RANGE) final String ifRangeHeader,
+        @Context final Request request
+    ) {
+        final Optional<Attachment> attachment = scenarioViewAccess.getAttachment(scenarioId, attachmentId);
+        if (!attachment.isPresent()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        // Attachments are immutable: their hash, or their ID for old attachments, is a strong validator
+        final EntityTag entityTag = new EntityTag(attachment.get().getHash().orElse(attachmentId));
+        final Response.ResponseBuilder notModifiedResponse = request.evaluatePreconditions(entityTag);
+        if (notModifiedResponse != null) {
+            return notModifiedResponse
+                .tag(entityTag)
+                .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                .build();
+        }
+
+        // Attachments imported before the attachment store have no size, their length is the one of their content
+        final Optional<String> hash = attachment.get().getHash();
+        final Optional<byte[]> inlineData = hash.isPresent() ? Optional.empty() : getInlineData(scenarioId, attachmentId);
+        if (!hash.isPresent() && !inlineData.isPresent()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        final long length = hash.isPresent() ? attachment.get().getSize() : inlineData.get().length;
+
+        // Range is ignored if the client copy is outdated, and checked before the content is opened
+        final boolean rangeApplies = ifRangeHeader == null || ifRangeHeader.equals(entityTag.toString());
+        final Optional<ByteRange> range = rangeApplies ? ByteRange.parse(rangeHeader, length) : Optional.empty();
+
+        final Optional<InputStream> content = hash.isPresent()
+            ? attachmentStore.open(hash.get())
+            : inlineData.map(ByteArrayInputStream::new);
+        if (!content.isPresent()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
         }
-        return Response.status(Response.Status.NOT_FOUND).build();
+
+        final long skippedBytes = range.map(ByteRange::getStart).orElse(0L);
+        final long contentLength = range.map(ByteRange::getRangeLength).orElse(length);
+        final StreamingOutput output = outputStream -> {
+            try (final InputStream inputStream = content.get()) {
+                ByteStreams.skipFully(inputStream, skippedBytes);
+                ByteStreams.copy(ByteStreams.limit(inputStream, contentLength), outputStream);
+            }
+        };
+
+        final Response.ResponseBuilder response = range.isPresent()
+            ? Response.status(PARTIAL_CONTENT).header(CONTENT_RANGE, range.get().toContentRange())
+            : Response.ok();
+        return response
+            .entity(output)
+            .type(attachment.get().getMimeType())
+            .tag(entityTag)
+            .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+            .header(HttpHeaders.CONTENT_LENGTH, contentLength)
+            .header(ACCEPT_RANGES, "bytes")
+            .build();
+    }
+
+    @GET
+    @Path("{scenarioId}/texts/{hash}")
+    @Produces(TEXT_PLAIN_UTF_8)
+    public Response getStepText(
+        @PathParam("scenarioId") final String scenarioId,
+        @PathParam("hash") final String hash,
+        @Context final Request request
+    ) {
+        if (!scenarioViewAccess.isStepTextReferenced(scenarioId, hash)) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        // Texts are content-addressed, so they never change
+        final EntityTag entityTag = new EntityTag(hash);
+        final Response.ResponseBuilder notModifiedResponse = request.evaluatePreconditions(entityTag);
+        if (notModifiedResponse != null) {
+            return notModifiedResponse
+                .tag(entityTag)
+                .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                .build();
+        }
+
+        final Optional<InputStream> content = attachmentStore.open(hash);
+        if (!content.isPresent()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        final StreamingOutput output = outputStream -> {
+            try (final InputStream inputStream = content.get()) {
+                ByteStreams.copy(inputStream, outputStream);
+            }
+        };
+
+        return Response.ok(output)
+            .tag(entityTag)
+            .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+            .build();
     }
 
     @PATCH
@@ -172,9 +319,13 @@ public class ScenarioResource {
 
     @GET
     @Path("{scenarioId}/history")
-    public List<ScenarioHistoryItemView> getHistory(@PathParam("scenarioId") final String scenarioId) {
+    public List<ScenarioHistoryItemView> getHistory(
+        @PathParam("scenarioId") final String scenarioId,
+        @QueryParam("before") final String beforeTestRunId,
+        @QueryParam("limit") @Min(1) final Integer limit
+    ) {
         final Scenario scenario = scenarioRepository.getById(scenarioId);
-        return scenarioViewAccess.getScenarioHistory(scenario.getScenarioKey());
+        return scenarioViewAccess.getScenarioHistory(scenario.getScenarioKey(), beforeTestRunId, limit);
     }
 
     @Path("{scenarioId}/comments")
@@ -216,4 +367,10 @@ public class ScenarioResource {
         };
     }
 
+    private Optional<byte[]> getInlineData(final String scenarioId, final String attachmentId) {
+        // Inline content is not loaded with the attachment reference
+        return scenarioRepository.getById(scenarioId)
+            .findAttachmentById(attachmentId)
+            .flatMap(Attachment::getData);
+    }
 }
@@ -0,0 +1,99 @@
+package io.zucchiniui.backend.scenario.views;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Aggregation stages computing duration statistics in Mongo.
+ * <p>
+ * Durations are counted in logarithmic buckets, instead of being pushed in an array: a bucket spans about 2.3% of its
+ * durations, so there are at most 1500 buckets by key for durations up to 10 days. Rows stay far below the 16 MB
+ * document limit, whatever the number of durations. Percentiles are the max duration of the bucket containing them.
+ */
+final class DurationAggregation {
+
+    private static final int BUCKETS_PER_DECADE = 100;
+
+    private DurationAggregation() {
+    }
+
+    /**
+     * Create a <code>$group</code> stage counting durations by key and bucket.
+     *
+     * @param keyExpression      Expression of the key, null to get a single key
+     * @param durationExpression Expression of the duration, like <code>$duration</code>
+     */
+    static DBObject groupByKeyAndBucket(final Object keyExpression, final String durationExpression) {
+        // Durations under 1 ns are in the first bucket, as their logarithm is not defined
+        final DBObject logarithm = new BasicDBObject("$log10", new BasicDBObject("$max", Arrays.asList(durationExpression, 1)));
+        final DBObject bucket = new BasicDBObject("$floor", new BasicDBObject("$multiply", Arrays.asList(logarithm, BUCKETS_PER_DECADE)));
+
+        return new BasicDBObject()
+            .append("_id", new BasicDBObject("key", keyExpression).append("bucket", bucket))
+            .append("count", new BasicDBObject("$sum", 1))
+            .append("total", new BasicDBObject("$sum", durationExpression))
+            .append("max", new BasicDBObject("$max", durationExpression));
+    }
+
+    /**
+     * Create a <code>$group</code> stage following {@link #groupByKeyAndBucket(Object, String)}, to get one row by key.
+     * Each row contains the count, total and max duration of the key, and the count and max duration of each bucket.
+     */
+    static DBObject groupBucketsByKey() {
+        final DBObject bucketRow = new BasicDBObject()
+            .append("count", "$count")
+            .append("max", "$max");
+
+        return new BasicDBObject()
+            .append("_id", "$_id.key")
+            .append("count", new BasicDBObject("$sum", "$count"))
+            .append("total", new BasicDBObject("$sum", "$total"))
+            .append("max", new BasicDBObject("$max", "$max"))
+            .append("buckets", new BasicDBObject("$push", bucketRow));
+    }
+
+    /**
+     * Compute duration stats from a row produced by {@link #groupBucketsByKey()}.
+     */
+    static DurationStats toDurationStats(final DBObject keyRow) {
+        final List<DBObject> buckets = new ArrayList<>();
+        for (final Object bucket : (List<?>) keyRow.get("buckets")) {
+            buckets.add((DBObject) bucket);
+        }
+        buckets.sort(Comparator.comparingLong(bucket -> getLong(bucket, "max")));
+
+        final long count = getLong(keyRow, "count");
+        return new DurationStats(
+            count,
+            getLong(keyRow, "total"),
+            percentile(buckets, count, 0.5),
+            percentile(buckets, count, 0.95),
+            getLong(keyRow, "max")
+        );
+    }
+
+    /**
+     * Pick a percentile in sorted buckets, with the nearest-rank method.
+     */
+    private static long percentile(final List<DBObject> sortedBuckets, final long count, final double ratio) {
+        final long index = (long) Math.floor((count - 1) * ratio);
+        long seenCount = 0;
+        for (final DBObject bucket : sortedBuckets) {
+            seenCount += getLong(bucket, "count");
+            if (seenCount > index) {
+                return getLong(bucket, "max");
+            }
+        }
+        return 0;
+    }
+
+    private static long getLong(final DBObject row, final String field) {
+        return ((Number) row.get(field)).longValue();
+    }
+
+}
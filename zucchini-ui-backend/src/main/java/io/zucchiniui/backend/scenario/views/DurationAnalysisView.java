@@ -0,0 +1,40 @@
+package io.zucchiniui.backend.scenario.views;
+
+import java.util.List;
+
+/**
+ * Durations of the scenarii of a test run, with its slowest scenarii and step definitions.
+ */
+public class DurationAnalysisView {
+
+    private DurationStats scenarioDurations;
+
+    private List<ScenarioListItemView> slowestScenarii;
+
+    private List<StepDefinitionDurationView> slowestStepDefinitions;
+
+    public DurationStats getScenarioDurations() {
+        return scenarioDurations;
+    }
+
+    public void setScenarioDurations(final DurationStats scenarioDurations) {
+        this.scenarioDurations = scenarioDurations;
+    }
+
+    public List<ScenarioListItemView> getSlowestScenarii() {
+        return slowestScenarii;
+    }
+
+    public void setSlowestScenarii(final List<ScenarioListItemView> slowestScenarii) {
+        this.slowestScenarii = slowestScenarii;
+    }
+
+    public List<StepDefinitionDurationView> getSlowestStepDefinitions() {
+        return slowestStepDefinitions;
+    }
+
+    public void setSlowestStepDefinitions(final List<StepDefinitionDurationView> slowestStepDefinitions) {
+        this.slowestStepDefinitions = slowestStepDefinitions;
+    }
+
+}
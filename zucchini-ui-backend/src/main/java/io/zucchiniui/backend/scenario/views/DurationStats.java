@@ -0,0 +1,63 @@
+package io.zucchiniui.backend.scenario.views;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Statistics about durations, in nanoseconds.
+ */
+public class DurationStats {
+
+    private final long count;
+
+    private final long total;
+
+    private final long p50;
+
+    private final long p95;
+
+    private final long max;
+
+    @JsonCreator
+    public DurationStats(
+        @JsonProperty("count") final long count,
+        @JsonProperty("total") final long total,
+        @JsonProperty("p50") final long p50,
+        @JsonProperty("p95") final long p95,
+        @JsonProperty("max") final long max
+    ) {
+        this.count = count;
+        this.total = total;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.max = max;
+    }
+
+    public static DurationStats empty() {
+        return new DurationStats(0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Number of measured durations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP95() {
+        return p95;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+}
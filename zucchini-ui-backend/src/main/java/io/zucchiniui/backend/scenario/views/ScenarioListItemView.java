@@ -17,6 +17,8 @@ public class ScenarioListItemView {
 
     private String featureId;
 
+    private Long duration;
+
     public String getId() {
         return id;
     }
@@ -65,4 +67,12 @@ public class ScenarioListItemView {
         this.featureId = featureId;
     }
 
+    public Long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(final Long duration) {
+        this.duration = duration;
+    }
+
 }
@@ -12,12 +12,16 @@ public class ScenarioStats {
     private final TypedScenarioStats nonReviewed = new TypedScenarioStats();
 
     public void addScenarioStatus(final ScenarioStatus status, final boolean reviewedState) {
-        all.addScenarioStatus(status);
+        addScenarioStatus(status, reviewedState, 1);
+    }
+
+    public void addScenarioStatus(final ScenarioStatus status, final boolean reviewedState, final int scenarioCount) {
+        all.addScenarioStatus(status, scenarioCount);
 
         if (reviewedState) {
-            reviewed.addScenarioStatus(status);
+            reviewed.addScenarioStatus(status, scenarioCount);
         } else {
-            nonReviewed.addScenarioStatus(status);
+            nonReviewed.addScenarioStatus(status, scenarioCount);
         }
     }
 
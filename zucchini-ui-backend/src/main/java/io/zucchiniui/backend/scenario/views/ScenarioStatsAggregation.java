@@ -0,0 +1,95 @@
+package io.zucchiniui.backend.scenario.views;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
+
+import java.util.List;
+
+/**
+ * Aggregation stages computing scenario statistics in Mongo.
+ * <p>
+ * Scenarii are grouped by status and review state, and optionally by a key: there are at most 8 groups by key,
+ * whatever the scenario count.
+ */
+final class ScenarioStatsAggregation {
+
+    private ScenarioStatsAggregation() {
+    }
+
+    /**
+     * Create a <code>$group</code> stage counting scenarii by status and review state.
+     */
+    static DBObject groupByStatus() {
+        final DBObject id = new BasicDBObject()
+            .append("status", "$status")
+            .append("reviewed", "$reviewed");
+
+        return new BasicDBObject()
+            .append("_id", id)
+            .append("count", new BasicDBObject("$sum", 1));
+    }
+
+    /**
+     * Create a <code>$group</code> stage counting scenarii by key, status and review state.
+     *
+     * @param keyExpression Expression of the key, like <code>$testRunId</code>
+     */
+    static DBObject groupByKeyAndStatus(final String keyExpression) {
+        final DBObject id = new BasicDBObject()
+            .append("key", keyExpression)
+            .append("status", "$status")
+            .append("reviewed", "$reviewed");
+
+        return new BasicDBObject()
+            .append("_id", id)
+            .append("count", new BasicDBObject("$sum", 1));
+    }
+
+    /**
+     * Get the key of a row produced by {@link #groupByKeyAndStatus(String)}.
+     */
+    static String getKey(final DBObject row) {
+        return (String) ((DBObject) row.get("_id")).get("key");
+    }
+
+    /**
+     * Create a <code>$group</code> stage following {@link #groupByKeyAndStatus(String)}, to get one row by key.
+     * Each row contains the total scenario count of the key, and the rows counting scenarii by status and review state.
+     */
+    static DBObject groupRowsByKey() {
+        final DBObject statusRow = new BasicDBObject()
+            .append("_id", new BasicDBObject("status", "$_id.status").append("reviewed", "$_id.reviewed"))
+            .append("count", "$count");
+
+        return new BasicDBObject()
+            .append("_id", "$_id.key")
+            .append("count", new BasicDBObject("$sum", "$count"))
+            .append("rows", new BasicDBObject("$push", statusRow));
+    }
+
+    /**
+     * Compute stats from a row produced by {@link #groupRowsByKey()}.
+     */
+    static ScenarioStats toStats(final DBObject keyRow) {
+        final ScenarioStats stats = new ScenarioStats();
+        for (final Object row : (List<?>) keyRow.get("rows")) {
+            addRow(stats, (DBObject) row);
+        }
+        return stats;
+    }
+
+    /**
+     * Add a row produced by a group stage to stats.
+     *
+     * @param stats Stats to update
+     * @param row   Row, counting scenarii with a status and a review state
+     */
+    static void addRow(final ScenarioStats stats, final DBObject row) {
+        final DBObject id = (DBObject) row.get("_id");
+        final ScenarioStatus status = ScenarioStatus.valueOf((String) id.get("status"));
+        final boolean reviewed = Boolean.TRUE.equals(id.get("reviewed"));
+        stats.addScenarioStatus(status, reviewed, ((Number) row.get("count")).intValue());
+    }
+
+}
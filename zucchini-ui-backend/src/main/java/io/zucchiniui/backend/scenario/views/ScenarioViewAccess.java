@@ -1,29 +1,40 @@
 package io.zucchiniui.backend.scenario.views;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
 import io.zucchiniui.backend.scenario.dao.ScenarioDAO;
+import io.zucchiniui.backend.scenario.domain.Attachment;
 import io.zucchiniui.backend.scenario.domain.Scenario;
 import io.zucchiniui.backend.scenario.domain.ScenarioQuery;
 import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
 import io.zucchiniui.backend.scenario.domain.Step;
+import io.zucchiniui.backend.shared.domain.Location;
 import io.zucchiniui.backend.shared.domain.TagSelection;
+import io.zucchiniui.backend.support.ddd.EntityNotFoundException;
+import io.zucchiniui.backend.support.ddd.morphia.MorphiaRawAggregation;
 import io.zucchiniui.backend.support.ddd.morphia.MorphiaRawQuery;
 import io.zucchiniui.backend.support.ddd.morphia.MorphiaUtils;
-import io.zucchiniui.backend.testrun.domain.TestRunQuery;
+import io.zucchiniui.backend.testrun.dao.TestRunDAO;
+import io.zucchiniui.backend.testrun.domain.TestRun;
 import io.zucchiniui.backend.testrun.domain.TestRunRepository;
 import ma.glasnost.orika.BoundMapperFacade;
+import xyz.morphia.query.FindOptions;
 import xyz.morphia.query.Query;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -35,15 +46,18 @@ public class ScenarioViewAccess {
 
     private final TestRunRepository testRunRepository;
 
+    private final TestRunDAO testRunDAO;
+
     private final BoundMapperFacade<Scenario, ScenarioListItemView> scenarioToListItemViewMapper;
 
     private final BoundMapperFacade<Scenario, FailedScenarioListItemView> failedScenarioToListItemViewMapper;
 
     private final BoundMapperFacade<Scenario, ScenarioHistoryItemView> scenarioToHistoryItemViewMapper;
 
-    public ScenarioViewAccess(final ScenarioDAO scenarioDAO, final TestRunRepository testRunRepository) {
+    public ScenarioViewAccess(final ScenarioDAO scenarioDAO, final TestRunRepository testRunRepository, final TestRunDAO testRunDAO) {
         this.scenarioDAO = scenarioDAO;
         this.testRunRepository = testRunRepository;
+        this.testRunDAO = testRunDAO;
 
         final ScenarioViewMapper mapper = new ScenarioViewMapper();
         scenarioToListItemViewMapper = mapper.dedicatedMapperFor(Scenario.class, ScenarioListItemView.class, false);
@@ -57,7 +71,8 @@ public class ScenarioViewAccess {
             .project("status", true)
             .project("testRunId", true)
             .project("featureId", true)
-            .project("reviewed", true);
+            .project("reviewed", true)
+            .project("duration", true);
 
         return MorphiaUtils.streamQuery(query)
             .map(scenarioToListItemViewMapper::map)
@@ -111,37 +126,147 @@ public class ScenarioViewAccess {
     }
 
     public List<ScenarioHistoryItemView> getScenarioHistory(final String scenarioKey) {
-        return testRunRepository.query(TestRunQuery::orderByLatestFirst)
-            .stream()
-            .flatMap(testRun -> {
-                final Scenario scenario = scenarioDAO.prepareTypedQuery(q -> q.withTestRunId(testRun.getId()).withScenarioKey(scenarioKey))
-                    .project("status", true)
-                    .get();
+        return getScenarioHistory(scenarioKey, null, null);
+    }
 
-                if (scenario == null) {
-                    return Stream.empty();
-                }
+    /**
+     * Get history of a scenario, latest test runs first.
+     * <p>
+     * Test run IDs of the scenario are fetched with a query covered by the <code>{ scenarioKey, testRunId }</code>
+     * index. Test runs are paged by Mongo, then statuses are only loaded for the scenarii of the page.
+     *
+     * @param scenarioKey     Scenario key
+     * @param beforeTestRunId If not null, only history items of test runs older than this test run are returned
+     * @param limit           If not null, max number of history items
+     * @return History items
+     * @throws EntityNotFoundException If the test run of <code>beforeTestRunId</code> does not exist
+     */
+    public List<ScenarioHistoryItemView> getScenarioHistory(final String scenarioKey, final String beforeTestRunId, final Integer limit) {
+        final Set<String> testRunIds;
+        try (final Stream<DBObject> rows = new MorphiaRawQuery(scenarioDAO.prepareTypedQuery(q -> q.withScenarioKey(scenarioKey)))
+            .includeIndexedFieldsOnly("testRunId")
+            .stream()) {
+
+            testRunIds = rows.map(row -> (String) row.get("testRunId")).collect(Collectors.toSet());
+        }
+        if (testRunIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final TestRun beforeTestRun = beforeTestRunId == null ? null : testRunRepository.getById(beforeTestRunId);
+
+        final Query<TestRun> testRunQuery = testRunDAO.prepareTypedQuery(q -> {
+            q.withIdIn(testRunIds).orderByLatestFirst();
+            if (beforeTestRun != null) {
+                q.olderThan(beforeTestRun);
+            }
+        });
+        final FindOptions findOptions = new FindOptions();
+        if (limit != null) {
+            findOptions.limit(limit);
+        }
+
+        final List<TestRun> testRuns;
+        try (final Stream<TestRun> testRunStream = MorphiaUtils.streamQuery(testRunQuery, findOptions)) {
+            testRuns = testRunStream.collect(Collectors.toList());
+        }
+        if (testRuns.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-                final ScenarioHistoryItemView item = scenarioToHistoryItemViewMapper.map(scenario);
+        final Set<String> pageTestRunIds = testRuns.stream().map(TestRun::getId).collect(Collectors.toSet());
+        final Query<Scenario> query = scenarioDAO.prepareTypedQuery(q -> q.withScenarioKey(scenarioKey).withTestRunIdIn(pageTestRunIds))
+            .project("status", true)
+            .project("testRunId", true);
+
+        final Map<String, Scenario> scenariiByTestRunId;
+        try (final Stream<Scenario> scenarii = MorphiaUtils.streamQuery(query)) {
+            scenariiByTestRunId = scenarii.collect(Collectors.toMap(Scenario::getTestRunId, Function.identity(), (first, second) -> first));
+        }
+
+        return testRuns.stream()
+            .filter(testRun -> scenariiByTestRunId.containsKey(testRun.getId()))
+            .map(testRun -> {
+                final ScenarioHistoryItemView item = scenarioToHistoryItemViewMapper.map(scenariiByTestRunId.get(testRun.getId()));
                 item.setTestRun(testRun);
-                return Stream.of(item);
+                return item;
             })
             .collect(Collectors.toList());
     }
 
     public ScenarioHistoryItemView getLastScenariiTested(final Consumer<ScenarioQuery> preparator) {
-        final Query<Scenario> query = scenarioDAO.prepareTypedQuery(preparator);
-        final Scenario scenario = MorphiaUtils.streamQuery(query).findFirst().orElse(null);
-        if(scenario == null) {
+        final Query<Scenario> query = scenarioDAO.prepareTypedQuery(preparator).project("scenarioKey", true);
+        final Scenario scenario = MorphiaUtils.streamQuery(query, new FindOptions().limit(1)).findFirst().orElse(null);
+        if (scenario == null) {
             return new ScenarioHistoryItemView(); // empty object
         }
-        List<ScenarioHistoryItemView> scenariosHistory = getScenarioHistory(scenario.getScenarioKey());
-        return scenariosHistory.get(0);
+        final List<ScenarioHistoryItemView> scenariosHistory = getScenarioHistory(scenario.getScenarioKey(), null, 1);
+        return scenariosHistory.isEmpty() ? new ScenarioHistoryItemView() : scenariosHistory.get(0);
     }
 
+    /**
+     * Get a step attachment, without loading the scenario. Only attachment references are loaded, not their content.
+     *
+     * @param scenarioId   Scenario ID
+     * @param attachmentId Attachment ID
+     * @return Found attachment
+     */
+    public Optional<Attachment> getAttachment(final String scenarioId, final String attachmentId) {
+        final Scenario scenario = scenarioDAO.createQuery()
+            .field("id").equal(scenarioId)
+            .field("steps.attachments.id").equal(attachmentId)
+            .project("steps.attachments.id", true)
+            .project("steps.attachments.hash", true)
+            .project("steps.attachments.size", true)
+            .project("steps.attachments.mimeType", true)
+            .project("steps.attachments.label", true)
+            .get();
+
+        return Optional.ofNullable(scenario).flatMap(s -> s.findAttachmentById(attachmentId));
+    }
+
+    /**
+     * Check if a step of a scenario references a text stored in the attachment store, without loading the scenario.
+     *
+     * @param scenarioId Scenario ID
+     * @param hash       Hash of the text
+     * @return true if the scenario references this text, as the output or the error message of a step
+     */
+    public boolean isStepTextReferenced(final String scenarioId, final String hash) {
+        final Query<Scenario> query = scenarioDAO.createQuery()
+            .field("id").equal(scenarioId);
+        query.or(
+            query.criteria("steps.outputHash").equal(hash),
+            query.criteria("steps.errorMessageHash").equal(hash),
+            query.criteria("background.steps.outputHash").equal(hash),
+            query.criteria("background.steps.errorMessageHash").equal(hash)
+        );
+        return query.count() > 0;
+    }
+
+    /**
+     * Compute scenario stats with an aggregation: only counts by status and review state are fetched from Mongo.
+     */
     public ScenarioStats getStats(final Consumer<ScenarioQuery> preparator) {
         final ScenarioStats stats = new ScenarioStats();
 
+        try (final Stream<DBObject> rows = new MorphiaRawAggregation(scenarioDAO.prepareTypedQuery(preparator))
+            .addStage("$group", ScenarioStatsAggregation.groupByStatus())
+            .stream()) {
+
+            rows.forEach(row -> ScenarioStatsAggregation.addRow(stats, row));
+        }
+
+        return stats;
+    }
+
+    /**
+     * Compute scenario stats from the status and review state of each scenario. Slower than {@link #getStats(Consumer)},
+     * as every scenario is fetched, but gives the reference result.
+     */
+    public ScenarioStats getStatsFromScenarii(final Consumer<ScenarioQuery> preparator) {
+        final ScenarioStats stats = new ScenarioStats();
+
         new MorphiaRawQuery(scenarioDAO.prepareTypedQuery(preparator))
             .includeFields("status", "reviewed")
             .stream()
@@ -154,7 +279,107 @@ public class ScenarioViewAccess {
         return stats;
     }
 
+    /**
+     * Compute scenario stats of several test runs with a single aggregation.
+     *
+     * @param testRunIds Test run IDs
+     * @return Stats indexed by test run ID, test runs without scenarii are missing
+     */
+    public Map<String, ScenarioStats> getStatsByTestRunId(final Collection<String> testRunIds) {
+        if (testRunIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return getStatsGroupedBy(q -> q.withTestRunIdIn(testRunIds), "testRunId");
+    }
+
+    /**
+     * Compute scenario stats of several features with a single aggregation.
+     *
+     * @param featureIds   Feature IDs
+     * @param tagSelection Only scenarii matching this tag selection are counted
+     * @return Stats indexed by feature ID, features without matching scenarii are missing
+     */
+    public Map<String, ScenarioStats> getStatsByFeatureId(final Collection<String> featureIds, final TagSelection tagSelection) {
+        if (featureIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return getStatsGroupedBy(q -> q.withFeatureIdIn(featureIds).withSelectedTags(tagSelection), "featureId");
+    }
+
+    private Map<String, ScenarioStats> getStatsGroupedBy(final Consumer<ScenarioQuery> preparator, final String fieldName) {
+        final Map<String, ScenarioStats> statsByKey = new HashMap<>();
+
+        try (final Stream<DBObject> rows = new MorphiaRawAggregation(scenarioDAO.prepareTypedQuery(preparator))
+            .addStage("$group", ScenarioStatsAggregation.groupByKeyAndStatus("$" + fieldName))
+            .stream()) {
+
+            rows.forEach(row -> {
+                final String key = ScenarioStatsAggregation.getKey(row);
+                ScenarioStatsAggregation.addRow(statsByKey.computeIfAbsent(key, k -> new ScenarioStats()), row);
+            });
+        }
+
+        return statsByKey;
+    }
+
+    /**
+     * Compute stats of each tag, sorted by tag.
+     *
+     * @param preparator Query preparator
+     * @param tags       Tags to compute, all tags if empty
+     */
     public List<ScenarioTagStats> getTagStats(final Consumer<ScenarioQuery> preparator, final Collection<String> tags) {
+        return aggregateTagStats(preparator, tags, new BasicDBObject("_id", 1), null);
+    }
+
+    /**
+     * Compute stats of the tags with the most scenarii, the tag with the most scenarii first.
+     *
+     * @param preparator Query preparator
+     * @param tags       Tags to compute, all tags if empty
+     * @param limit      Maximum number of tags
+     */
+    public List<ScenarioTagStats> getTopTagStats(final Consumer<ScenarioQuery> preparator, final Collection<String> tags, final int limit) {
+        return aggregateTagStats(preparator, tags, new BasicDBObject("count", -1).append("_id", 1), limit);
+    }
+
+    private List<ScenarioTagStats> aggregateTagStats(
+        final Consumer<ScenarioQuery> preparator,
+        final Collection<String> tags,
+        final DBObject sort,
+        final Integer limit
+    ) {
+        final DBObject fields = new BasicDBObject()
+            .append("allTags", 1)
+            .append("status", 1)
+            .append("reviewed", 1);
+
+        final MorphiaRawAggregation aggregation = new MorphiaRawAggregation(scenarioDAO.prepareTypedQuery(preparator))
+            .addStage("$project", fields)
+            .addStage("$unwind", "$allTags");
+        if (!tags.isEmpty()) {
+            aggregation.addStage("$match", new BasicDBObject("allTags", new BasicDBObject("$in", new ArrayList<>(tags))));
+        }
+        aggregation
+            .addStage("$group", ScenarioStatsAggregation.groupByKeyAndStatus("$allTags"))
+            .addStage("$group", ScenarioStatsAggregation.groupRowsByKey())
+            .addStage("$sort", sort);
+        if (limit != null) {
+            aggregation.addStage("$limit", limit);
+        }
+
+        try (final Stream<DBObject> rows = aggregation.stream()) {
+            return rows
+                .map(row -> new ScenarioTagStats((String) row.get("_id"), ScenarioStatsAggregation.toStats(row)))
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compute stats of each tag from the tags of each scenario. Slower than {@link #getTagStats(Consumer, Collection)},
+     * as every scenario is fetched, but gives the reference result.
+     */
+    public List<ScenarioTagStats> getTagStatsFromScenarii(final Consumer<ScenarioQuery> preparator, final Collection<String> tags) {
         // Filter tags if requested
         final Predicate<String> tagFilter;
         if (tags.isEmpty()) {
@@ -193,14 +418,6 @@ public class ScenarioViewAccess {
             .collect(Collectors.toList());
     }
 
-    public Set<String> getFeatureIdsForTags(final TagSelection tagSelection) {
-        return new MorphiaRawQuery(scenarioDAO.prepareTypedQuery(q -> q.withSelectedTags(tagSelection)))
-            .includeFields("featureId")
-            .stream()
-            .map(dbObj -> (String) dbObj.get("featureId"))
-            .collect(Collectors.toSet());
-    }
-
     public List<GroupedStepsListItemView> getStepDefinitions(final Consumer<ScenarioQuery> preparator) {
 
         final Query<Scenario> query = scenarioDAO.prepareTypedQuery(preparator).project("steps", true);
@@ -235,4 +452,79 @@ public class ScenarioViewAccess {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Compute statistics about the durations of scenarii. Scenarii without a known duration are ignored.
+     */
+    public DurationStats getScenarioDurationStats(final Consumer<ScenarioQuery> preparator) {
+        final Query<Scenario> query = scenarioDAO.prepareTypedQuery(preparator);
+        query.field("duration").exists();
+
+        try (final Stream<DBObject> results = new MorphiaRawAggregation(query)
+            .addStage("$group", DurationAggregation.groupByKeyAndBucket(null, "$duration"))
+            .addStage("$group", DurationAggregation.groupBucketsByKey())
+            .stream()) {
+
+            return results.findFirst()
+                .map(DurationAggregation::toDurationStats)
+                .orElseGet(DurationStats::empty);
+        }
+    }
+
+    /**
+     * Get the slowest scenarii, slowest first. Scenarii without a known duration are ignored.
+     */
+    public List<ScenarioListItemView> getSlowestScenarii(final Consumer<ScenarioQuery> preparator, final int limit) {
+        final Query<Scenario> query = scenarioDAO.prepareTypedQuery(preparator)
+            .order("-duration")
+            .project("info", true)
+            .project("status", true)
+            .project("testRunId", true)
+            .project("featureId", true)
+            .project("reviewed", true)
+            .project("duration", true);
+        query.field("duration").exists();
+
+        return MorphiaUtils.streamQuery(query, new FindOptions().limit(limit))
+            .map(scenarioToListItemViewMapper::map)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Compute statistics about the durations of steps, grouped by step definition, including background steps.
+     * Step definitions with the highest total duration come first.
+     */
+    public List<StepDefinitionDurationView> getSlowestStepDefinitions(final Consumer<ScenarioQuery> preparator, final int limit) {
+        final Query<Scenario> query = scenarioDAO.prepareTypedQuery(preparator);
+
+        final DBObject allSteps = new BasicDBObject("$concatArrays", Arrays.asList(
+            new BasicDBObject("$ifNull", Arrays.asList("$background.steps", Collections.emptyList())),
+            new BasicDBObject("$ifNull", Arrays.asList("$steps", Collections.emptyList()))
+        ));
+
+        final DBObject measuredSteps = new BasicDBObject()
+            .append("steps.duration", new BasicDBObject("$exists", true))
+            .append("steps.definitionLocation", new BasicDBObject("$exists", true));
+
+        try (final Stream<DBObject> results = new MorphiaRawAggregation(query)
+            .addStage("$project", new BasicDBObject("steps", allSteps))
+            .addStage("$unwind", "$steps")
+            .addStage("$match", measuredSteps)
+            .addStage("$group", DurationAggregation.groupByKeyAndBucket("$steps.definitionLocation", "$steps.duration"))
+            .addStage("$group", DurationAggregation.groupBucketsByKey())
+            .addStage("$sort", new BasicDBObject("total", -1))
+            .addStage("$limit", limit)
+            .stream()) {
+
+            return results
+                .map(dbObj -> {
+                    final DBObject location = (DBObject) dbObj.get("_id");
+                    return new StepDefinitionDurationView(
+                        new Location((String) location.get("filename"), ((Number) location.get("line")).longValue()),
+                        DurationAggregation.toDurationStats(dbObj)
+                    );
+                })
+                .collect(Collectors.toList());
+        }
+    }
+
 }
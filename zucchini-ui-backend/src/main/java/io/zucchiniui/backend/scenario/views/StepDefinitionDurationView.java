@@ -0,0 +1,30 @@
+package io.zucchiniui.backend.scenario.views;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.zucchiniui.backend.shared.domain.Location;
+
+public class StepDefinitionDurationView {
+
+    private final Location stepDefinitionLocation;
+
+    private final DurationStats durations;
+
+    @JsonCreator
+    public StepDefinitionDurationView(
+        @JsonProperty("stepDefinitionLocation") final Location stepDefinitionLocation,
+        @JsonProperty("durations") final DurationStats durations
+    ) {
+        this.stepDefinitionLocation = stepDefinitionLocation;
+        this.durations = durations;
+    }
+
+    public Location getStepDefinitionLocation() {
+        return stepDefinitionLocation;
+    }
+
+    public DurationStats getDurations() {
+        return durations;
+    }
+
+}
@@ -15,20 +15,24 @@ public class TypedScenarioStats {
     private int pending;
 
     public void addScenarioStatus(final ScenarioStatus status) {
-        count++;
+        addScenarioStatus(status, 1);
+    }
+
+    public void addScenarioStatus(final ScenarioStatus status, final int scenarioCount) {
+        count += scenarioCount;
 
         switch (status) {
             case NOT_RUN:
-                notRun++;
+                notRun += scenarioCount;
                 break;
             case PASSED:
-                passed++;
+                passed += scenarioCount;
                 break;
             case FAILED:
-                failed++;
+                failed += scenarioCount;
                 break;
             case PENDING:
-                pending++;
+                pending += scenarioCount;
                 break;
             default:
                 throw new IllegalArgumentException("Unknown status: " + status);
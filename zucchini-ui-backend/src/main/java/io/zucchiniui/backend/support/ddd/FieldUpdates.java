@@ -0,0 +1,37 @@
+package io.zucchiniui.backend.support.ddd;
+
+import java.util.Collection;
+
+/**
+ * Field updates, applied to entities inside the database, without loading them.
+ */
+public interface FieldUpdates {
+
+    /**
+     * Set the value of a field.
+     *
+     * @param fieldName Field name
+     * @param value     New value
+     * @return This updates
+     */
+    FieldUpdates set(String fieldName, Object value);
+
+    /**
+     * Add values to a set field, if not already present.
+     *
+     * @param fieldName Field name
+     * @param values    Values to add
+     * @return This updates
+     */
+    FieldUpdates addAllToSet(String fieldName, Collection<?> values);
+
+    /**
+     * Remove all occurrences of values from a collection field.
+     *
+     * @param fieldName Field name
+     * @param values    Values to remove
+     * @return This updates
+     */
+    FieldUpdates removeAll(String fieldName, Collection<?> values);
+
+}
@@ -48,6 +48,14 @@ public interface PreparedQuery<T> {
      */
     void update(Consumer<T> updater);
 
+    /**
+     * Update fields of selected entities inside the database, without loading them.
+     *
+     * @param updater Consumer that describes the field updates
+     * @return Number of updated entities
+     */
+    int updateFields(Consumer<FieldUpdates> updater);
+
     /**
      * Delete entities with a query.
      */
@@ -1,5 +1,7 @@
 package io.zucchiniui.backend.support.ddd;
 
+import java.util.Collection;
+
 /**
  * Base implementation of a DDD repository.
  *
@@ -24,6 +26,15 @@ public interface Repository<T, I> {
      */
     void save(T entity);
 
+    /**
+     * Save new or existing entities in repository, using bulk writes instead of one write per entity.
+     * <p>
+     * Entities are written in an undefined order, and optimistic locking is not supported.
+     *
+     * @param entities Entities to save
+     */
+    void saveAll(Collection<T> entities);
+
     /**
      * Delete an entity.
      *
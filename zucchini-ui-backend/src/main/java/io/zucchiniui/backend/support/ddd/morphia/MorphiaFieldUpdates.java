@@ -0,0 +1,52 @@
+package io.zucchiniui.backend.support.ddd.morphia;
+
+import io.zucchiniui.backend.support.ddd.FieldUpdates;
+import xyz.morphia.query.UpdateOperations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+class MorphiaFieldUpdates<T> implements FieldUpdates {
+
+    private final UpdateOperations<T> updateOperations;
+
+    private boolean empty = true;
+
+    public MorphiaFieldUpdates(final UpdateOperations<T> updateOperations) {
+        this.updateOperations = updateOperations;
+    }
+
+    @Override
+    public FieldUpdates set(final String fieldName, final Object value) {
+        updateOperations.set(fieldName, value);
+        empty = false;
+        return this;
+    }
+
+    @Override
+    public FieldUpdates addAllToSet(final String fieldName, final Collection<?> values) {
+        if (!values.isEmpty()) {
+            updateOperations.addToSet(fieldName, new ArrayList<>(values));
+            empty = false;
+        }
+        return this;
+    }
+
+    @Override
+    public FieldUpdates removeAll(final String fieldName, final Collection<?> values) {
+        if (!values.isEmpty()) {
+            updateOperations.removeAll(fieldName, new ArrayList<>(values));
+            empty = false;
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    public UpdateOperations<T> getUpdateOperations() {
+        return updateOperations;
+    }
+
+}
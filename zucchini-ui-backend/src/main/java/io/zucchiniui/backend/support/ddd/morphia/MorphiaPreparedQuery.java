@@ -1,6 +1,7 @@
 package io.zucchiniui.backend.support.ddd.morphia;
 
 import io.zucchiniui.backend.support.ddd.EntityNotFoundException;
+import io.zucchiniui.backend.support.ddd.FieldUpdates;
 import io.zucchiniui.backend.support.ddd.PreparedQuery;
 import xyz.morphia.dao.DAO;
 import xyz.morphia.query.Query;
@@ -51,6 +52,16 @@ class MorphiaPreparedQuery<T> implements PreparedQuery<T> {
         stream().peek(updater).forEach(dao::save);
     }
 
+    @Override
+    public int updateFields(final Consumer<FieldUpdates> updater) {
+        final MorphiaFieldUpdates<T> fieldUpdates = new MorphiaFieldUpdates<>(dao.createUpdateOperations());
+        updater.accept(fieldUpdates);
+        if (fieldUpdates.isEmpty()) {
+            return 0;
+        }
+        return dao.update(query, fieldUpdates.getUpdateOperations()).getUpdatedCount();
+    }
+
     @Override
     public void delete() {
         dao.deleteByQuery(query);
@@ -0,0 +1,60 @@
+package io.zucchiniui.backend.support.ddd.morphia;
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
+import com.mongodb.DBObject;
+import xyz.morphia.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Raw Mongo aggregation, whose documents are matched by a Morphia query.
+ * <p>
+ * Documents are filtered by the query in a first <code>$match</code> stage, followed by the stages added to this
+ * aggregation. Results are raw Mongo objects, so they can be anything computed by the pipeline.
+ */
+public class MorphiaRawAggregation {
+
+    private final Query<?> query;
+
+    private final List<DBObject> stages = new ArrayList<>();
+
+    public MorphiaRawAggregation(final Query<?> query) {
+        this.query = query;
+    }
+
+    /**
+     * Add a stage to the pipeline.
+     *
+     * @param operator Stage operator, like <code>$group</code>
+     * @param value    Stage specification
+     */
+    public MorphiaRawAggregation addStage(final String operator, final Object value) {
+        stages.add(new BasicDBObject(operator, value));
+        return this;
+    }
+
+    @SuppressWarnings("deprecation")
+    public Stream<DBObject> stream() {
+        final List<DBObject> pipeline = new ArrayList<>(stages.size() + 1);
+        pipeline.add(new BasicDBObject("$match", query.getQueryObject()));
+        pipeline.addAll(stages);
+
+        // Groups of big collections may not fit in memory
+        final AggregationOptions options = AggregationOptions.builder()
+            .allowDiskUse(true)
+            .outputMode(AggregationOptions.OutputMode.CURSOR)
+            .build();
+
+        final Cursor cursor = query.getCollection().aggregate(pipeline, options);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+            .onClose(cursor::close);
+    }
+
+}
@@ -1,5 +1,6 @@
 package io.zucchiniui.backend.support.ddd.morphia;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import xyz.morphia.query.Query;
@@ -11,6 +12,8 @@ public class MorphiaRawQuery {
 
     private final Query<?> query;
 
+    private DBObject indexedFields;
+
     public MorphiaRawQuery(final Query<?> query) {
         this.query = query;
     }
@@ -22,11 +25,23 @@ public class MorphiaRawQuery {
         return this;
     }
 
+    /**
+     * Only fetch the given fields, without the ID and the class name stored by Morphia. If these fields are indexed,
+     * the query can be covered by the index.
+     */
+    public MorphiaRawQuery includeIndexedFieldsOnly(final String... fieldNames) {
+        indexedFields = new BasicDBObject("_id", 0);
+        for (final String fieldName : fieldNames) {
+            indexedFields.put(fieldName, 1);
+        }
+        return this;
+    }
+
     @SuppressWarnings("deprecation")
     public Stream<DBObject> stream() {
         // TODO All methods are deprecated on query object
         final DBCursor cursor = query.getCollection()
-            .find(query.getQueryObject(), query.getFieldsObject())
+            .find(query.getQueryObject(), indexedFields == null ? query.getFieldsObject() : indexedFields)
             .sort(query.getSortObject());
         return StreamSupport.stream(cursor.spliterator(), false).onClose(cursor::close);
     }
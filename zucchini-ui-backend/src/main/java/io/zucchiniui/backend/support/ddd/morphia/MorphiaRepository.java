@@ -1,14 +1,26 @@
 package io.zucchiniui.backend.support.ddd.morphia;
 
+import com.google.common.collect.Iterables;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBObject;
 import io.zucchiniui.backend.support.ddd.ConcurrentEntityModificationException;
 import io.zucchiniui.backend.support.ddd.EntityNotFoundException;
 import io.zucchiniui.backend.support.ddd.Repository;
 import xyz.morphia.dao.BasicDAO;
+import xyz.morphia.mapping.Mapper;
 
+import java.util.Collection;
 import java.util.ConcurrentModificationException;
+import java.util.List;
 
 public class MorphiaRepository<T, I> implements Repository<T, I> {
 
+    /**
+     * Max number of documents sent in a single bulk write.
+     */
+    private static final int BULK_WRITE_SIZE = 500;
+
     private final BasicDAO<T, I> dao;
 
     public MorphiaRepository(final BasicDAO<T, I> dao) {
@@ -33,6 +45,24 @@ public class MorphiaRepository<T, I> implements Repository<T, I> {
         }
     }
 
+    @Override
+    @SuppressWarnings("deprecation")
+    public void saveAll(final Collection<T> entities) {
+        final Mapper mapper = dao.getDs().getMapper();
+        if (mapper.getMappedClass(dao.getEntityClass()).getMappedVersionField() != null) {
+            throw new UnsupportedOperationException("Can't bulk save versioned entities of type " + dao.getEntityClass());
+        }
+
+        for (final List<T> batch : Iterables.partition(entities, BULK_WRITE_SIZE)) {
+            final BulkWriteOperation bulkWrite = dao.getCollection().initializeUnorderedBulkOperation();
+            for (final T entity : batch) {
+                final DBObject dbObject = mapper.toDBObject(entity);
+                bulkWrite.find(new BasicDBObject(Mapper.ID_KEY, dbObject.get(Mapper.ID_KEY))).upsert().replaceOne(dbObject);
+            }
+            bulkWrite.execute();
+        }
+    }
+
     @Override
     public void delete(final T entity) {
         dao.delete(entity);
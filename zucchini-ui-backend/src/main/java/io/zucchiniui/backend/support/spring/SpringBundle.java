@@ -2,6 +2,7 @@ package io.zucchiniui.backend.support.spring;
 
 import io.dropwizard.Configuration;
 import io.dropwizard.ConfiguredBundle;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
@@ -40,6 +41,11 @@ public class SpringBundle implements ConfiguredBundle<Configuration> {
             LOGGER.info("Registring resource {}", name);
             environment.jersey().register(resource);
         });
+
+        applicationContext.getBeansOfType(Managed.class).forEach((name, managed) -> {
+            LOGGER.info("Registring managed object {}", name);
+            environment.lifecycle().manage(managed);
+        });
     }
 
 }
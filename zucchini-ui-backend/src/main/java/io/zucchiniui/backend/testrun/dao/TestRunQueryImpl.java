@@ -5,6 +5,8 @@ import io.zucchiniui.backend.testrun.domain.TestRun;
 import io.zucchiniui.backend.testrun.domain.TestRunQuery;
 import xyz.morphia.query.Query;
 
+import java.util.Collection;
+
 class TestRunQueryImpl extends BaseMorphiaQuery<TestRun> implements TestRunQuery {
 
     protected TestRunQueryImpl(final Query<TestRun> query) {
@@ -17,9 +19,31 @@ class TestRunQueryImpl extends BaseMorphiaQuery<TestRun> implements TestRunQuery
         return this;
     }
 
+    @Override
+    public TestRunQuery withIdIn(final Collection<String> ids) {
+        configureQuery(q -> q.field("id").in(ids));
+        return this;
+    }
+
+    @Override
+    public TestRunQuery olderThan(final TestRun testRun) {
+        configureQuery(q -> {
+            q.or(
+                q.criteria("date").lessThan(testRun.getDate()),
+                q.and(
+                    q.criteria("date").equal(testRun.getDate()),
+                    q.criteria("id").lessThan(testRun.getId())
+                )
+            );
+            return q;
+        });
+        return this;
+    }
+
     @Override
     public TestRunQuery orderByLatestFirst() {
-        configureQuery(q -> q.order("-date"));
+        // Test runs of the same date are ordered by ID, so they can be paged
+        configureQuery(q -> q.order("-date,-id"));
         return this;
     }
 
@@ -1,9 +1,20 @@
 package io.zucchiniui.backend.testrun.domain;
 
+import java.util.Collection;
+
 public interface TestRunQuery {
 
     TestRunQuery orderByLatestFirst();
 
     TestRunQuery withType(String type);
 
+    TestRunQuery withIdIn(Collection<String> ids);
+
+    /**
+     * Only select test runs following a test run, in the order of {@link #orderByLatestFirst()}.
+     *
+     * @param testRun Test run
+     */
+    TestRunQuery olderThan(TestRun testRun);
+
 }
@@ -0,0 +1,19 @@
+package io.zucchiniui.backend.testrun.rest;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class CreatedImportJobResponse {
+
+    private final String id;
+
+    @JsonCreator
+    public CreatedImportJobResponse(@JsonProperty("id") final String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+}
@@ -0,0 +1,259 @@
+package io.zucchiniui.backend.testrun.rest;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.ImportConfiguration;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limit the uploads processed at the same time by import endpoints, so a burst of uploads can't exhaust the heap.
+ * <p>
+ * An upload is admitted when less than <code>maxConcurrentImports</code> uploads are processed, and when its
+ * <code>Content-Length</code> fits in the remaining in-flight size. Uploads without a known length are counted as
+ * an equal share of the in-flight size. An upload bigger than the whole in-flight size is admitted when no other upload
+ * is processed.
+ * <p>
+ * The <code>Content-Length</code> of a compressed upload is its compressed size: once admitted, an upload is charged
+ * for the decoded bytes read through {@link Admission#charge(InputStream)} beyond its admitted size. Charged bytes
+ * never block the upload, but delay the admission of the next ones.
+ * <p>
+ * Other uploads wait in a bounded queue: they are rejected with <code>429</code> when the queue is full, and with
+ * <code>503</code> when they can't be admitted before the admission timeout. Both responses contain a
+ * <code>Retry-After</code> header. Queue depth, in-flight bytes and running imports are published as gauges.
+ */
+@Component
+public class ImportAdmissionController {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final int maxConcurrentImports;
+
+    private final long maxInFlightBytes;
+
+    private final int maxWaitingImports;
+
+    private final long admissionTimeoutNanos;
+
+    private final long retryAfterSeconds;
+
+    private final Meter rejectedImports;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private final Condition released = lock.newCondition();
+
+    private int runningImports;
+
+    private long inFlightBytes;
+
+    private int waitingImports;
+
+    public ImportAdmissionController(final Environment environment, final BackendConfiguration configuration) {
+        final ImportConfiguration importConfiguration = configuration.getImportConfiguration();
+        maxConcurrentImports = importConfiguration.getMaxConcurrentImports();
+        maxInFlightBytes = importConfiguration.getMaxInFlightSize().toBytes();
+        maxWaitingImports = importConfiguration.getMaxWaitingImports();
+        admissionTimeoutNanos = importConfiguration.getAdmissionTimeout().toNanoseconds();
+        retryAfterSeconds = Math.max(1, importConfiguration.getAdmissionTimeout().toSeconds());
+
+        final MetricRegistry metrics = environment.metrics();
+        metrics.register(MetricRegistry.name(ImportAdmissionController.class, "queueDepth"), (Gauge<Integer>) this::getWaitingImports);
+        metrics.register(MetricRegistry.name(ImportAdmissionController.class, "inFlightBytes"), (Gauge<Long>) this::getInFlightBytes);
+        metrics.register(MetricRegistry.name(ImportAdmissionController.class, "runningImports"), (Gauge<Integer>) this::getRunningImports);
+        rejectedImports = metrics.meter(MetricRegistry.name(ImportAdmissionController.class, "rejectedImports"));
+    }
+
+    /**
+     * Admit an upload request, waiting if needed.
+     *
+     * @param request Upload request
+     * @return Admission, to close once the upload has been processed
+     * @throws WebApplicationException     Too many waiting uploads (429)
+     * @throws ServiceUnavailableException Upload not admitted before the admission timeout
+     */
+    public Admission admit(final HttpServletRequest request) {
+        final long contentLength = request.getContentLengthLong();
+        return admit(contentLength >= 0 ? contentLength : maxInFlightBytes / maxConcurrentImports);
+    }
+
+    Admission admit(final long size) {
+        lock.lock();
+        try {
+            if (!canAdmit(size)) {
+                if (waitingImports >= maxWaitingImports) {
+                    rejectedImports.mark();
+                    throw new WebApplicationException(Response.status(TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                        .build());
+                }
+
+                waitingImports++;
+                try {
+                    long remainingNanos = admissionTimeoutNanos;
+                    while (!canAdmit(size)) {
+                        if (remainingNanos <= 0) {
+                            rejectedImports.mark();
+                            throw new ServiceUnavailableException("Too many imports in progress", retryAfterSeconds);
+                        }
+                        remainingNanos = released.awaitNanos(remainingNanos);
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ServiceUnavailableException("Interrupted while waiting for other imports", retryAfterSeconds);
+                } finally {
+                    waitingImports--;
+                }
+            }
+
+            runningImports++;
+            inFlightBytes += size;
+            return new Admission(size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getWaitingImports() {
+        lock.lock();
+        try {
+            return waitingImports;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getInFlightBytes() {
+        lock.lock();
+        try {
+            return inFlightBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getRunningImports() {
+        lock.lock();
+        try {
+            return runningImports;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAdmit(final long size) {
+        if (runningImports >= maxConcurrentImports) {
+            return false;
+        }
+        return runningImports == 0 || inFlightBytes + size <= maxInFlightBytes;
+    }
+
+    private void addInFlightBytes(final long size) {
+        lock.lock();
+        try {
+            inFlightBytes += size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(final long size) {
+        lock.lock();
+        try {
+            runningImports--;
+            inFlightBytes -= size;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admission of an upload, that releases its slot when closed.
+     */
+    public class Admission implements AutoCloseable {
+
+        private final AtomicLong size;
+
+        private final AtomicLong readBytes = new AtomicLong();
+
+        private boolean closed;
+
+        private Admission(final long size) {
+            this.size = new AtomicLong(size);
+        }
+
+        /**
+         * Charge this admission for the bytes read from a decoded upload stream.
+         *
+         * @param decodedStream Decoded upload stream
+         * @return Stream that charges bytes read beyond the admitted size
+         */
+        public InputStream charge(final InputStream decodedStream) {
+            return new FilterInputStream(decodedStream) {
+
+                @Override
+                public int read() throws IOException {
+                    final int b = super.read();
+                    if (b >= 0) {
+                        addReadBytes(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    final int count = super.read(b, off, len);
+                    if (count > 0) {
+                        addReadBytes(count);
+                    }
+                    return count;
+                }
+
+                @Override
+                public long skip(final long n) throws IOException {
+                    final long count = super.skip(n);
+                    addReadBytes(count);
+                    return count;
+                }
+
+            };
+        }
+
+        long getSize() {
+            return size.get();
+        }
+
+        private void addReadBytes(final long count) {
+            final long total = readBytes.addAndGet(count);
+            final long currentSize = size.get();
+            if (total > currentSize && size.compareAndSet(currentSize, total)) {
+                addInFlightBytes(total - currentSize);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(size.get());
+            }
+        }
+
+    }
+
+}
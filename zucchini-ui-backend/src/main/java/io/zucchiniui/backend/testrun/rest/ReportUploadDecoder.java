@@ -0,0 +1,170 @@
+package io.zucchiniui.backend.testrun.rest;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Strings;
+import com.google.common.io.CountingInputStream;
+import io.dropwizard.setup.Environment;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Request;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.Part;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NotSupportedException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Decode uploaded reports according to their <code>Content-Encoding</code>.
+ * <p>
+ * Uploads compressed with <code>gzip</code> or <code>deflate</code> are usually inflated by the Dropwizard gzip handler,
+ * before they reach the resource. Other supported encodings, or all encodings when the gzip handler is disabled,
+ * are decoded here. In both cases, the report is decompressed on the fly while it is read.
+ * <p>
+ * Compressed and uncompressed sizes of uploads are recorded as meters.
+ */
+@Component
+public class ReportUploadDecoder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Meter compressedBytes;
+
+    private final Meter uncompressedBytes;
+
+    public ReportUploadDecoder(final Environment environment) {
+        final MetricRegistry metrics = environment.metrics();
+        compressedBytes = metrics.meter(MetricRegistry.name(ReportUploadDecoder.class, "compressedBytes"));
+        uncompressedBytes = metrics.meter(MetricRegistry.name(ReportUploadDecoder.class, "uncompressedBytes"));
+    }
+
+    /**
+     * Decode an uploaded report.
+     *
+     * @param request Upload request
+     * @param body    Request body
+     * @return Decoded report stream, whose sizes are recorded when it is closed
+     * @throws IOException           Can't read the body
+     * @throws NotSupportedException Unsupported content encoding
+     * @throws BadRequestException   Body isn't encoded as declared
+     */
+    public InputStream decode(final HttpServletRequest request, final InputStream body) throws IOException {
+        final String contentEncoding = normalizeContentEncoding(request.getHeader(HttpHeader.CONTENT_ENCODING.asString()));
+
+        final CountingInputStream compressedStream = new CountingInputStream(body);
+        final InputStream decodedStream = decode(contentEncoding, compressedStream);
+
+        // When the gzip handler has inflated the upload, bytes read from the connection are the compressed bytes
+        final Request baseRequest = Request.getBaseRequest(request);
+        final boolean inflatedByHandler = contentEncoding.isEmpty()
+            && baseRequest != null
+            && baseRequest.getHeader(HttpHeader.CONTENT_ENCODING.asString()) != null;
+        final LongSupplier compressedSize = inflatedByHandler ? baseRequest.getHttpInput()::getContentConsumed : compressedStream::getCount;
+
+        return new MeteredInputStream(decodedStream, compressedSize);
+    }
+
+    /**
+     * Decode a report uploaded as a part of a multipart upload, according to the <code>Content-Encoding</code> of the
+     * part. Parts are never inflated by the gzip handler.
+     *
+     * @param part Upload part
+     * @return Decoded report stream, whose sizes are recorded when it is closed
+     * @throws IOException           Can't read the part
+     * @throws NotSupportedException Unsupported content encoding
+     * @throws BadRequestException   Part isn't encoded as declared
+     */
+    public InputStream decode(final Part part) throws IOException {
+        final String contentEncoding = normalizeContentEncoding(part.getHeader(HttpHeader.CONTENT_ENCODING.asString()));
+
+        final CountingInputStream compressedStream = new CountingInputStream(part.getInputStream());
+        return new MeteredInputStream(decode(contentEncoding, compressedStream), compressedStream::getCount);
+    }
+
+    private static String normalizeContentEncoding(final String contentEncoding) {
+        return Strings.nullToEmpty(contentEncoding).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static InputStream decode(final String contentEncoding, final InputStream compressedStream) throws IOException {
+        try {
+            switch (contentEncoding) {
+                case "":
+                case "identity":
+                    return compressedStream;
+                case "gzip":
+                case "x-gzip":
+                    return new GZIPInputStream(compressedStream, BUFFER_SIZE);
+                case "deflate":
+                    return new InflaterInputStream(compressedStream);
+                default:
+                    throw new NotSupportedException("Unsupported content encoding: " + contentEncoding);
+            }
+        } catch (final ZipException e) {
+            throw new BadRequestException("Upload is not encoded with " + contentEncoding, e);
+        }
+    }
+
+    private class MeteredInputStream extends FilterInputStream {
+
+        private final LongSupplier compressedSize;
+
+        private long uncompressedSize;
+
+        private boolean closed;
+
+        MeteredInputStream(final InputStream in, final LongSupplier compressedSize) {
+            super(in);
+            this.compressedSize = compressedSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                uncompressedSize++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int count = super.read(b, off, len);
+            if (count > 0) {
+                uncompressedSize += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long count = super.skip(n);
+            uncompressedSize += count;
+            return count;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                compressedBytes.mark(compressedSize.getAsLong());
+                uncompressedBytes.mark(uncompressedSize);
+            }
+            super.close();
+        }
+
+    }
+
+}
@@ -2,7 +2,13 @@ package io.zucchiniui.backend.testrun.rest;
 
 
 import com.google.common.base.Strings;
+import com.google.common.io.ByteSource;
 import io.dropwizard.jersey.PATCH;
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.importjob.domain.ImportJob;
+import io.zucchiniui.backend.importjob.domain.ImportJobService;
+import io.zucchiniui.backend.importjob.domain.SpooledReport;
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
 import io.zucchiniui.backend.reportconverter.domain.ReportConverterService;
 import io.zucchiniui.backend.testrun.domain.Label;
 import io.zucchiniui.backend.testrun.domain.TestRun;
@@ -12,10 +18,15 @@ import io.zucchiniui.backend.testrun.domain.TestRunService;
 import io.zucchiniui.backend.testrun.views.TestRunListItem;
 import io.zucchiniui.backend.testrun.views.TestRunScenarioDiff;
 import io.zucchiniui.backend.testrun.views.TestRunViewAccess;
+import org.eclipse.jetty.server.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.Part;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
@@ -23,11 +34,15 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -39,6 +54,17 @@ public class TestRunResource {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TestRunResource.class);
 
+    private static final long IMPORT_RETRY_AFTER_SECONDS = 30;
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final String CUCUMBER_MESSAGES_MEDIA_TYPE = "application/x-ndjson";
+
+    /**
+     * Parts of multipart uploads bigger than this size are spooled to disk by the servlet container.
+     */
+    private static final int MULTIPART_FILE_SIZE_THRESHOLD = 64 * 1024;
+
     private final TestRunRepository testRunRepository;
 
     private final TestRunService testRunService;
@@ -47,18 +73,39 @@ public class TestRunResource {
 
     private final ReportConverterService reportConverterService;
 
+    private final ImportJobService importJobService;
+
+    private final ReportUploadDecoder reportUploadDecoder;
+
+    private final ImportAdmissionController importAdmissionController;
+
+    private final MultipartConfigElement multipartConfig;
+
     private UriInfo uriInfo;
 
     public TestRunResource(
         final TestRunRepository testRunRepository,
         final TestRunService testRunService,
         final TestRunViewAccess testRunViewAccess,
-        final ReportConverterService reportConverterService
+        final ReportConverterService reportConverterService,
+        final ImportJobService importJobService,
+        final ReportUploadDecoder reportUploadDecoder,
+        final ImportAdmissionController importAdmissionController,
+        final BackendConfiguration configuration
     ) {
         this.testRunRepository = testRunRepository;
         this.testRunService = testRunService;
         this.testRunViewAccess = testRunViewAccess;
         this.reportConverterService = reportConverterService;
+        this.importJobService = importJobService;
+        this.reportUploadDecoder = reportUploadDecoder;
+        this.importAdmissionController = importAdmissionController;
+        multipartConfig = new MultipartConfigElement(
+            configuration.getImportConfiguration().getSpoolDirectory(),
+            -1,
+            -1,
+            MULTIPART_FILE_SIZE_THRESHOLD
+        );
     }
 
     @Context
@@ -130,17 +177,165 @@ public class TestRunResource {
 
     @POST
     @Path("{testRunId}/import")
-    public void importCucumberReport(
+    public Response importCucumberReport(
         @PathParam("testRunId") final String testRunId,
         @QueryParam("group") final String groupStr,
         @QueryParam("dryRun") @DefaultValue("false") final boolean dryRun,
         @QueryParam("onlyNewScenarii") @DefaultValue("false") final boolean onlyNewScenarii,
         @QueryParam("mergeOnlyNewPassedScenarii") @DefaultValue("false") final boolean mergeOnlyNewPassedScenarii,
+        @QueryParam("async") @DefaultValue("false") final boolean async,
+        @QueryParam("force") @DefaultValue("false") final boolean force,
+        @HeaderParam(IDEMPOTENCY_KEY_HEADER) final String idempotencyKeyStr,
+        @Context final HttpServletRequest request,
         @NotNull final InputStream inputStream
+    ) throws IOException {
+        final TestRun testRun = testRunRepository.getById(testRunId);
+        final Optional<String> group = Optional.ofNullable(Strings.emptyToNull(groupStr));
+        final Optional<String> idempotencyKey = Optional.ofNullable(Strings.emptyToNull(idempotencyKeyStr));
+
+        // Retries of an import are skipped: by idempotency key before the report is read, otherwise by report digest.
+        // A forced import is never skipped, and neither is a dry run, as it is never recorded.
+        // Other import endpoints don't skip retries.
+        final boolean skipRetries = !force && !dryRun;
+        if (skipRetries && idempotencyKey.isPresent() && importJobService.isAlreadyImported(testRun.getId(), idempotencyKey.get())) {
+            return Response.ok(ImportResult.skipped()).build();
+        }
+
+        try (final ImportAdmissionController.Admission admission = importAdmissionController.admit(request)) {
+            // Compressed uploads are decompressed while they are spooled
+            final SpooledReport spooledReport;
+            try (final InputStream reportStream = admission.charge(reportUploadDecoder.decode(request, inputStream))) {
+                spooledReport = importJobService.spool(reportStream);
+            }
+
+            if (skipRetries && importJobService.isAlreadyImported(testRun.getId(), group, onlyNewScenarii, mergeOnlyNewPassedScenarii, spooledReport)) {
+                importJobService.discard(spooledReport);
+                return Response.ok(ImportResult.skipped()).build();
+            }
+
+            if (!async) {
+                final ImportResult importResult = importJobService.importNow(testRun.getId(), spooledReport, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii, idempotencyKey);
+                return Response.ok(importResult).build();
+            }
+
+            return submitImportJob(testRun, spooledReport, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii, idempotencyKey);
+        }
+    }
+
+    private Response submitImportJob(
+        final TestRun testRun,
+        final SpooledReport spooledReport,
+        final Optional<String> group,
+        final boolean dryRun,
+        final boolean onlyNewScenarii,
+        final boolean mergeOnlyNewPassedScenarii,
+        final Optional<String> idempotencyKey
     ) {
+        // Report is imported by a background job, so the request doesn't hold a worker thread during the import
+        final ImportJob importJob;
+        try {
+            importJob = importJobService.submit(testRun.getId(), spooledReport, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii, idempotencyKey);
+        } catch (final RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many pending imports", IMPORT_RETRY_AFTER_SECONDS);
+        }
+
+        final URI location = uriInfo.getBaseUriBuilder()
+            .path("/imports/{jobId}")
+            .build(importJob.getId());
+
+        final CreatedImportJobResponse response = new CreatedImportJobResponse(importJob.getId());
+        return Response.accepted(response).location(location).build();
+    }
+
+    @POST
+    @Path("{testRunId}/import")
+    @Consumes(CUCUMBER_MESSAGES_MEDIA_TYPE)
+    public ImportResult importCucumberMessages(
+        @PathParam("testRunId") final String testRunId,
+        @QueryParam("group") final String groupStr,
+        @QueryParam("dryRun") @DefaultValue("false") final boolean dryRun,
+        @QueryParam("onlyNewScenarii") @DefaultValue("false") final boolean onlyNewScenarii,
+        @QueryParam("mergeOnlyNewPassedScenarii") @DefaultValue("false") final boolean mergeOnlyNewPassedScenarii,
+        @Context final HttpServletRequest request,
+        @NotNull final InputStream inputStream
+    ) throws IOException {
         final TestRun testRun = testRunRepository.getById(testRunId);
         final Optional<String> group = Optional.ofNullable(Strings.emptyToNull(groupStr));
-        reportConverterService.convertAndSaveFeatures(testRun.getId(), inputStream, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+
+        try (final ImportAdmissionController.Admission admission = importAdmissionController.admit(request);
+             final InputStream messageStream = admission.charge(reportUploadDecoder.decode(request, inputStream))) {
+            return reportConverterService.convertAndSaveMessages(testRun.getId(), messageStream, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+        }
+    }
+
+    @POST
+    @Path("{testRunId}/import")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    public ImportResult importCucumberReports(
+        @PathParam("testRunId") final String testRunId,
+        @QueryParam("group") final String groupStr,
+        @QueryParam("dryRun") @DefaultValue("false") final boolean dryRun,
+        @QueryParam("onlyNewScenarii") @DefaultValue("false") final boolean onlyNewScenarii,
+        @QueryParam("mergeOnlyNewPassedScenarii") @DefaultValue("false") final boolean mergeOnlyNewPassedScenarii,
+        @Context final HttpServletRequest request
+    ) throws IOException {
+        final TestRun testRun = testRunRepository.getById(testRunId);
+        final Optional<String> group = Optional.ofNullable(Strings.emptyToNull(groupStr));
+
+        try (final ImportAdmissionController.Admission admission = importAdmissionController.admit(request)) {
+            // Each part is a Cucumber report, that may be compressed according to its own Content-Encoding:
+            // parts are spooled by the servlet container, then read one after the other
+            request.setAttribute(Request.__MULTIPART_CONFIG_ELEMENT, multipartConfig);
+            final Collection<Part> parts;
+            try {
+                parts = request.getParts();
+            } catch (final ServletException | IllegalStateException e) {
+                throw new BadRequestException("Invalid multipart upload", e);
+            }
+
+            try {
+                if (parts.isEmpty()) {
+                    throw new BadRequestException("No report in multipart upload");
+                }
+
+                final List<ByteSource> reports = new ArrayList<>(parts.size());
+                for (final Part part : parts) {
+                    reports.add(new ByteSource() {
+
+                        @Override
+                        public InputStream openStream() throws IOException {
+                            return admission.charge(reportUploadDecoder.decode(part));
+                        }
+
+                    });
+                }
+
+                return reportConverterService.convertAndSaveReports(testRun.getId(), reports, group, dryRun, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+            } finally {
+                for (final Part part : parts) {
+                    part.delete();
+                }
+            }
+        }
+    }
+
+    @POST
+    @Path("{testRunId}/features")
+    public ImportResult appendFeatures(
+        @PathParam("testRunId") final String testRunId,
+        @QueryParam("group") final String groupStr,
+        @QueryParam("onlyNewScenarii") @DefaultValue("false") final boolean onlyNewScenarii,
+        @QueryParam("mergeOnlyNewPassedScenarii") @DefaultValue("false") final boolean mergeOnlyNewPassedScenarii,
+        @Context final HttpServletRequest request,
+        @NotNull final InputStream inputStream
+    ) throws IOException {
+        final TestRun testRun = testRunRepository.getById(testRunId);
+        final Optional<String> group = Optional.ofNullable(Strings.emptyToNull(groupStr));
+
+        try (final ImportAdmissionController.Admission admission = importAdmissionController.admit(request);
+             final InputStream featureStream = admission.charge(reportUploadDecoder.decode(request, inputStream))) {
+            return reportConverterService.appendFeatures(testRun.getId(), featureStream, group, onlyNewScenarii, mergeOnlyNewPassedScenarii);
+        }
     }
 
     @GET
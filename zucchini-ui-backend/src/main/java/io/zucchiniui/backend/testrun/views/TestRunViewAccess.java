@@ -62,15 +62,18 @@ public class TestRunViewAccess {
             testRunStream = MorphiaUtils.streamQuery(testRunDAO.prepareTypedQuery(preparator));
         }
 
-        return testRunStream.map(testRun -> {
-                final TestRunListItem item = testRunToListItemMapper.map(testRun);
-                if (withStats) {
-                    final ScenarioStats stats = scenarioViewAccess.getStats(q -> q.withTestRunId(item.getId()));
-                    item.setStats(stats);
-                }
-                return item;
-            })
+        final List<TestRunListItem> items = testRunStream
+            .map(testRunToListItemMapper::map)
             .collect(Collectors.toList());
+
+        if (withStats) {
+            // Stats of all test runs are computed at once
+            final Set<String> testRunIds = items.stream().map(TestRunListItem::getId).collect(Collectors.toSet());
+            final Map<String, ScenarioStats> statsByTestRunId = scenarioViewAccess.getStatsByTestRunId(testRunIds);
+            items.forEach(item -> item.setStats(statsByTestRunId.getOrDefault(item.getId(), new ScenarioStats())));
+        }
+
+        return items;
     }
 
     public TestRunScenarioDiff getScenarioDiff(final String leftTestRunId, final String rightTestRunId) {
@@ -0,0 +1,54 @@
+package io.zucchiniui.backend.attachment.rest;
+
+import org.junit.Test;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ByteRangeTest {
+
+    @Test
+    public void should_parse_closed_range() {
+        final ByteRange range = ByteRange.parse("bytes=10-19", 100).get();
+
+        assertThat(range.getStart()).isEqualTo(10);
+        assertThat(range.getEnd()).isEqualTo(19);
+        assertThat(range.getRangeLength()).isEqualTo(10);
+        assertThat(range.toContentRange()).isEqualTo("bytes 10-19/100");
+    }
+
+    @Test
+    public void should_parse_open_range_and_truncate_range_to_content() {
+        assertThat(ByteRange.parse("bytes=90-", 100).get().toContentRange()).isEqualTo("bytes 90-99/100");
+        assertThat(ByteRange.parse("bytes=90-500", 100).get().toContentRange()).isEqualTo("bytes 90-99/100");
+    }
+
+    @Test
+    public void should_parse_suffix_range() {
+        assertThat(ByteRange.parse("bytes=-10", 100).get().toContentRange()).isEqualTo("bytes 90-99/100");
+        assertThat(ByteRange.parse("bytes=-500", 100).get().toContentRange()).isEqualTo("bytes 0-99/100");
+    }
+
+    @Test
+    public void should_ignore_missing_malformed_or_multiple_ranges() {
+        assertThat(ByteRange.parse(null, 100)).isEqualTo(Optional.empty());
+        assertThat(ByteRange.parse("items=0-10", 100)).isEqualTo(Optional.empty());
+        assertThat(ByteRange.parse("bytes=a-b", 100)).isEqualTo(Optional.empty());
+        assertThat(ByteRange.parse("bytes=20-10", 100)).isEqualTo(Optional.empty());
+        assertThat(ByteRange.parse("bytes=0-10,20-30", 100)).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void should_reject_unsatisfiable_range() {
+        assertThatThrownBy(() -> ByteRange.parse("bytes=100-", 100))
+            .isInstanceOf(WebApplicationException.class)
+            .satisfies(e -> {
+                assertThat(((WebApplicationException) e).getResponse().getStatus()).isEqualTo(416);
+                assertThat(((WebApplicationException) e).getResponse().getHeaderString("Content-Range")).isEqualTo("bytes */100");
+            });
+    }
+
+}
@@ -125,13 +125,15 @@ public class FeatureTest {
             new Location("other.feature", 1),
             "en"
         );
+        targetFeature.setTags(Sets.newHashSet("toto", "former"));
 
         // when
 
         targetFeature.mergeWith(sourceFeature);
 
         // then
-        assertThat(targetFeature).isEqualToIgnoringGivenFields(sourceFeature, "id", "createdAt", "modifiedAt");
+        assertThat(targetFeature).isEqualToIgnoringGivenFields(sourceFeature, "id", "createdAt", "modifiedAt", "tagsBeforeMerge");
+        assertThat(targetFeature.getTagsBeforeMerge()).containsOnly("toto", "former");
         assertThat(targetFeature.getId()).isNotEqualTo(sourceFeature.getId());
         assertThat(targetFeature.getModifiedAt()).isAfterOrEqualTo(targetFeature.getModifiedAt());
     }
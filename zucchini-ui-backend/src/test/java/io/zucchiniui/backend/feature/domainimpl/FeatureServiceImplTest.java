@@ -1,5 +1,6 @@
 package io.zucchiniui.backend.feature.domainimpl;
 
+import com.google.common.collect.Sets;
 import io.zucchiniui.backend.feature.domain.Feature;
 import io.zucchiniui.backend.feature.domain.FeatureRepository;
 import io.zucchiniui.backend.feature.domain.FeatureStatus;
@@ -7,6 +8,7 @@ import io.zucchiniui.backend.scenario.domain.Scenario;
 import io.zucchiniui.backend.scenario.domain.ScenarioRepository;
 import io.zucchiniui.backend.scenario.views.ScenarioStats;
 import io.zucchiniui.backend.scenario.views.ScenarioViewAccess;
+import io.zucchiniui.backend.support.ddd.FieldUpdates;
 import io.zucchiniui.backend.support.ddd.PreparedQuery;
 import org.junit.Rule;
 import org.junit.Test;
@@ -15,9 +17,16 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import java.util.Collections;
+import java.util.function.Consumer;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class FeatureServiceImplTest {
@@ -122,4 +131,50 @@ public class FeatureServiceImplTest {
         verify(featureRepository).delete(feature);
     }
 
+    @Test
+    public void should_update_scenarii_with_feature_tags_inside_database() throws Exception {
+        // given
+        final Feature feature = mock(Feature.class);
+        given(feature.getId()).willReturn("featureId");
+        given(feature.getTags()).willReturn(Sets.newHashSet("featureTag"));
+
+        final PreparedQuery<Scenario> scenarioQuery = mock(PreparedQuery.class, "scenarioQuery");
+        given(scenarioRepository.query(any())).willReturn(scenarioQuery);
+
+        final FieldUpdates fieldUpdates = mock(FieldUpdates.class, RETURNS_SELF);
+        given(scenarioQuery.updateFields(any())).willAnswer(invocation -> {
+            final Consumer<FieldUpdates> updater = invocation.getArgument(0);
+            updater.accept(fieldUpdates);
+            return 0;
+        });
+
+        // when
+        featureService.updateScenariiWithFeatureTags(feature, Sets.newHashSet("featureTag", "formerTag"));
+
+        // then
+        verify(scenarioQuery, times(2)).updateFields(any());
+        verify(scenarioQuery, never()).update(any());
+
+        verify(fieldUpdates).addAllToSet("allTags", Sets.newHashSet("featureTag"));
+        verify(fieldUpdates).removeAll("allTags", Collections.singleton("formerTag"));
+        verify(fieldUpdates, times(2)).set(eq("modifiedAt"), any());
+    }
+
+    @Test
+    public void should_not_remove_tags_from_scenarii_when_feature_tags_are_unchanged() throws Exception {
+        // given
+        final Feature feature = mock(Feature.class);
+        given(feature.getId()).willReturn("featureId");
+        given(feature.getTags()).willReturn(Sets.newHashSet("featureTag"));
+
+        final PreparedQuery<Scenario> scenarioQuery = mock(PreparedQuery.class, "scenarioQuery");
+        given(scenarioRepository.query(any())).willReturn(scenarioQuery);
+
+        // when
+        featureService.updateScenariiWithFeatureTags(feature, Sets.newHashSet("featureTag"));
+
+        // then
+        verify(scenarioQuery, times(1)).updateFields(any());
+    }
+
 }
@@ -0,0 +1,125 @@
+package io.zucchiniui.backend.feature.domainimpl;
+
+import com.pholser.junit.quickcheck.Property;
+import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
+import io.zucchiniui.backend.feature.domain.Feature;
+import io.zucchiniui.backend.feature.domain.FeatureRepository;
+import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.ScenarioMergeResult;
+import io.zucchiniui.backend.scenario.domain.ScenarioQuery;
+import io.zucchiniui.backend.scenario.domain.ScenarioRepository;
+import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
+import io.zucchiniui.backend.scenario.views.ScenarioStats;
+import io.zucchiniui.backend.scenario.views.ScenarioViewAccess;
+import io.zucchiniui.backend.shared.domain.BasicInfo;
+import io.zucchiniui.backend.shared.domain.Location;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(JUnitQuickcheck.class)
+public class FeatureStatusPropertiesTest {
+
+    @Property
+    @SuppressWarnings("unchecked")
+    public void status_from_merge_result_should_match_status_from_all_scenarii(
+        final List<ScenarioStatus> otherStatuses,
+        final List<ScenarioStatus> newStatuses,
+        final List<ScenarioStatus> mergedStatuses,
+        final List<ScenarioStatus> unchangedStatuses,
+        final long seed
+    ) throws Exception {
+        final Random random = new Random(seed);
+        final List<Scenario> otherScenarii = createScenarii(otherStatuses, random);
+        final ScenarioStats otherStats = createStats(otherScenarii);
+
+        final ScenarioViewAccess scenarioViewAccess = mock(ScenarioViewAccess.class);
+        given(scenarioViewAccess.getStats(any())).willReturn(otherStats);
+
+        final Feature feature = createFeature();
+        final ScenarioMergeResult mergeResult = new ScenarioMergeResult(
+            createScenarii(newStatuses, random),
+            createScenarii(mergedStatuses, random),
+            createScenarii(unchangedStatuses, random)
+        );
+
+        createFeatureService(scenarioViewAccess).calculateStatusFromMergeResult(feature, mergeResult, false);
+
+        final ScenarioStats allStats = createStats(Stream.concat(otherScenarii.stream(), mergeResult.getAllScenarii().stream())
+            .collect(Collectors.toList()));
+        assertThat(feature.getStatus()).isEqualTo(allStats.computeFeatureStatus());
+
+        // Only scenarii left out of the merge are counted in the database
+        final ArgumentCaptor<Consumer<ScenarioQuery>> preparator = ArgumentCaptor.forClass(Consumer.class);
+        verify(scenarioViewAccess).getStats(preparator.capture());
+
+        final ScenarioQuery query = mock(ScenarioQuery.class, RETURNS_SELF);
+        preparator.getValue().accept(query);
+
+        final Set<String> mergedScenarioKeys = mergeResult.getAllScenarii().stream()
+            .map(Scenario::getScenarioKey)
+            .collect(Collectors.toSet());
+        verify(query).withFeatureId(feature.getId());
+        verify(query).withScenarioKeyNotIn(mergedScenarioKeys);
+    }
+
+    @Property
+    public void status_of_new_feature_should_only_depend_on_merge_result(
+        final List<ScenarioStatus> newStatuses,
+        final long seed
+    ) throws Exception {
+        final ScenarioViewAccess scenarioViewAccess = mock(ScenarioViewAccess.class);
+
+        final Feature feature = createFeature();
+        final List<Scenario> newScenarii = createScenarii(newStatuses, new Random(seed));
+        final ScenarioMergeResult mergeResult = new ScenarioMergeResult(newScenarii, emptyList(), emptyList());
+
+        createFeatureService(scenarioViewAccess).calculateStatusFromMergeResult(feature, mergeResult, true);
+
+        assertThat(feature.getStatus()).isEqualTo(createStats(newScenarii).computeFeatureStatus());
+        verify(scenarioViewAccess, never()).getStats(any());
+    }
+
+    private static FeatureServiceImpl createFeatureService(final ScenarioViewAccess scenarioViewAccess) {
+        return new FeatureServiceImpl(mock(FeatureRepository.class), mock(ScenarioRepository.class), scenarioViewAccess);
+    }
+
+    private static Feature createFeature() {
+        return new Feature("featureKey", "testRunId", new BasicInfo("Feature", "Feature"), new Location("test.feature", 1), "en");
+    }
+
+    private static ScenarioStats createStats(final List<Scenario> scenarii) {
+        final ScenarioStats stats = new ScenarioStats();
+        scenarii.forEach(scenario -> stats.addScenarioStatus(scenario.getStatus(), scenario.isReviewed()));
+        return stats;
+    }
+
+    private static List<Scenario> createScenarii(final List<ScenarioStatus> statuses, final Random random) {
+        return statuses.stream()
+            .map(status -> {
+                final Scenario scenario = mock(Scenario.class);
+                given(scenario.getScenarioKey()).willReturn(UUID.randomUUID().toString());
+                given(scenario.getStatus()).willReturn(status);
+                given(scenario.isReviewed()).willReturn(random.nextBoolean());
+                return scenario;
+            })
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,269 @@
+package io.zucchiniui.backend.importjob.domainimpl;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.importjob.domain.ImportJob;
+import io.zucchiniui.backend.importjob.domain.ImportJobRepository;
+import io.zucchiniui.backend.importjob.domain.ImportJobStatus;
+import io.zucchiniui.backend.importjob.domain.ImportRecord;
+import io.zucchiniui.backend.importjob.domain.ImportRecordRepository;
+import io.zucchiniui.backend.importjob.domain.SpooledReport;
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
+import io.zucchiniui.backend.reportconverter.domain.ReportConverterService;
+import io.zucchiniui.backend.support.ddd.PreparedQuery;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ImportJobServiceImplTest {
+
+    private static final String TEST_RUN_ID = "testRunId";
+
+    private static final String REPORT = "[]";
+
+    private static final String REPORT_DIGEST = "4f53cda18c2baa0c0354bb5f9a3ecbe5ed12ab4d8e11ba873c2f11161202b945";
+
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+
+    @Mock
+    private ImportRecordRepository importRecordRepository;
+
+    @Mock
+    private ReportConverterService reportConverterService;
+
+    private final Map<String, ImportJob> savedJobs = new HashMap<>();
+
+    private Path spoolDirectory;
+
+    private ImportJobServiceImpl importJobService;
+
+    @Before
+    public void setUp() throws Exception {
+        spoolDirectory = Files.createDirectory(temporaryFolder.getRoot().toPath().resolve("spool"));
+        importJobService = createService(MoreExecutors.newDirectExecutorService());
+
+        willAnswer(invocation -> {
+            final ImportJob job = invocation.getArgument(0);
+            savedJobs.put(job.getId(), job);
+            return null;
+        }).given(importJobRepository).save(any());
+        given(importJobRepository.getById(anyString())).willAnswer(invocation -> savedJobs.get(invocation.<String>getArgument(0)));
+    }
+
+    @Test
+    public void should_import_spooled_report() throws Exception {
+        // given
+        final ImportResult importResult = new ImportResult();
+        importResult.addFeature(2, 3);
+        given(reportConverterService.convertAndSaveFeatures(eq(TEST_RUN_ID), any(), eq(Optional.of("group")), eq(false), eq(true), eq(false), any()))
+            .willAnswer(invocation -> {
+                final InputStream reportStream = invocation.getArgument(1);
+                assertThat(new String(ByteStreams.toByteArray(reportStream), StandardCharsets.UTF_8)).isEqualTo(REPORT);
+                return importResult;
+            });
+
+        // when
+        final ImportJob job = importJobService.submit(TEST_RUN_ID, importJobService.spool(toStream(REPORT)), Optional.of("group"), false, true, false, Optional.empty());
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.DONE);
+        assertThat(job.getFeatureCount()).isEqualTo(1);
+        assertThat(job.getInsertedScenarioCount()).isEqualTo(2);
+        assertThat(job.getUpdatedScenarioCount()).isEqualTo(3);
+        assertThat(job.getBytesRead()).isEqualTo(REPORT.length());
+        assertThat(job.getErrors()).isEmpty();
+        assertThat(spoolDirectory.toFile().list()).isEmpty();
+
+        final ArgumentCaptor<ImportRecord> importRecord = ArgumentCaptor.forClass(ImportRecord.class);
+        verify(importRecordRepository).save(importRecord.capture());
+        assertThat(importRecord.getValue().getTestRunId()).isEqualTo(TEST_RUN_ID);
+        assertThat(importRecord.getValue().getGroup()).isEqualTo("group");
+        assertThat(importRecord.getValue().isOnlyNewScenarii()).isTrue();
+        assertThat(importRecord.getValue().isMergeOnlyNewPassedScenarii()).isFalse();
+        assertThat(importRecord.getValue().getDigest()).isEqualTo(REPORT_DIGEST);
+    }
+
+    @Test
+    public void should_spool_report_and_compute_digest() throws Exception {
+        // when
+        final SpooledReport spooledReport = importJobService.spool(toStream(REPORT));
+
+        // then
+        assertThat(spooledReport.getDigest()).isEqualTo(REPORT_DIGEST);
+        assertThat(spooledReport.getSize()).isEqualTo(REPORT.length());
+        assertThat(spooledReport.getFile()).hasContent(REPORT);
+
+        importJobService.discard(spooledReport);
+        assertThat(spoolDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void should_import_spooled_report_now_and_record_import_with_idempotency_key() throws Exception {
+        // given
+        final ImportResult importResult = new ImportResult();
+        given(reportConverterService.convertAndSaveFeatures(eq(TEST_RUN_ID), any(), eq(Optional.empty()), eq(false), eq(false), eq(false)))
+            .willReturn(importResult);
+
+        // when
+        final ImportResult result = importJobService.importNow(
+            TEST_RUN_ID,
+            importJobService.spool(toStream(REPORT)),
+            Optional.empty(),
+            false,
+            false,
+            false,
+            Optional.of("key")
+        );
+
+        // then
+        assertThat(result).isSameAs(importResult);
+        assertThat(spoolDirectory.toFile().list()).isEmpty();
+
+        final ArgumentCaptor<ImportRecord> importRecord = ArgumentCaptor.forClass(ImportRecord.class);
+        verify(importRecordRepository).save(importRecord.capture());
+        assertThat(importRecord.getValue().getDigest()).isEqualTo(REPORT_DIGEST);
+        assertThat(importRecord.getValue().getIdempotencyKey()).isEqualTo("key");
+    }
+
+    @Test
+    public void should_not_record_dry_run_import() throws Exception {
+        // given
+        given(reportConverterService.convertAndSaveFeatures(anyString(), any(), any(), anyBoolean(), anyBoolean(), anyBoolean()))
+            .willReturn(new ImportResult());
+
+        // when
+        importJobService.importNow(TEST_RUN_ID, importJobService.spool(toStream(REPORT)), Optional.empty(), true, false, false, Optional.empty());
+
+        // then
+        verify(importRecordRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_find_already_imported_report() throws Exception {
+        // given
+        final PreparedQuery<ImportRecord> importRecords = Mockito.mock(PreparedQuery.class);
+        given(importRecords.tryToFindOne()).willReturn(Optional.of(new ImportRecord(TEST_RUN_ID, Optional.empty(), false, false, REPORT_DIGEST, Optional.empty())));
+        given(importRecordRepository.query(any(Consumer.class))).willReturn(importRecords);
+
+        final SpooledReport spooledReport = importJobService.spool(toStream(REPORT));
+
+        // when
+        final boolean alreadyImported = importJobService.isAlreadyImported(TEST_RUN_ID, Optional.empty(), false, false, spooledReport);
+
+        // then
+        assertThat(alreadyImported).isTrue();
+    }
+
+    @Test
+    public void should_fail_job_when_import_fails() throws Exception {
+        // given
+        given(reportConverterService.convertAndSaveFeatures(anyString(), any(), any(), anyBoolean(), anyBoolean(), anyBoolean(), any()))
+            .willThrow(new IllegalStateException("Can't parse report feature stream"));
+
+        // when
+        final ImportJob job = importJobService.submit(TEST_RUN_ID, importJobService.spool(toStream(REPORT)), Optional.empty(), false, false, false, Optional.empty());
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(job.getErrors()).containsExactly("Can't parse report feature stream");
+        assertThat(spoolDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void should_fail_job_when_executor_is_full() throws Exception {
+        // given
+        final ExecutorService fullExecutor = Mockito.mock(ExecutorService.class);
+        willThrow(new RejectedExecutionException()).given(fullExecutor).execute(any());
+        importJobService = createService(fullExecutor);
+
+        // when
+        assertThatThrownBy(() -> importJobService.submit(TEST_RUN_ID, importJobService.spool(toStream(REPORT)), Optional.empty(), false, false, false, Optional.empty()))
+            .isInstanceOf(RejectedExecutionException.class);
+
+        // then
+        assertThat(savedJobs.values()).extracting(ImportJob::getStatus).containsExactly(ImportJobStatus.FAILED);
+        assertThat(spoolDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_resume_spooled_jobs_and_fail_lost_jobs_on_start() throws Exception {
+        // given
+        final ImportJob spooledJob = new ImportJob(TEST_RUN_ID, Optional.empty(), false, false, false);
+        final Path spoolFile = Files.write(spoolDirectory.resolve(spooledJob.getId() + ".json"), REPORT.getBytes(StandardCharsets.UTF_8));
+        spooledJob.setSpooledReport(new SpooledReport(spoolFile, REPORT.length(), REPORT_DIGEST), Optional.empty());
+        spooledJob.start();
+        savedJobs.put(spooledJob.getId(), spooledJob);
+
+        final ImportJob lostJob = new ImportJob(TEST_RUN_ID, Optional.empty(), false, false, false);
+        lostJob.setSpooledReport(new SpooledReport(spoolDirectory.resolve("lost.json"), REPORT.length(), REPORT_DIGEST), Optional.empty());
+
+        final PreparedQuery<ImportJob> runningJobs = Mockito.mock(PreparedQuery.class);
+        given(runningJobs.find()).willReturn(Collections.singletonList(spooledJob));
+        final PreparedQuery<ImportJob> pendingJobs = Mockito.mock(PreparedQuery.class);
+        given(pendingJobs.find()).willReturn(Collections.singletonList(lostJob));
+        given(importJobRepository.query(any(Consumer.class))).willReturn(runningJobs, pendingJobs);
+
+        given(reportConverterService.convertAndSaveFeatures(anyString(), any(), any(), anyBoolean(), anyBoolean(), anyBoolean(), any()))
+            .willReturn(new ImportResult());
+
+        // when
+        importJobService.start();
+
+        // then
+        assertThat(spooledJob.getStatus()).isEqualTo(ImportJobStatus.DONE);
+        assertThat(lostJob.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(spoolDirectory.toFile().list()).isEmpty();
+    }
+
+    private ImportJobServiceImpl createService(final ExecutorService executor) {
+        final BackendConfiguration configuration = new BackendConfiguration();
+        configuration.getImportConfiguration().setSpoolDirectory(spoolDirectory.toString());
+        return new ImportJobServiceImpl(importJobRepository, importRecordRepository, reportConverterService, executor, configuration);
+    }
+
+    private static InputStream toStream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import io.zucchiniui.backend.shared.domain.Location;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConversionInternerTest {
+
+    @Test
+    public void should_share_converted_values() {
+        final ConversionInterner interner = new ConversionInterner();
+
+        final String keyword = interner.trim(new String("Given "));
+        final String tag = interner.tag(new String("@smoke"));
+        final Location location = interner.location(new String("Steps.java:12"), source -> new Location("Steps.java", 12));
+
+        assertThat(keyword).isEqualTo("Given");
+        assertThat(tag).isEqualTo("smoke");
+        assertThat(interner.trim(new String("Given "))).isSameAs(keyword);
+        assertThat(interner.tag(new String("@smoke"))).isSameAs(tag);
+        assertThat(interner.location(new String("Steps.java:12"), source -> new Location("Steps.java", 12))).isSameAs(location);
+    }
+
+    @Test
+    public void should_not_cache_null_values() {
+        final ConversionInterner interner = new ConversionInterner();
+
+        assertThat(interner.trim(null)).isNull();
+        assertThat(interner.location("invalid", source -> null)).isNull();
+        assertThat(interner.size()).isZero();
+    }
+
+    @Test
+    public void should_convert_without_caching_when_full() {
+        final ConversionInterner interner = new ConversionInterner(1);
+
+        final String first = interner.trim(new String("Given "));
+        final String second = interner.trim(new String("When "));
+
+        assertThat(second).isEqualTo("When");
+        assertThat(interner.trim(new String("When "))).isNotSameAs(second);
+        assertThat(interner.trim(new String("Given "))).isSameAs(first);
+        assertThat(interner.size()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,190 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import io.zucchiniui.backend.feature.domain.Feature;
+import io.zucchiniui.backend.reportconverter.report.ReportAttachmentDataDeserializer;
+import io.zucchiniui.backend.scenario.domain.Attachment;
+import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.Step;
+import io.zucchiniui.backend.scenario.domain.StepStatus;
+import io.zucchiniui.backend.shared.domain.Argument;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class MessagesReportConverterTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private AttachmentStore attachmentStore;
+
+    private MessagesReportConverter converter;
+
+    private final List<Feature> features = new ArrayList<>();
+
+    private final List<Scenario> scenarii = new ArrayList<>();
+
+    private final Map<String, byte[]> storedContents = new HashMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        given(attachmentStore.store(any(byte[].class))).willReturn("hash");
+        willAnswer(invocation -> storedContents.put(invocation.getArgument(0), ((ByteSource) invocation.getArgument(1)).read()))
+            .given(attachmentStore).store(anyString(), any(ByteSource.class));
+
+        converter = new MessagesReportConverter(new ObjectMapper(), attachmentStore, new StepTextSpiller(attachmentStore, new BackendConfiguration()));
+
+        try (final InputStream inputStream = getClass().getResourceAsStream("/messages.ndjson")) {
+            converter.read("testRunId", Optional.of("group"), inputStream, (feature, scenarioBuilder) -> {
+                features.add(feature);
+                scenarii.add(scenarioBuilder.build());
+            });
+        }
+    }
+
+    @Test
+    public void should_convert_feature_from_gherkin_document() {
+        final Feature feature = features.get(0);
+
+        assertThat(feature.getFeatureKey()).isEqualTo(ConversionUtils.stringToSha1Sum("basic-calculator"));
+        assertThat(feature.getTestRunId()).isEqualTo("testRunId");
+        assertThat(feature.getGroup()).isEqualTo("group");
+        assertThat(feature.getInfo().getKeyword()).isEqualTo("Feature");
+        assertThat(feature.getInfo().getName()).isEqualTo("Basic Calculator");
+        assertThat(feature.getDescription()).isEqualTo("Adds numbers");
+        assertThat(feature.getLocation().getFilename()).isEqualTo("features/calculator.feature");
+        assertThat(feature.getTags()).containsExactly("calc");
+    }
+
+    @Test
+    public void should_emit_each_scenario_once_finished() {
+        assertThat(scenarii).extracting(Scenario::getScenarioKey).containsExactly(
+            ConversionUtils.stringToSha1Sum("basic-calculator;add-two-numbers"),
+            ConversionUtils.stringToSha1Sum("basic-calculator;subtract;small-numbers;2")
+        );
+        assertThat(features).hasSize(2).allMatch(feature -> feature == features.get(0));
+    }
+
+    @Test
+    public void should_convert_steps_background_and_hooks() {
+        final Scenario scenario = scenarii.get(0);
+
+        assertThat(scenario.getInfo().getKeyword()).isEqualTo("Scenario");
+        assertThat(scenario.getAllTags()).containsExactly("calc");
+        assertThat(scenario.getFeatureId()).isEqualTo(features.get(0).getId());
+
+        assertThat(scenario.getBackground().getInfo().getKeyword()).isEqualTo("Background");
+        assertThat(scenario.getBackground().getSteps()).extracting(step -> step.getInfo().getName()).containsExactly("a calculator");
+
+        assertThat(scenario.getSteps()).extracting(Step::getStatus).containsExactly(StepStatus.PASSED, StepStatus.FAILED);
+
+        final Step addStep = scenario.getSteps().get(0);
+        assertThat(addStep.getInfo().getKeyword()).isEqualTo("When");
+        assertThat(addStep.getInfo().getArguments()).containsExactly(new Argument(6, "4"), new Argument(12, "5"));
+        assertThat(addStep.getDefinitionLocation().getFilename()).isEqualTo("steps/calculator_steps.rb");
+        assertThat(addStep.getOutput()).isEqualTo("adding numbers");
+        final String hash = Hashing.sha256().hashString("hello", StandardCharsets.UTF_8).toString();
+        assertThat(addStep.getAttachments()).extracting(Attachment::getHash, Attachment::getMimeType, Attachment::getLabel, Attachment::getSize)
+            .containsExactly(tuple(Optional.of(hash), "image/png", "screenshot.png", 5L));
+        assertThat(storedContents.get(hash)).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+
+        final Step resultStep = scenario.getSteps().get(1);
+        assertThat(resultStep.getErrorMessage()).isEqualTo("expected 9");
+        assertThat(resultStep.getTable()).isEqualTo(new String[][]{{"x", "y"}});
+
+        assertThat(scenario.getBeforeActions()).hasSize(1);
+        assertThat(scenario.getAfterActions()).hasSize(1);
+    }
+
+    @Test
+    public void should_convert_durations() {
+        final Scenario scenario = scenarii.get(0);
+
+        assertThat(scenario.getSteps()).extracting(Step::getDuration).containsExactly(1000L, 1000L);
+        assertThat(scenario.getBeforeActions().get(0).getDuration()).isEqualTo(1000L);
+
+        // Hooks, background steps and steps
+        assertThat(scenario.getDuration()).isEqualTo(5000L);
+    }
+
+    @Test
+    public void should_keep_last_attempt_of_retried_scenario() {
+        final Scenario scenario = scenarii.get(1);
+
+        assertThat(scenario.getInfo().getKeyword()).isEqualTo("Scenario Outline");
+        assertThat(scenario.getTags()).containsExactly("outline");
+        assertThat(scenario.getAllTags()).containsOnly("calc", "outline");
+        assertThat(scenario.getSteps()).extracting(Step::getStatus).containsExactly(StepStatus.PASSED);
+    }
+
+    @Test
+    public void should_decode_large_attachment_body_while_parsing() throws Exception {
+        // given
+        final byte[] content = new byte[ReportAttachmentDataDeserializer.MEMORY_THRESHOLD * 3 + 17];
+        new Random(42).nextBytes(content);
+
+        // Body comes first, like in reports written by Cucumber: its encoding is only known once the line is read
+        final String report = "{\"testCaseStarted\":{\"id\":\"started\",\"testCaseId\":\"testCase\"}}\n"
+            + "{\"attachment\":{\"body\":\"" + Base64.getEncoder().encodeToString(content) + "\",\"contentEncoding\":\"BASE64\","
+            + "\"mediaType\":\"video/mp4\",\"testCaseStartedId\":\"started\",\"testStepId\":\"step\"}}\n";
+
+        // when
+        readReport(report);
+
+        // then
+        assertThat(storedContents.get(Hashing.sha256().hashBytes(content).toString())).isEqualTo(content);
+        verify(attachmentStore, never()).store(any(byte[].class));
+    }
+
+    @Test
+    public void should_store_text_attachment_body_as_utf8() throws Exception {
+        // given
+        final String text = "{\"name\":\"\u00e9t\u00e9\"}";
+        final String report = "{\"testCaseStarted\":{\"id\":\"started\",\"testCaseId\":\"testCase\"}}\n"
+            + "\n"
+            + "{\"attachment\":{\"body\":\"" + text.replace("\"", "\\\"") + "\",\"contentEncoding\":\"IDENTITY\","
+            + "\"mediaType\":\"application/json\",\"testCaseStartedId\":\"started\",\"testStepId\":\"step\"}}";
+
+        // when
+        readReport(report);
+
+        // then
+        final byte[] expectedContent = text.getBytes(StandardCharsets.UTF_8);
+        assertThat(storedContents.get(Hashing.sha256().hashBytes(expectedContent).toString())).isEqualTo(expectedContent);
+    }
+
+    private void readReport(final String report) throws Exception {
+        converter.read("testRunId", Optional.empty(), new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8)), (feature, scenarioBuilder) -> {
+        });
+    }
+
+}
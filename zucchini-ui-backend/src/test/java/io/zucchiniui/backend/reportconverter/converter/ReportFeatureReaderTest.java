@@ -0,0 +1,81 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zucchiniui.backend.reportconverter.report.ReportFeature;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReportFeatureReaderTest {
+
+    private final ReportFeatureReader reader = new ReportFeatureReader(
+        new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+    );
+
+    @Test
+    public void should_read_features_one_at_a_time() throws Exception {
+        // given
+        final List<ReportFeature> reportFeatures = new ArrayList<>();
+
+        // when
+        try (final InputStream inputStream = getClass().getResourceAsStream("/report.json")) {
+            reader.read(inputStream, reportFeatures::add);
+        }
+
+        // then
+        assertThat(reportFeatures).extracting(ReportFeature::getId).containsExactly("test", "test2");
+        assertThat(reportFeatures.get(0).getElements()).hasSize(5);
+        assertThat(reportFeatures.get(1).getElements()).hasSize(10);
+    }
+
+    @Test
+    public void should_read_empty_report() throws Exception {
+        // given
+        final List<ReportFeature> reportFeatures = new ArrayList<>();
+
+        // when
+        reader.read(toStream("[]"), reportFeatures::add);
+
+        // then
+        assertThat(reportFeatures).isEmpty();
+    }
+
+    @Test
+    public void should_reject_report_that_is_not_an_array() {
+        assertThatThrownBy(() -> reader.read(toStream("{\"id\": \"test\"}"), feature -> {
+        })).isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    public void should_read_single_feature_or_array_of_features() throws Exception {
+        // given
+        final List<ReportFeature> reportFeatures = new ArrayList<>();
+
+        // when
+        reader.readOneOrMany(toStream("{\"id\": \"test\"}"), reportFeatures::add);
+        reader.readOneOrMany(toStream("[{\"id\": \"test2\"}, {\"id\": \"test3\"}]"), reportFeatures::add);
+
+        // then
+        assertThat(reportFeatures).extracting(ReportFeature::getId).containsExactly("test", "test2", "test3");
+    }
+
+    @Test
+    public void should_reject_appended_features_that_are_not_objects() {
+        assertThatThrownBy(() -> reader.readOneOrMany(toStream("\"test\""), feature -> {
+        })).isInstanceOf(JsonParseException.class);
+    }
+
+    private static InputStream toStream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
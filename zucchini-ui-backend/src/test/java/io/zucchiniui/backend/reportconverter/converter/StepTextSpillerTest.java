@@ -0,0 +1,86 @@
+package io.zucchiniui.backend.reportconverter.converter;
+
+import com.google.common.base.Strings;
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import io.zucchiniui.backend.scenario.domain.Step;
+import io.zucchiniui.backend.scenario.domain.StepBuilder;
+import io.zucchiniui.backend.scenario.domain.StepStatus;
+import io.zucchiniui.backend.shared.domain.BasicInfo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class StepTextSpillerTest {
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private AttachmentStore attachmentStore;
+
+    private StepTextSpiller stepTextSpiller;
+
+    private StepBuilder stepBuilder;
+
+    @Before
+    public void setUp() {
+        final BackendConfiguration configuration = new BackendConfiguration();
+        configuration.getImportConfiguration().setMaxInlineTextLength(10);
+        configuration.getImportConfiguration().setTextPreviewLength(4);
+        stepTextSpiller = new StepTextSpiller(attachmentStore, configuration);
+
+        stepBuilder = new StepBuilder()
+            .withInfo(new BasicInfo("Given", "step"))
+            .withStatus(StepStatus.FAILED);
+    }
+
+    @Test
+    public void should_keep_short_texts_inline() {
+        stepTextSpiller.setOutput(stepBuilder, "0123456789");
+        stepTextSpiller.setErrorMessage(stepBuilder, null);
+
+        final Step step = stepBuilder.build();
+        assertThat(step.getOutput()).isEqualTo("0123456789");
+        assertThat(step.getOutputHash()).isNull();
+        assertThat(step.getErrorMessage()).isNull();
+        assertThat(step.getErrorMessageHash()).isNull();
+        verify(attachmentStore, never()).store(any(byte[].class));
+    }
+
+    @Test
+    public void should_store_long_texts_and_keep_preview() {
+        final String errorMessage = Strings.repeat("error ", 10);
+        given(attachmentStore.store(errorMessage.getBytes(StandardCharsets.UTF_8))).willReturn("hash");
+
+        stepTextSpiller.setErrorMessage(stepBuilder, errorMessage);
+
+        final Step step = stepBuilder.build();
+        assertThat(step.getErrorMessage()).isEqualTo("erro");
+        assertThat(step.getErrorMessageHash()).isEqualTo("hash");
+    }
+
+    @Test
+    public void should_not_split_surrogate_pair_in_preview() {
+        final String output = "abc😀" + Strings.repeat("x", 10);
+        given(attachmentStore.store(any(byte[].class))).willReturn("hash");
+
+        stepTextSpiller.setOutput(stepBuilder, output);
+
+        final Step step = stepBuilder.build();
+        assertThat(step.getOutput()).isEqualTo("abc");
+        assertThat(step.getOutputHash()).isEqualTo("hash");
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.zucchiniui.backend.reportconverter.domainimpl;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FeatureImportPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void should_import_features_with_same_key_sequentially_in_submission_order() {
+        // given
+        final FeatureImportPipeline pipeline = new FeatureImportPipeline(executor, 8);
+        final List<Integer> importedParts = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger runningImports = new AtomicInteger();
+        final AtomicInteger maxRunningImports = new AtomicInteger();
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            final int part = i;
+            pipeline.submit("key", () -> {
+                maxRunningImports.accumulateAndGet(runningImports.incrementAndGet(), Math::max);
+                importedParts.add(part);
+                runningImports.decrementAndGet();
+            });
+        }
+        pipeline.await();
+
+        // then
+        assertThat(maxRunningImports.get()).isEqualTo(1);
+        assertThat(importedParts).hasSize(50).isSorted();
+    }
+
+    @Test
+    public void should_import_all_features() {
+        // given
+        final FeatureImportPipeline pipeline = new FeatureImportPipeline(executor, 2);
+        final AtomicInteger importedFeatures = new AtomicInteger();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            pipeline.submit("key" + (i % 10), importedFeatures::incrementAndGet);
+        }
+        pipeline.await();
+
+        // then
+        assertThat(importedFeatures.get()).isEqualTo(100);
+    }
+
+    @Test
+    public void should_propagate_first_failure() {
+        // given
+        final FeatureImportPipeline pipeline = new FeatureImportPipeline(executor, 8);
+        final IllegalStateException failure = new IllegalStateException("Failed");
+
+        // when
+        pipeline.submit("key1", () -> {
+            throw failure;
+        });
+
+        // then
+        assertThatThrownBy(pipeline::await).isSameAs(failure);
+    }
+
+}
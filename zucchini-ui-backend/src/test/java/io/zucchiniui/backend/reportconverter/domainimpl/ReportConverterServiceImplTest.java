@@ -1,15 +1,20 @@
 package io.zucchiniui.backend.reportconverter.domainimpl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
-import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.zucchiniui.backend.BackendConfiguration;
 import io.zucchiniui.backend.feature.domain.Feature;
 import io.zucchiniui.backend.feature.domain.FeatureRepository;
 import io.zucchiniui.backend.feature.domain.FeatureService;
 import io.zucchiniui.backend.reportconverter.converter.ConversionResult;
+import io.zucchiniui.backend.reportconverter.converter.MessagesReportConverter;
 import io.zucchiniui.backend.reportconverter.converter.ReportConverter;
+import io.zucchiniui.backend.reportconverter.converter.ReportFeatureReader;
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
 import io.zucchiniui.backend.reportconverter.report.ReportFeature;
 import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.ScenarioBuilder;
+import io.zucchiniui.backend.scenario.domain.ScenarioMergeResult;
 import io.zucchiniui.backend.scenario.domain.ScenarioRepository;
 import io.zucchiniui.backend.scenario.domain.ScenarioService;
 import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
@@ -17,23 +22,31 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.InOrder;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class ReportConverterServiceImplTest {
 
@@ -56,19 +69,26 @@ public class ReportConverterServiceImplTest {
     private ReportConverter reportConverter;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private ReportFeatureReader reportFeatureReader;
 
-    @InjectMocks
-    private ReportConverterServiceImpl service;
+    @Mock
+    private MessagesReportConverter messagesReportConverter;
 
-    private CollectionType featureListJavaType;
+    private ReportConverterServiceImpl service;
 
     @Before
-    public void initMocks() {
-        final TypeFactory typeFactory = TypeFactory.defaultInstance();
-        featureListJavaType = typeFactory.constructCollectionType(List.class, ReportFeature.class);
-
-        given(objectMapper.getTypeFactory()).willReturn(typeFactory);
+    public void setUp() {
+        service = new ReportConverterServiceImpl(
+            featureRepository,
+            featureService,
+            scenarioRepository,
+            scenarioService,
+            reportConverter,
+            reportFeatureReader,
+            messagesReportConverter,
+            MoreExecutors.newDirectExecutorService(),
+            new BackendConfiguration()
+        );
     }
 
     @Test
@@ -79,33 +99,35 @@ public class ReportConverterServiceImplTest {
         final Optional<String> group = Optional.of("toto");
 
         final ReportFeature reportFeature = mock(ReportFeature.class);
-        final List<ReportFeature> reportFeatures = singletonList(reportFeature);
-
-        given(objectMapper.readValue(inputStream, featureListJavaType)).willReturn(reportFeatures);
+        givenReportFeatures(inputStream, reportFeature);
 
         final Feature feature = mock(Feature.class);
         final Scenario scenario = mock(Scenario.class);
         final ConversionResult conversionResult = new ConversionResult(feature, singletonList(scenario));
 
-        given(reportConverter.convert(testRunId, group, reportFeature)).willReturn(conversionResult);
+        given(reportConverter.convert(eq(testRunId), eq(group), eq(reportFeature), any())).willReturn(conversionResult);
         given(featureService.tryToMergeWithExistingFeature(feature)).willReturn(feature);
-        given(scenarioService.tryToMergeWithExistingScenario(scenario, false)).willReturn(scenario);
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(singletonList(scenario), emptyList(), emptyList()));
 
         // when
-        service.convertAndSaveFeatures(testRunId, inputStream, group, false, false, false);
+        final ImportResult importResult = service.convertAndSaveFeatures(testRunId, inputStream, group, false, false, false);
 
         // then
+        assertThat(importResult.getFeatureCount()).isEqualTo(1);
+        assertThat(importResult.getInsertedScenarioCount()).isEqualTo(1);
+        assertThat(importResult.getUpdatedScenarioCount()).isZero();
 
         final InOrder inOrder = inOrder(featureRepository, featureService, scenarioRepository,
             scenarioService, reportConverter, feature, scenario);
 
-        inOrder.verify(reportConverter).convert(testRunId, group, reportFeature);
+        inOrder.verify(reportConverter).convert(eq(testRunId), eq(group), eq(reportFeature), any());
         inOrder.verify(featureService).tryToMergeWithExistingFeature(feature);
-        inOrder.verify(scenarioService).tryToMergeWithExistingScenario(scenario, false);
-        inOrder.verify(scenarioRepository).save(scenario);
-        inOrder.verify(featureService).calculateStatusFromScenarii(feature);
+        inOrder.verify(scenarioService).mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(false), eq(false));
+        inOrder.verify(scenarioRepository).saveAll(singletonList(scenario));
+        inOrder.verify(featureService).calculateStatusFromMergeResult(eq(feature), any(ScenarioMergeResult.class), eq(true));
         inOrder.verify(featureRepository).save(feature);
-        inOrder.verify(featureService).updateScenariiWithFeatureTags(feature);
+        inOrder.verify(featureService).updateScenariiWithFeatureTags(eq(feature), any());
         inOrder.verifyNoMoreInteractions();
     }
 
@@ -117,9 +139,7 @@ public class ReportConverterServiceImplTest {
         final Optional<String> group = Optional.of("toto");
 
         final ReportFeature reportFeature = mock(ReportFeature.class);
-        final List<ReportFeature> reportFeatures = singletonList(reportFeature);
-
-        given(objectMapper.readValue(inputStream, featureListJavaType)).willReturn(reportFeatures);
+        givenReportFeatures(inputStream, reportFeature);
 
         final Feature feature = mock(Feature.class);
         final Scenario scenario = mock(Scenario.class);
@@ -131,9 +151,10 @@ public class ReportConverterServiceImplTest {
             return null;
         }).given(scenario).doIgnoringChanges(any());
 
-        given(reportConverter.convert(testRunId, group, reportFeature)).willReturn(conversionResult);
+        given(reportConverter.convert(eq(testRunId), eq(group), eq(reportFeature), any())).willReturn(conversionResult);
         given(featureService.tryToMergeWithExistingFeature(feature)).willReturn(feature);
-        given(scenarioService.tryToMergeWithExistingScenario(scenario, false)).willReturn(scenario);
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(singletonList(scenario), emptyList(), emptyList()));
 
         // when
         service.convertAndSaveFeatures(testRunId, inputStream, group, true, false,false);
@@ -143,15 +164,15 @@ public class ReportConverterServiceImplTest {
         final InOrder inOrder = inOrder(featureRepository, featureService, scenarioRepository,
             scenarioService, reportConverter, feature, scenario);
 
-        inOrder.verify(reportConverter).convert(testRunId, group, reportFeature);
+        inOrder.verify(reportConverter).convert(eq(testRunId), eq(group), eq(reportFeature), any());
         inOrder.verify(scenario).doIgnoringChanges(any());
         inOrder.verify(scenario).setStatus(ScenarioStatus.NOT_RUN);
         inOrder.verify(featureService).tryToMergeWithExistingFeature(feature);
-        inOrder.verify(scenarioService).tryToMergeWithExistingScenario(scenario, false);
-        inOrder.verify(scenarioRepository).save(scenario);
-        inOrder.verify(featureService).calculateStatusFromScenarii(feature);
+        inOrder.verify(scenarioService).mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(false), eq(false));
+        inOrder.verify(scenarioRepository).saveAll(singletonList(scenario));
+        inOrder.verify(featureService).calculateStatusFromMergeResult(eq(feature), any(ScenarioMergeResult.class), eq(true));
         inOrder.verify(featureRepository).save(feature);
-        inOrder.verify(featureService).updateScenariiWithFeatureTags(feature);
+        inOrder.verify(featureService).updateScenariiWithFeatureTags(eq(feature), any());
         inOrder.verifyNoMoreInteractions();
     }
 
@@ -163,21 +184,20 @@ public class ReportConverterServiceImplTest {
         final Optional<String> group = Optional.of("toto");
 
         final ReportFeature reportFeature = mock(ReportFeature.class);
-        final List<ReportFeature> reportFeatures = singletonList(reportFeature);
-
-        given(objectMapper.readValue(inputStream, featureListJavaType)).willReturn(reportFeatures);
+        givenReportFeatures(inputStream, reportFeature);
 
         final Feature feature = mock(Feature.class, "feature");
         final Scenario scenario = mock(Scenario.class);
         final ConversionResult conversionResult = new ConversionResult(feature, singletonList(scenario));
 
-        given(reportConverter.convert(testRunId, group, reportFeature)).willReturn(conversionResult);
+        given(reportConverter.convert(eq(testRunId), eq(group), eq(reportFeature), any())).willReturn(conversionResult);
 
         final Feature existingFeature = mock(Feature.class, "existingFeature");
 
         given(featureService.tryToMergeWithExistingFeature(feature)).willReturn(existingFeature);
 
-        given(scenarioService.tryToMergeWithExistingScenario(scenario, false)).willReturn(scenario);
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(singletonList(scenario), emptyList(), emptyList()));
 
         // when
         service.convertAndSaveFeatures(testRunId, inputStream, group, false, false, false);
@@ -187,13 +207,13 @@ public class ReportConverterServiceImplTest {
         final InOrder inOrder = inOrder(featureRepository, featureService, scenarioRepository,
             scenarioService, reportConverter, feature, scenario);
 
-        inOrder.verify(reportConverter).convert(testRunId, group, reportFeature);
+        inOrder.verify(reportConverter).convert(eq(testRunId), eq(group), eq(reportFeature), any());
         inOrder.verify(featureService).tryToMergeWithExistingFeature(feature);
-        inOrder.verify(scenarioService).tryToMergeWithExistingScenario(scenario, false);
-        inOrder.verify(scenarioRepository).save(scenario);
-        inOrder.verify(featureService).calculateStatusFromScenarii(existingFeature);
+        inOrder.verify(scenarioService).mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(false), eq(false));
+        inOrder.verify(scenarioRepository).saveAll(singletonList(scenario));
+        inOrder.verify(featureService).calculateStatusFromMergeResult(eq(existingFeature), any(ScenarioMergeResult.class), eq(false));
         inOrder.verify(featureRepository).save(existingFeature);
-        inOrder.verify(featureService).updateScenariiWithFeatureTags(existingFeature);
+        inOrder.verify(featureService).updateScenariiWithFeatureTags(eq(existingFeature), any());
         inOrder.verifyNoMoreInteractions();
     }
 
@@ -205,15 +225,13 @@ public class ReportConverterServiceImplTest {
         final Optional<String> group = Optional.of("toto");
 
         final ReportFeature reportFeature = mock(ReportFeature.class);
-        final List<ReportFeature> reportFeatures = singletonList(reportFeature);
-
-        given(objectMapper.readValue(inputStream, featureListJavaType)).willReturn(reportFeatures);
+        givenReportFeatures(inputStream, reportFeature);
 
         final Feature feature = mock(Feature.class, "feature");
         final Scenario scenario = mock(Scenario.class);
         final ConversionResult conversionResult = new ConversionResult(feature, singletonList(scenario));
 
-        given(reportConverter.convert(testRunId, group, reportFeature)).willReturn(conversionResult);
+        given(reportConverter.convert(eq(testRunId), eq(group), eq(reportFeature), any())).willReturn(conversionResult);
 
         final Feature existingFeature = mock(Feature.class, "existingFeature");
 
@@ -221,7 +239,8 @@ public class ReportConverterServiceImplTest {
 
         final Scenario existingScenario = mock(Scenario.class, "existingScenario");
 
-        given(scenarioService.tryToMergeWithExistingScenario(scenario, false)).willReturn(existingScenario);
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(true), eq(false)))
+            .willReturn(new ScenarioMergeResult(emptyList(), emptyList(), singletonList(existingScenario)));
 
         // when
         service.convertAndSaveFeatures(testRunId, inputStream, group, false, true, false);
@@ -231,14 +250,161 @@ public class ReportConverterServiceImplTest {
         final InOrder inOrder = inOrder(featureRepository, featureService, scenarioRepository,
             scenarioService, reportConverter, feature, scenario, existingScenario);
 
-        inOrder.verify(reportConverter).convert(testRunId, group, reportFeature);
+        inOrder.verify(reportConverter).convert(eq(testRunId), eq(group), eq(reportFeature), any());
         inOrder.verify(featureService).tryToMergeWithExistingFeature(feature);
-        inOrder.verify(scenarioService).tryToMergeWithExistingScenario(scenario, false);
-        inOrder.verify(scenarioRepository, never()).save(existingScenario);
-        inOrder.verify(featureService).calculateStatusFromScenarii(existingFeature);
+        inOrder.verify(scenarioService).mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(true), eq(false));
+        inOrder.verify(scenarioRepository).saveAll(emptyList());
+        inOrder.verify(featureService).calculateStatusFromMergeResult(eq(existingFeature), any(ScenarioMergeResult.class), eq(false));
         inOrder.verify(featureRepository).save(existingFeature);
-        inOrder.verify(featureService).updateScenariiWithFeatureTags(existingFeature);
+        inOrder.verify(featureService).updateScenariiWithFeatureTags(eq(existingFeature), any());
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void should_append_features() throws Exception {
+        // given
+        final String testRunId = "1234";
+        final InputStream inputStream = mock(InputStream.class);
+
+        final ReportFeature reportFeature = mock(ReportFeature.class);
+        willAnswer(invocation -> {
+            final Consumer<ReportFeature> consumer = invocation.getArgument(1);
+            consumer.accept(reportFeature);
+            return null;
+        }).given(reportFeatureReader).readOneOrMany(eq(inputStream), any());
+
+        final Feature feature = mock(Feature.class);
+        final Scenario scenario = mock(Scenario.class);
+        final Scenario existingScenario = mock(Scenario.class, "existingScenario");
+        final ConversionResult conversionResult = new ConversionResult(feature, singletonList(scenario));
+
+        given(reportConverter.convert(eq(testRunId), eq(Optional.empty()), eq(reportFeature), any())).willReturn(conversionResult);
+        given(featureService.tryToMergeWithExistingFeature(feature)).willReturn(feature);
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(scenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(emptyList(), singletonList(existingScenario), emptyList()));
+
+        // when
+        final ImportResult importResult = service.appendFeatures(testRunId, inputStream, Optional.empty(), false, false);
+
+        // then
+        assertThat(importResult.getFeatureCount()).isEqualTo(1);
+        assertThat(importResult.getInsertedScenarioCount()).isZero();
+        assertThat(importResult.getUpdatedScenarioCount()).isEqualTo(1);
+
+        verify(scenarioRepository).saveAll(singletonList(existingScenario));
+        verify(featureService).calculateStatusFromMergeResult(eq(feature), any(ScenarioMergeResult.class), eq(true));
+        verify(featureRepository).save(feature);
+    }
+
+    @Test
+    public void should_convert_and_save_reports_and_update_each_feature_once() throws Exception {
+        // given
+        final String testRunId = "1234";
+        final Optional<String> group = Optional.of("toto");
+
+        final ReportFeature firstReportFeature = mock(ReportFeature.class, "firstReportFeature");
+        final ReportFeature secondReportFeature = mock(ReportFeature.class, "secondReportFeature");
+        final Iterator<ReportFeature> reportFeatures = Arrays.asList(firstReportFeature, secondReportFeature).iterator();
+        willAnswer(invocation -> {
+            final Consumer<ReportFeature> consumer = invocation.getArgument(1);
+            consumer.accept(reportFeatures.next());
+            return null;
+        }).given(reportFeatureReader).read(any(), any());
+
+        // Both reports contain a part of the same feature
+        final Feature feature = mock(Feature.class);
+        given(feature.getFeatureKey()).willReturn("featureKey");
+        final Scenario firstScenario = mock(Scenario.class, "firstScenario");
+        final Scenario secondScenario = mock(Scenario.class, "secondScenario");
+
+        given(reportConverter.convert(eq(testRunId), eq(group), eq(firstReportFeature), any()))
+            .willReturn(new ConversionResult(feature, singletonList(firstScenario)));
+        given(reportConverter.convert(eq(testRunId), eq(group), eq(secondReportFeature), any()))
+            .willReturn(new ConversionResult(feature, singletonList(secondScenario)));
+        given(featureService.tryToMergeWithExistingFeature(feature)).willReturn(feature);
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(firstScenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(singletonList(firstScenario), emptyList(), emptyList()));
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(secondScenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(singletonList(secondScenario), emptyList(), emptyList()));
+
+        final List<ByteSource> reports = Arrays.asList(ByteSource.wrap(new byte[0]), ByteSource.wrap(new byte[0]));
+
+        // when
+        final ImportResult importResult = service.convertAndSaveReports(testRunId, reports, group, false, false, false);
+
+        // then
+        assertThat(importResult.getFeatureCount()).isEqualTo(1);
+        assertThat(importResult.getInsertedScenarioCount()).isEqualTo(2);
+        assertThat(importResult.getUpdatedScenarioCount()).isZero();
+
+        verify(scenarioRepository).saveAll(singletonList(firstScenario));
+        verify(scenarioRepository).saveAll(singletonList(secondScenario));
+        verify(featureService).calculateStatusFromScenarii(feature);
+        verify(featureService).updateScenariiWithFeatureTags(eq(feature), any());
+        verify(featureService, never()).calculateStatusFromMergeResult(any(), any(), anyBoolean());
+    }
+
+    @Test
+    public void should_convert_and_save_messages_in_batches() throws Exception {
+        // given
+        final String testRunId = "1234";
+        final Optional<String> group = Optional.of("toto");
+        final InputStream messageStream = mock(InputStream.class);
+
+        final Feature firstFeature = mock(Feature.class, "firstFeature");
+        given(firstFeature.getFeatureKey()).willReturn("firstFeatureKey");
+        final Feature secondFeature = mock(Feature.class, "secondFeature");
+        given(secondFeature.getFeatureKey()).willReturn("secondFeatureKey");
+
+        final Scenario firstScenario = mock(Scenario.class, "firstScenario");
+        final Scenario secondScenario = mock(Scenario.class, "secondScenario");
+        final Scenario thirdScenario = mock(Scenario.class, "thirdScenario");
+
+        // Scenarii of both features are interleaved
+        willAnswer(invocation -> {
+            final BiConsumer<Feature, ScenarioBuilder> consumer = invocation.getArgument(3);
+            consumer.accept(firstFeature, scenarioBuilder(firstScenario));
+            consumer.accept(secondFeature, scenarioBuilder(secondScenario));
+            consumer.accept(firstFeature, scenarioBuilder(thirdScenario));
+            return null;
+        }).given(messagesReportConverter).read(eq(testRunId), eq(group), eq(messageStream), any());
+
+        given(featureService.tryToMergeWithExistingFeature(firstFeature)).willReturn(firstFeature);
+        given(featureService.tryToMergeWithExistingFeature(secondFeature)).willReturn(secondFeature);
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(Arrays.asList(firstScenario, thirdScenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(Arrays.asList(firstScenario, thirdScenario), emptyList(), emptyList()));
+        given(scenarioService.mergeWithExistingScenarii(any(), eq(singletonList(secondScenario)), eq(false), eq(false)))
+            .willReturn(new ScenarioMergeResult(singletonList(secondScenario), emptyList(), emptyList()));
+
+        // when
+        final ImportResult importResult = service.convertAndSaveMessages(testRunId, messageStream, group, false, false, false);
+
+        // then
+        assertThat(importResult.getFeatureCount()).isEqualTo(2);
+        assertThat(importResult.getInsertedScenarioCount()).isEqualTo(3);
+
+        verify(scenarioService, times(2)).mergeWithExistingScenarii(any(), any(), anyBoolean(), anyBoolean());
+        verify(scenarioRepository).saveAll(Arrays.asList(firstScenario, thirdScenario));
+        verify(scenarioRepository).saveAll(singletonList(secondScenario));
+        verify(featureRepository, times(2)).save(firstFeature);
+        verify(featureService).calculateStatusFromScenarii(firstFeature);
+        verify(featureService).calculateStatusFromScenarii(secondFeature);
+    }
+
+    private static ScenarioBuilder scenarioBuilder(final Scenario scenario) {
+        final ScenarioBuilder scenarioBuilder = mock(ScenarioBuilder.class);
+        given(scenarioBuilder.build()).willReturn(scenario);
+        return scenarioBuilder;
+    }
+
+    private void givenReportFeatures(final InputStream inputStream, final ReportFeature... reportFeatures) throws Exception {
+        willAnswer(invocation -> {
+            final Consumer<ReportFeature> consumer = invocation.getArgument(1);
+            for (final ReportFeature reportFeature : reportFeatures) {
+                consumer.accept(reportFeature);
+            }
+            return null;
+        }).given(reportFeatureReader).read(eq(inputStream), any());
+    }
+
 }
@@ -0,0 +1,64 @@
+package io.zucchiniui.backend.reportconverter.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportAttachmentDataDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void should_decode_small_attachment() throws Exception {
+        // given
+        final byte[] content = "hello".getBytes("UTF-8");
+
+        // when
+        final ReportAttachment attachment = readAttachment(content);
+
+        // then
+        assertThat(attachment.getMimeType()).isEqualTo("text/plain");
+        assertDecodedContent(attachment.getData(), content);
+    }
+
+    @Test
+    public void should_decode_large_attachment() throws Exception {
+        // given
+        final byte[] content = new byte[ReportAttachmentDataDeserializer.MEMORY_THRESHOLD * 3 + 17];
+        new Random(42).nextBytes(content);
+
+        // when
+        final ReportAttachment attachment = readAttachment(content);
+
+        // then
+        assertDecodedContent(attachment.getData(), content);
+    }
+
+    @Test
+    public void should_accept_attachment_without_data() throws Exception {
+        final ReportAttachment attachment = objectMapper.readValue("{\"mime_type\": \"text/plain\", \"data\": null}", ReportAttachment.class);
+
+        assertThat(attachment.getData()).isNull();
+    }
+
+    private ReportAttachment readAttachment(final byte[] content) throws Exception {
+        final String json = "{\"data\": \"" + BaseEncoding.base64().encode(content) + "\", \"mime_type\": \"text/plain\"}";
+        return objectMapper.readValue(json.getBytes("UTF-8"), ReportAttachment.class);
+    }
+
+    private static void assertDecodedContent(final ReportAttachmentData data, final byte[] expectedContent) throws Exception {
+        try {
+            assertThat(data.getSize()).isEqualTo(expectedContent.length);
+            assertThat(data.getSha256()).isEqualTo(Hashing.sha256().hashBytes(expectedContent).toString());
+            assertThat(data.asByteSource().read()).isEqualTo(expectedContent);
+        } finally {
+            data.release();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.zucchiniui.backend.reportgenerator;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zucchiniui.backend.reportconverter.converter.ReportFeatureReader;
+import io.zucchiniui.backend.reportconverter.report.ReportBackground;
+import io.zucchiniui.backend.reportconverter.report.ReportFeature;
+import io.zucchiniui.backend.reportconverter.report.ReportFeatureElement;
+import io.zucchiniui.backend.reportconverter.report.ReportScenario;
+import io.zucchiniui.backend.reportconverter.report.ReportStep;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportGeneratorTest {
+
+    private final ReportShape shape = new ReportShape()
+        .withSeed(42)
+        .withFeatureCount(3)
+        .withScenariiPerFeature(10)
+        .withStepsPerScenario(4)
+        .withBackgroundStepCount(2)
+        .withTableRowCount(3)
+        .withFailureRate(0.5)
+        .withEmbeddingRate(0.5)
+        .withEmbeddingSize(128);
+
+    @Test
+    public void should_generate_same_report_with_same_seed() throws Exception {
+        final byte[] report = generate(shape);
+
+        assertThat(generate(shape)).isEqualTo(report);
+        assertThat(generate(shape.withSeed(43))).isNotEqualTo(report);
+    }
+
+    @Test
+    public void should_generate_readable_report_of_requested_shape() throws Exception {
+        final List<ReportFeature> features = new ArrayList<>();
+        try (final InputStream inputStream = new ByteArrayInputStream(generate(shape))) {
+            final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+            new ReportFeatureReader(objectMapper).read(inputStream, features::add);
+        }
+
+        assertThat(features).hasSize(3);
+
+        int failedStepCount = 0;
+        int embeddingCount = 0;
+        for (final ReportFeature feature : features) {
+            assertThat(feature.getElements()).hasSize(20);
+            for (final ReportFeatureElement element : feature.getElements()) {
+                if (element instanceof ReportBackground) {
+                    assertThat(element.getSteps()).hasSize(2);
+                    continue;
+                }
+
+                assertThat(element).isInstanceOf(ReportScenario.class);
+                assertThat(element.getSteps()).hasSize(4);
+                assertThat(element.getSteps().get(0).getTableRows()).hasSize(4);
+                for (final ReportStep step : element.getSteps()) {
+                    if ("failed".equals(step.getResult().getStatus())) {
+                        assertThat(step.getResult().getErrorMessage()).contains("\n\tat cucumber.runner.Runner.runPickle");
+                        failedStepCount++;
+                    }
+                    embeddingCount += step.getEmbeddings().size();
+                }
+            }
+        }
+        assertThat(failedStepCount).isBetween(1, 29);
+        assertThat(embeddingCount).isBetween(1, 29);
+    }
+
+    private static byte[] generate(final ReportShape shape) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ReportGenerator(shape).write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+}
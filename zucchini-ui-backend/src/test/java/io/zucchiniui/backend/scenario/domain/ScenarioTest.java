@@ -339,6 +339,43 @@ public class ScenarioTest {
         assertThat(scenario.getChanges()).isEmpty();
     }
 
+    @Test
+    public void should_sum_known_durations_of_steps_and_actions() throws Exception {
+        // given
+        final ScenarioBuilder builder = new ScenarioBuilder()
+            .withTestRunId(UUID.randomUUID().toString())
+            .withFeatureId(UUID.randomUUID().toString())
+            .withScenarioKey(UUID.randomUUID().toString())
+            .withLanguage("en")
+            .withInfo(new BasicInfo("Feature", "Test"))
+            .withBackground(bb -> bb
+                .withInfo(new BasicInfo("Background", "Test"))
+                .addStep(sb -> sb.withInfo(new BasicInfo("Step", "Test")).withStatus(StepStatus.PASSED).withDuration(10L)))
+            .addBeforeAction(aab -> aab.withStatus(StepStatus.PASSED).withDuration(1L))
+            .addStep(sb -> sb.withInfo(new BasicInfo("Step", "Test")).withStatus(StepStatus.PASSED).withDuration(100L))
+            .addStep(sb -> sb.withInfo(new BasicInfo("Step", "Test")).withStatus(StepStatus.PASSED))
+            .addAfterAction(aab -> aab.withStatus(StepStatus.PASSED).withDuration(1000L));
+
+        // when
+        final Scenario scenario = builder.build();
+
+        // then
+        assertThat(scenario.getDuration()).isEqualTo(1111L);
+    }
+
+    @Test
+    public void should_have_no_duration_when_no_duration_is_known() throws Exception {
+        // given
+        final StatusTestScenarioBuilder builder = new StatusTestScenarioBuilder()
+            .withStep(StepStatus.PASSED);
+
+        // when
+        final Scenario scenario = builder.build();
+
+        // then
+        assertThat(scenario.getDuration()).isNull();
+    }
+
     private static class StatusTestScenarioBuilder {
 
         private final ScenarioBuilder scenarioBuilder = new ScenarioBuilder()
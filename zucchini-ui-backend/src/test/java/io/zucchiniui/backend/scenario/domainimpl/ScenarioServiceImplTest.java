@@ -1,6 +1,7 @@
 package io.zucchiniui.backend.scenario.domainimpl;
 
 import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.ScenarioMergeResult;
 import io.zucchiniui.backend.scenario.domain.ScenarioRepository;
 import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
 import io.zucchiniui.backend.support.ddd.PreparedQuery;
@@ -12,7 +13,10 @@ import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -128,4 +132,89 @@ public class ScenarioServiceImplTest {
         verify(existingScenario,times(0)).mergeWith(newScenario);
         assertThat(mergedScenario).isSameAs(existingScenario);
     }
+
+    @Test
+    public void mergeWithExistingScenarii_should_insert_new_and_merge_existing_scenarii() throws Exception {
+        // given
+        Scenario newScenario = mockScenario("newKey");
+        Scenario otherNewScenario = mockScenario("existingKey");
+        Scenario existingScenario = mockScenario("existingKey");
+        givenExistingScenarii(existingScenario);
+
+        // when
+        ScenarioMergeResult result = scenarioService.mergeWithExistingScenarii("featureId", Arrays.asList(newScenario, otherNewScenario), false, false);
+
+        // then
+        verify(scenarioRepository, times(1)).query(any());
+        verify(existingScenario).mergeWith(otherNewScenario);
+        assertThat(result.getNewScenarii()).containsExactly(newScenario);
+        assertThat(result.getMergedScenarii()).containsExactly(existingScenario);
+        assertThat(result.getUnchangedScenarii()).isEmpty();
+        assertThat(result.getScenariiToSave()).containsExactly(newScenario, existingScenario);
+    }
+
+    @Test
+    public void mergeWithExistingScenarii_should_merge_scenarii_with_same_key_in_new_scenarii() throws Exception {
+        // given
+        Scenario firstScenario = mockScenario("key");
+        Scenario secondScenario = mockScenario("key");
+        givenExistingScenarii();
+
+        // when
+        ScenarioMergeResult result = scenarioService.mergeWithExistingScenarii("featureId", Arrays.asList(firstScenario, secondScenario), false, false);
+
+        // then
+        verify(firstScenario).mergeWith(secondScenario);
+        assertThat(result.getNewScenarii()).containsExactly(firstScenario);
+        assertThat(result.getMergedScenarii()).isEmpty();
+    }
+
+    @Test
+    public void mergeWithExistingScenarii_with_onlyNewScenarii_should_leave_existing_scenarii_untouched() throws Exception {
+        // given
+        Scenario newScenario = mockScenario("key");
+        Scenario existingScenario = mockScenario("key");
+        givenExistingScenarii(existingScenario);
+
+        // when
+        ScenarioMergeResult result = scenarioService.mergeWithExistingScenarii("featureId", Collections.singletonList(newScenario), true, false);
+
+        // then
+        verify(existingScenario, times(0)).mergeWith(newScenario);
+        assertThat(result.getNewScenarii()).isEmpty();
+        assertThat(result.getMergedScenarii()).isEmpty();
+        assertThat(result.getUnchangedScenarii()).containsExactly(existingScenario);
+        assertThat(result.getScenariiToSave()).isEmpty();
+    }
+
+    @Test
+    public void mergeWithExistingScenarii_with_mergeOnlyNewPassedScenarii_and_existingScenario_passed_new_failed() throws Exception {
+        // given
+        Scenario newScenario = mockScenario("key");
+        Scenario existingScenario = mockScenario("key");
+        given(newScenario.getStatus()).willReturn(ScenarioStatus.FAILED);
+        given(existingScenario.getStatus()).willReturn(ScenarioStatus.PASSED);
+        givenExistingScenarii(existingScenario);
+
+        // when
+        ScenarioMergeResult result = scenarioService.mergeWithExistingScenarii("featureId", Collections.singletonList(newScenario), false, true);
+
+        // then
+        verify(existingScenario, times(0)).mergeWith(newScenario);
+        assertThat(result.getUnchangedScenarii()).containsExactly(existingScenario);
+        assertThat(result.getScenariiToSave()).isEmpty();
+    }
+
+    private static Scenario mockScenario(String scenarioKey) {
+        Scenario scenario = Mockito.mock(Scenario.class);
+        given(scenario.getScenarioKey()).willReturn(scenarioKey);
+        return scenario;
+    }
+
+    private void givenExistingScenarii(Scenario... existingScenarii) {
+        PreparedQuery preparedQuery = Mockito.mock(PreparedQuery.class);
+        given(preparedQuery.stream()).willReturn(Stream.of(existingScenarii));
+        given(scenarioRepository.query(any())).willReturn(preparedQuery);
+    }
+
 }
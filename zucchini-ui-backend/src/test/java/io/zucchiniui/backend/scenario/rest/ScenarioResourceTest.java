@@ -0,0 +1,174 @@
+package io.zucchiniui.backend.scenario.rest;
+
+import io.zucchiniui.backend.attachment.domain.AttachmentStore;
+import io.zucchiniui.backend.comment.rest.CommentResource;
+import io.zucchiniui.backend.scenario.domain.Attachment;
+import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.ScenarioRepository;
+import io.zucchiniui.backend.scenario.domain.ScenarioService;
+import io.zucchiniui.backend.scenario.views.ScenarioViewAccess;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ScenarioResourceTest {
+
+    private static final String SCENARIO_ID = "scenarioId";
+
+    private static final String ATTACHMENT_ID = "attachmentId";
+
+    private static final byte[] DATA = "inline content".getBytes(StandardCharsets.UTF_8);
+
+    private static final String STORED_ATTACHMENT_ID = "storedAttachmentId";
+
+    private static final String HASH = "hash";
+
+    private static final byte[] STORED_DATA = "stored content".getBytes(StandardCharsets.UTF_8);
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final ScenarioViewAccess scenarioViewAccess = mock(ScenarioViewAccess.class);
+
+    private final ScenarioRepository scenarioRepository = mock(ScenarioRepository.class);
+
+    private final AttachmentStore attachmentStore = mock(AttachmentStore.class);
+
+    private final Request request = mock(Request.class);
+
+    private ScenarioResource scenarioResource;
+
+    @Before
+    public void setUp() {
+        scenarioResource = new ScenarioResource(
+            scenarioViewAccess,
+            scenarioRepository,
+            mock(ScenarioService.class),
+            mock(CommentResource.Factory.class),
+            attachmentStore
+        );
+
+        // Old inline attachment: reference without hash nor size, content only found in the full scenario
+        final Attachment attachmentReference = mock(Attachment.class);
+        given(attachmentReference.getId()).willReturn(ATTACHMENT_ID);
+        given(attachmentReference.getHash()).willReturn(Optional.empty());
+        given(attachmentReference.getMimeType()).willReturn("text/plain");
+        given(scenarioViewAccess.getAttachment(SCENARIO_ID, ATTACHMENT_ID)).willReturn(Optional.of(attachmentReference));
+
+        final Attachment attachment = mock(Attachment.class);
+        given(attachment.getData()).willReturn(Optional.of(DATA));
+        final Scenario scenario = mock(Scenario.class);
+        given(scenario.findAttachmentById(ATTACHMENT_ID)).willReturn(Optional.of(attachment));
+        given(scenarioRepository.getById(SCENARIO_ID)).willReturn(scenario);
+
+        // Stored attachment: reference with hash and size, content streamed from the attachment store
+        final Attachment storedAttachment = mock(Attachment.class);
+        given(storedAttachment.getId()).willReturn(STORED_ATTACHMENT_ID);
+        given(storedAttachment.getHash()).willReturn(Optional.of(HASH));
+        given(storedAttachment.getSize()).willReturn((long) STORED_DATA.length);
+        given(storedAttachment.getMimeType()).willReturn("text/plain");
+        given(scenarioViewAccess.getAttachment(SCENARIO_ID, STORED_ATTACHMENT_ID)).willReturn(Optional.of(storedAttachment));
+        given(attachmentStore.open(HASH)).willAnswer(invocation -> Optional.of(new ByteArrayInputStream(STORED_DATA)));
+
+        given(request.evaluatePreconditions(any(EntityTag.class))).willReturn(null);
+    }
+
+    @Test
+    public void should_serve_inline_attachment_without_hash() throws Exception {
+        final Response response = scenarioResource.getAttachment(SCENARIO_ID, ATTACHMENT_ID, null, null, request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getMetadata().getFirst(HttpHeaders.CONTENT_LENGTH)).isEqualTo((long) DATA.length);
+        assertThat(readEntity(response)).isEqualTo(DATA);
+    }
+
+    @Test
+    public void should_serve_range_of_inline_attachment_without_hash() throws Exception {
+        final Response response = scenarioResource.getAttachment(SCENARIO_ID, ATTACHMENT_ID, "bytes=7-", null, request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getMetadata().getFirst("Content-Range")).isEqualTo("bytes 7-13/14");
+        assertThat(readEntity(response)).isEqualTo("content".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void should_stream_stored_attachment_from_attachment_store() throws Exception {
+        final Response response = scenarioResource.getAttachment(SCENARIO_ID, STORED_ATTACHMENT_ID, null, null, request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getMetadata().getFirst(HttpHeaders.ETAG)).isEqualTo(new EntityTag(HASH));
+        assertThat(response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL)).isEqualTo(IMMUTABLE_CACHE_CONTROL);
+        assertThat(response.getMetadata().getFirst(HttpHeaders.CONTENT_LENGTH)).isEqualTo((long) STORED_DATA.length);
+        assertThat(readEntity(response)).isEqualTo(STORED_DATA);
+        verify(attachmentStore).open(HASH);
+        verify(scenarioRepository, never()).getById(anyString());
+    }
+
+    @Test
+    public void should_answer_not_modified_to_matching_if_none_match() {
+        // If-None-Match: "hash"
+        given(request.evaluatePreconditions(new EntityTag(HASH))).willReturn(Response.notModified());
+
+        final Response response = scenarioResource.getAttachment(SCENARIO_ID, STORED_ATTACHMENT_ID, null, null, request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getMetadata().getFirst(HttpHeaders.ETAG)).isEqualTo(new EntityTag(HASH));
+        assertThat(response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL)).isEqualTo(IMMUTABLE_CACHE_CONTROL);
+        assertThat(response.getEntity()).isNull();
+        verify(attachmentStore, never()).open(anyString());
+    }
+
+    @Test
+    public void should_serve_range_of_stored_attachment_with_matching_if_range() throws Exception {
+        final Response response = scenarioResource.getAttachment(SCENARIO_ID, STORED_ATTACHMENT_ID, "bytes=7-", "\"hash\"", request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getMetadata().getFirst("Content-Range")).isEqualTo("bytes 7-13/14");
+        assertThat(readEntity(response)).isEqualTo("content".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void should_ignore_range_with_stale_if_range() throws Exception {
+        final Response response = scenarioResource.getAttachment(SCENARIO_ID, STORED_ATTACHMENT_ID, "bytes=7-", "\"oldHash\"", request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getMetadata().getFirst("Content-Range")).isNull();
+        assertThat(response.getMetadata().getFirst(HttpHeaders.CONTENT_LENGTH)).isEqualTo((long) STORED_DATA.length);
+        assertThat(readEntity(response)).isEqualTo(STORED_DATA);
+    }
+
+    @Test
+    public void should_reject_unsatisfiable_range_without_opening_content() {
+        assertThatThrownBy(() -> scenarioResource.getAttachment(SCENARIO_ID, STORED_ATTACHMENT_ID, "bytes=14-", null, request))
+            .isInstanceOfSatisfying(WebApplicationException.class, e -> {
+                assertThat(e.getResponse().getStatus()).isEqualTo(416);
+                assertThat(e.getResponse().getHeaderString("Content-Range")).isEqualTo("bytes */14");
+            });
+        verify(attachmentStore, never()).open(anyString());
+    }
+
+    private static byte[] readEntity(final Response response) throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+}
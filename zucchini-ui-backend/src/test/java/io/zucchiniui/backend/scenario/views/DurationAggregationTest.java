@@ -0,0 +1,82 @@
+package io.zucchiniui.backend.scenario.views;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class DurationAggregationTest {
+
+    @Test
+    public void should_compute_approximate_percentiles_from_buckets() {
+        // given
+        final Random random = new Random(42);
+        final List<Long> durations = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Durations from 1 µs to 1000 s
+            durations.add((long) Math.pow(10, 3 + random.nextDouble() * 9));
+        }
+
+        // Rows are grouped like the $group stages do
+        final Map<Long, long[]> bucketRows = new TreeMap<>();
+        for (final long duration : durations) {
+            final long bucket = (long) Math.floor(Math.log10(Math.max(duration, 1)) * 100);
+            final long[] countAndMax = bucketRows.computeIfAbsent(bucket, b -> new long[2]);
+            countAndMax[0]++;
+            countAndMax[1] = Math.max(countAndMax[1], duration);
+        }
+
+        final List<DBObject> buckets = new ArrayList<>();
+        bucketRows.values().forEach(countAndMax -> buckets.add(new BasicDBObject("count", countAndMax[0]).append("max", countAndMax[1])));
+        Collections.shuffle(buckets, random);
+
+        final DBObject keyRow = new BasicDBObject()
+            .append("count", (long) durations.size())
+            .append("total", durations.stream().mapToLong(Long::longValue).sum())
+            .append("max", Collections.max(durations))
+            .append("buckets", buckets);
+
+        // when
+        final DurationStats stats = DurationAggregation.toDurationStats(keyRow);
+
+        // then
+        Collections.sort(durations);
+        final long expectedP50 = durations.get((durations.size() - 1) / 2);
+        final long expectedP95 = durations.get((int) Math.floor((durations.size() - 1) * 0.95));
+
+        assertThat(buckets).hasSizeLessThanOrEqualTo(900);
+        assertThat(stats.getCount()).isEqualTo(durations.size());
+        assertThat(stats.getMax()).isEqualTo(Collections.max(durations));
+        assertThat(stats.getP50()).isGreaterThanOrEqualTo(expectedP50).isCloseTo(expectedP50, within(expectedP50 / 40));
+        assertThat(stats.getP95()).isGreaterThanOrEqualTo(expectedP95).isCloseTo(expectedP95, within(expectedP95 / 40));
+    }
+
+    @Test
+    public void should_compute_exact_percentiles_of_a_single_duration() {
+        // given
+        final DBObject keyRow = new BasicDBObject()
+            .append("count", 1)
+            .append("total", 42L)
+            .append("max", 42L)
+            .append("buckets", Arrays.asList(new BasicDBObject("count", 1).append("max", 42L)));
+
+        // when
+        final DurationStats stats = DurationAggregation.toDurationStats(keyRow);
+
+        // then
+        assertThat(stats.getP50()).isEqualTo(42);
+        assertThat(stats.getP95()).isEqualTo(42);
+        assertThat(stats.getTotal()).isEqualTo(42);
+    }
+
+}
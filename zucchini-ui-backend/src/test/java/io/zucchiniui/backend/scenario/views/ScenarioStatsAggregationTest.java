@@ -0,0 +1,85 @@
+package io.zucchiniui.backend.scenario.views;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScenarioStatsAggregationTest {
+
+    @Test
+    public void should_compute_same_stats_from_grouped_rows_as_from_scenarii() {
+        final Random random = new Random(42);
+        final ScenarioStatus[] statuses = ScenarioStatus.values();
+
+        final ScenarioStats expectedStats = new ScenarioStats();
+
+        // Rows are grouped like the $group stage does
+        final Map<DBObject, Integer> countsById = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            final ScenarioStatus status = statuses[random.nextInt(statuses.length)];
+            final boolean reviewed = random.nextBoolean();
+
+            expectedStats.addScenarioStatus(status, reviewed);
+
+            final DBObject id = new BasicDBObject("status", status.name()).append("reviewed", reviewed);
+            countsById.merge(id, 1, Integer::sum);
+        }
+
+        final ScenarioStats stats = new ScenarioStats();
+        countsById.forEach((id, count) -> ScenarioStatsAggregation.addRow(stats, new BasicDBObject("_id", id).append("count", count)));
+
+        assertThat(countsById).hasSizeLessThanOrEqualTo(8);
+        assertThat(stats).usingRecursiveComparison().isEqualTo(expectedStats);
+    }
+
+    @Test
+    public void should_count_missing_review_state_as_not_reviewed() {
+        final ScenarioStats stats = new ScenarioStats();
+
+        ScenarioStatsAggregation.addRow(stats, new BasicDBObject("_id", new BasicDBObject("status", "FAILED")).append("count", 3));
+
+        assertThat(stats.getAll().getFailed()).isEqualTo(3);
+        assertThat(stats.getNonReviewed().getFailed()).isEqualTo(3);
+        assertThat(stats.getReviewed().getCount()).isZero();
+    }
+
+    @Test
+    public void should_read_key_of_row_grouped_by_key() {
+        final DBObject id = new BasicDBObject("key", "testRunId").append("status", "PASSED").append("reviewed", true);
+        final DBObject row = new BasicDBObject("_id", id).append("count", 4);
+
+        final ScenarioStats stats = new ScenarioStats();
+        ScenarioStatsAggregation.addRow(stats, row);
+
+        assertThat(ScenarioStatsAggregation.getKey(row)).isEqualTo("testRunId");
+        assertThat(stats.getReviewed().getPassed()).isEqualTo(4);
+    }
+
+    @Test
+    public void should_compute_stats_of_key_row() {
+        final List<DBObject> statusRows = Arrays.asList(
+            new BasicDBObject("_id", new BasicDBObject("status", "PASSED").append("reviewed", true)).append("count", 5),
+            new BasicDBObject("_id", new BasicDBObject("status", "FAILED").append("reviewed", false)).append("count", 2),
+            new BasicDBObject("_id", new BasicDBObject("status", "FAILED").append("reviewed", true)).append("count", 1)
+        );
+        final DBObject keyRow = new BasicDBObject("_id", "@smoke").append("count", 8).append("rows", statusRows);
+
+        final ScenarioStats stats = ScenarioStatsAggregation.toStats(keyRow);
+
+        assertThat(stats.getAll().getCount()).isEqualTo(8);
+        assertThat(stats.getAll().getPassed()).isEqualTo(5);
+        assertThat(stats.getAll().getFailed()).isEqualTo(3);
+        assertThat(stats.getReviewed().getCount()).isEqualTo(6);
+        assertThat(stats.getNonReviewed().getFailed()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,339 @@
+package io.zucchiniui.backend.scenario.views;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import io.zucchiniui.backend.scenario.dao.ScenarioDAO;
+import io.zucchiniui.backend.scenario.domain.Scenario;
+import io.zucchiniui.backend.scenario.domain.ScenarioBuilder;
+import io.zucchiniui.backend.scenario.domain.ScenarioQuery;
+import io.zucchiniui.backend.scenario.domain.ScenarioStatus;
+import io.zucchiniui.backend.shared.domain.BasicInfo;
+import io.zucchiniui.backend.support.ddd.EntityNotFoundException;
+import io.zucchiniui.backend.support.ddd.morphia.InMemoryCollection;
+import io.zucchiniui.backend.testrun.dao.TestRunDAO;
+import io.zucchiniui.backend.testrun.domain.TestRun;
+import io.zucchiniui.backend.testrun.domain.TestRunQuery;
+import io.zucchiniui.backend.testrun.domain.TestRunRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import xyz.morphia.query.FindOptions;
+import xyz.morphia.query.MorphiaIterator;
+import xyz.morphia.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ScenarioViewAccessTest {
+
+    private static final String[] TAGS = {"@a", "@b", "@c", "@d", "@e", "@f"};
+
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ScenarioDAO scenarioDAO;
+
+    @Mock
+    private TestRunRepository testRunRepository;
+
+    @Mock
+    private TestRunDAO testRunDAO;
+
+    @Mock
+    private Query<Scenario> query;
+
+    @Mock
+    private Query<TestRun> testRunQuery;
+
+    private final InMemoryCollection scenarii = new InMemoryCollection();
+
+    private final Random random = new Random(42);
+
+    private ScenarioViewAccess scenarioViewAccess;
+
+    @Before
+    @SuppressWarnings("deprecation")
+    public void setUp() {
+        given(scenarioDAO.prepareTypedQuery(any())).willReturn(query);
+        given(query.project(anyString(), anyBoolean())).willReturn(query);
+        given(query.getQueryObject()).willReturn(new BasicDBObject());
+        given(query.getFieldsObject()).willReturn(new BasicDBObject());
+        given(query.getSortObject()).willReturn(new BasicDBObject());
+        given(query.getCollection()).willReturn(scenarii.getCollection());
+
+        given(testRunDAO.prepareTypedQuery(any())).willReturn(testRunQuery);
+
+        scenarioViewAccess = new ScenarioViewAccess(scenarioDAO, testRunRepository, testRunDAO);
+    }
+
+    @Test
+    public void should_compute_same_stats_with_aggregation_as_from_scenarii() {
+        // given
+        addRandomScenarii(500);
+
+        // when
+        final ScenarioStats aggregatedStats = scenarioViewAccess.getStats(q -> {
+        });
+        final ScenarioStats expectedStats = scenarioViewAccess.getStatsFromScenarii(q -> {
+        });
+
+        // then
+        assertThat(aggregatedStats.getAll().getCount()).isEqualTo(500);
+        assertThat(aggregatedStats).usingRecursiveComparison().isEqualTo(expectedStats);
+    }
+
+    @Test
+    public void should_compute_same_tag_stats_with_aggregation_as_from_scenarii() {
+        // given
+        addRandomScenarii(500);
+
+        // when
+        final List<ScenarioTagStats> aggregatedStats = scenarioViewAccess.getTagStats(q -> {
+        }, Collections.emptyList());
+        final List<ScenarioTagStats> expectedStats = scenarioViewAccess.getTagStatsFromScenarii(q -> {
+        }, Collections.emptyList());
+
+        // then
+        assertThat(aggregatedStats).extracting(ScenarioTagStats::getTag).containsExactly(TAGS);
+        assertThat(aggregatedStats).usingRecursiveFieldByFieldElementComparator().isEqualTo(expectedStats);
+    }
+
+    @Test
+    public void should_only_compute_stats_of_requested_tags() {
+        // given
+        addRandomScenarii(500);
+        final List<String> tags = Arrays.asList("@e", "@b", "@unknown");
+
+        // when
+        final List<ScenarioTagStats> aggregatedStats = scenarioViewAccess.getTagStats(q -> {
+        }, tags);
+        final List<ScenarioTagStats> expectedStats = scenarioViewAccess.getTagStatsFromScenarii(q -> {
+        }, tags);
+
+        // then
+        assertThat(aggregatedStats).extracting(ScenarioTagStats::getTag).containsExactly("@b", "@e");
+        assertThat(aggregatedStats).usingRecursiveFieldByFieldElementComparator().isEqualTo(expectedStats);
+    }
+
+    @Test
+    public void should_compute_stats_of_top_tags() {
+        // given
+        addRandomScenarii(500);
+
+        // when
+        final List<ScenarioTagStats> aggregatedStats = scenarioViewAccess.getTopTagStats(q -> {
+        }, Collections.emptyList(), 3);
+        final List<ScenarioTagStats> expectedStats = scenarioViewAccess.getTagStatsFromScenarii(q -> {
+        }, Collections.emptyList()).stream()
+            .sorted(Comparator.comparing((ScenarioTagStats tagStats) -> tagStats.getStats().getAll().getCount()).reversed()
+                .thenComparing(ScenarioTagStats::getTag))
+            .limit(3)
+            .collect(Collectors.toList());
+
+        // then
+        assertThat(aggregatedStats).extracting(ScenarioTagStats::getTag).containsExactly("@f", "@e", "@d");
+        assertThat(aggregatedStats).usingRecursiveFieldByFieldElementComparator().isEqualTo(expectedStats);
+    }
+
+    @Test
+    public void should_break_ties_of_top_tags_by_tag() {
+        // given
+        scenarii
+            .add(scenario(ScenarioStatus.PASSED, true, "@z", "@y"))
+            .add(scenario(ScenarioStatus.FAILED, false, "@y", "@x"))
+            .add(scenario(ScenarioStatus.PASSED, false, "@z"));
+
+        // when
+        final List<ScenarioTagStats> aggregatedStats = scenarioViewAccess.getTopTagStats(q -> {
+        }, Arrays.asList("@x", "@y", "@z"), 2);
+
+        // then
+        assertThat(aggregatedStats).extracting(ScenarioTagStats::getTag).containsExactly("@y", "@z");
+    }
+
+    @Test
+    public void should_page_scenario_history_by_test_run() {
+        // given
+        final TestRun firstTestRun = new TestRun("TYPE");
+        final TestRun secondTestRun = new TestRun("TYPE");
+        final TestRun thirdTestRun = new TestRun("TYPE");
+        for (final TestRun testRun : Arrays.asList(firstTestRun, secondTestRun, thirdTestRun)) {
+            scenarii.add(new BasicDBObject("testRunId", testRun.getId()));
+        }
+
+        // Mongo returns the page of test runs, and the scenarii of this page
+        final MorphiaIterator<TestRun, TestRun> testRunPage = iterator(thirdTestRun, secondTestRun);
+        final MorphiaIterator<Scenario, Scenario> scenarioPage = iterator(scenario(secondTestRun), scenario(thirdTestRun));
+        given(testRunQuery.fetch(any(FindOptions.class))).willReturn(testRunPage);
+        given(query.fetch()).willReturn(scenarioPage);
+
+        // when
+        final List<ScenarioHistoryItemView> history = scenarioViewAccess.getScenarioHistory("key", null, 2);
+
+        // then
+        assertThat(history).extracting(ScenarioHistoryItemView::getTestRun).containsExactly(thirdTestRun, secondTestRun);
+        assertThat(history).extracting(ScenarioHistoryItemView::getStatus).containsOnly(ScenarioStatus.NOT_RUN);
+
+        // Only indexed fields are fetched to list test runs of the scenario
+        verify(scenarii.getCollection()).find(any(), eq(new BasicDBObject("_id", 0).append("testRunId", 1)));
+
+        final ArgumentCaptor<FindOptions> findOptions = ArgumentCaptor.forClass(FindOptions.class);
+        verify(testRunQuery).fetch(findOptions.capture());
+        assertThat(findOptions.getValue().getLimit()).isEqualTo(2);
+
+        final TestRunQuery preparedTestRunQuery = prepareTestRunQuery();
+        verify(preparedTestRunQuery).withIdIn(new HashSet<>(Arrays.asList(firstTestRun.getId(), secondTestRun.getId(), thirdTestRun.getId())));
+        verify(preparedTestRunQuery).orderByLatestFirst();
+        verify(preparedTestRunQuery, never()).olderThan(any());
+
+        // Statuses are only loaded for the page
+        final List<ScenarioQuery> preparedQueries = prepareScenarioQueries(2);
+        verify(preparedQueries.get(1)).withScenarioKey("key");
+        verify(preparedQueries.get(1)).withTestRunIdIn(new HashSet<>(Arrays.asList(secondTestRun.getId(), thirdTestRun.getId())));
+    }
+
+    @Test
+    public void should_only_return_scenario_history_older_than_cursor() {
+        // given
+        final TestRun cursorTestRun = new TestRun("TYPE");
+        final TestRun olderTestRun = new TestRun("TYPE");
+        scenarii
+            .add(new BasicDBObject("testRunId", cursorTestRun.getId()))
+            .add(new BasicDBObject("testRunId", olderTestRun.getId()));
+
+        given(testRunRepository.getById(cursorTestRun.getId())).willReturn(cursorTestRun);
+        final MorphiaIterator<TestRun, TestRun> testRunPage = iterator(olderTestRun);
+        final MorphiaIterator<Scenario, Scenario> scenarioPage = iterator(scenario(olderTestRun));
+        given(testRunQuery.fetch(any(FindOptions.class))).willReturn(testRunPage);
+        given(query.fetch()).willReturn(scenarioPage);
+
+        // when
+        final List<ScenarioHistoryItemView> history = scenarioViewAccess.getScenarioHistory("key", cursorTestRun.getId(), null);
+
+        // then
+        assertThat(history).extracting(ScenarioHistoryItemView::getTestRun).containsExactly(olderTestRun);
+
+        final ArgumentCaptor<FindOptions> findOptions = ArgumentCaptor.forClass(FindOptions.class);
+        verify(testRunQuery).fetch(findOptions.capture());
+        assertThat(findOptions.getValue().getLimit()).isEqualTo(0);
+
+        verify(prepareTestRunQuery()).olderThan(cursorTestRun);
+    }
+
+    @Test
+    public void should_fail_to_get_scenario_history_before_unknown_test_run() {
+        // given
+        scenarii.add(new BasicDBObject("testRunId", "testRunId"));
+        given(testRunRepository.getById("unknown")).willThrow(new EntityNotFoundException(TestRun.class, "unknown"));
+
+        // when
+        assertThatThrownBy(() -> scenarioViewAccess.getScenarioHistory("key", "unknown", 10))
+
+            // then
+            .isInstanceOf(EntityNotFoundException.class);
+
+        verify(testRunDAO, never()).prepareTypedQuery(any());
+    }
+
+    @Test
+    public void should_get_empty_history_of_unknown_scenario() {
+        // when
+        final List<ScenarioHistoryItemView> history = scenarioViewAccess.getScenarioHistory("key", "testRunId", 10);
+
+        // then
+        assertThat(history).isEmpty();
+        verify(testRunRepository, never()).getById(any());
+        verify(testRunDAO, never()).prepareTypedQuery(any());
+    }
+
+    /**
+     * Add scenarii with random status and review state. Tags are more frequent in alphabetical order.
+     */
+    private void addRandomScenarii(final int count) {
+        final ScenarioStatus[] statuses = ScenarioStatus.values();
+        for (int i = 0; i < count; i++) {
+            final List<String> tags = new ArrayList<>();
+            for (int tagIndex = 0; tagIndex < TAGS.length; tagIndex++) {
+                if (random.nextInt(TAGS.length + 1) <= tagIndex) {
+                    tags.add(TAGS[tagIndex]);
+                }
+            }
+            scenarii.add(scenario(statuses[random.nextInt(statuses.length)], random.nextBoolean(), tags.toArray(new String[0])));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TestRunQuery prepareTestRunQuery() {
+        final ArgumentCaptor<Consumer<TestRunQuery>> preparator = ArgumentCaptor.forClass(Consumer.class);
+        verify(testRunDAO).prepareTypedQuery(preparator.capture());
+
+        final TestRunQuery preparedQuery = mock(TestRunQuery.class, RETURNS_SELF);
+        preparator.getValue().accept(preparedQuery);
+        return preparedQuery;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ScenarioQuery> prepareScenarioQueries(final int count) {
+        final ArgumentCaptor<Consumer<ScenarioQuery>> preparators = ArgumentCaptor.forClass(Consumer.class);
+        verify(scenarioDAO, times(count)).prepareTypedQuery(preparators.capture());
+
+        return preparators.getAllValues().stream()
+            .map(preparator -> {
+                final ScenarioQuery preparedQuery = mock(ScenarioQuery.class, RETURNS_SELF);
+                preparator.accept(preparedQuery);
+                return preparedQuery;
+            })
+            .collect(Collectors.toList());
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private static <T> MorphiaIterator<T, T> iterator(final T... entities) {
+        final MorphiaIterator<T, T> iterator = mock(MorphiaIterator.class);
+        given(iterator.spliterator()).willReturn(Arrays.asList(entities).spliterator());
+        return iterator;
+    }
+
+    private static Scenario scenario(final TestRun testRun) {
+        return new ScenarioBuilder()
+            .withScenarioKey("key")
+            .withFeatureId("featureId")
+            .withTestRunId(testRun.getId())
+            .withLanguage("en")
+            .withInfo(new BasicInfo("Scenario", "Name"))
+            .build();
+    }
+
+    private static DBObject scenario(final ScenarioStatus status, final boolean reviewed, final String... tags) {
+        return new BasicDBObject()
+            .append("status", status.name())
+            .append("reviewed", reviewed)
+            .append("allTags", Arrays.asList(tags));
+    }
+
+}
@@ -0,0 +1,260 @@
+package io.zucchiniui.backend.support.ddd.morphia;
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.ServerAddress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Mongo collection of documents kept in memory, to run raw queries and aggregations in tests without Mongo.
+ * <p>
+ * Only the stages and operators used by the application are supported: <code>$match</code> on equality and
+ * <code>$in</code>, <code>$project</code> by inclusion, <code>$unwind</code>, <code>$group</code> with
+ * <code>$sum</code>, <code>$max</code> and <code>$push</code>, <code>$sort</code> and <code>$limit</code>.
+ * Queries and aggregations are matched against every document.
+ */
+public final class InMemoryCollection {
+
+    private final List<DBObject> documents = new ArrayList<>();
+
+    private final DBCollection collection = mock(DBCollection.class);
+
+    public InMemoryCollection() {
+        given(collection.find(any(DBObject.class), any(DBObject.class))).willAnswer(invocation -> {
+            final DBCursor cursor = mock(DBCursor.class);
+            given(cursor.sort(any())).willReturn(cursor);
+            given(cursor.spliterator()).willAnswer(cursorInvocation -> new ArrayList<>(documents).spliterator());
+            return cursor;
+        });
+        given(collection.aggregate(anyList(), any(AggregationOptions.class))).willAnswer(invocation -> {
+            final List<DBObject> pipeline = invocation.getArgument(0);
+            return new ListCursor(aggregate(pipeline));
+        });
+    }
+
+    public InMemoryCollection add(final DBObject document) {
+        documents.add(document);
+        return this;
+    }
+
+    public DBCollection getCollection() {
+        return collection;
+    }
+
+    private List<DBObject> aggregate(final List<DBObject> pipeline) {
+        List<DBObject> results = new ArrayList<>(documents);
+        for (final DBObject stage : pipeline) {
+            final String operator = stage.keySet().iterator().next();
+            final Object value = stage.get(operator);
+            switch (operator) {
+                case "$match":
+                    results = match(results, (DBObject) value);
+                    break;
+                case "$project":
+                    results = project(results, (DBObject) value);
+                    break;
+                case "$unwind":
+                    results = unwind(results, ((String) value).substring(1));
+                    break;
+                case "$group":
+                    results = group(results, (DBObject) value);
+                    break;
+                case "$sort":
+                    results.sort(comparator((DBObject) value));
+                    break;
+                case "$limit":
+                    results = new ArrayList<>(results.subList(0, Math.min((Integer) value, results.size())));
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported stage: " + operator);
+            }
+        }
+        return results;
+    }
+
+    private static List<DBObject> match(final List<DBObject> documents, final DBObject filter) {
+        final List<DBObject> results = new ArrayList<>();
+        for (final DBObject document : documents) {
+            boolean matching = true;
+            for (final String field : filter.keySet()) {
+                final Object expected = filter.get(field);
+                final Object actual = getPath(document, field);
+                if (expected instanceof DBObject && ((DBObject) expected).containsField("$in")) {
+                    matching &= ((Collection<?>) ((DBObject) expected).get("$in")).contains(actual);
+                } else {
+                    matching &= Objects.equals(expected, actual);
+                }
+            }
+            if (matching) {
+                results.add(document);
+            }
+        }
+        return results;
+    }
+
+    private static List<DBObject> project(final List<DBObject> documents, final DBObject fields) {
+        final List<DBObject> results = new ArrayList<>();
+        for (final DBObject document : documents) {
+            final DBObject result = new BasicDBObject("_id", document.get("_id"));
+            for (final String field : fields.keySet()) {
+                if (document.containsField(field)) {
+                    result.put(field, document.get(field));
+                }
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static List<DBObject> unwind(final List<DBObject> documents, final String field) {
+        final List<DBObject> results = new ArrayList<>();
+        for (final DBObject document : documents) {
+            final Object values = document.get(field);
+            if (values instanceof Collection) {
+                for (final Object value : (Collection<?>) values) {
+                    final DBObject result = new BasicDBObject(document.toMap());
+                    result.put(field, value);
+                    results.add(result);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static List<DBObject> group(final List<DBObject> documents, final DBObject specification) {
+        final Map<Object, DBObject> groups = new LinkedHashMap<>();
+        for (final DBObject document : documents) {
+            final Object id = evaluate(document, specification.get("_id"));
+            final DBObject group = groups.computeIfAbsent(id, key -> new BasicDBObject("_id", key));
+
+            for (final String field : specification.keySet()) {
+                if ("_id".equals(field)) {
+                    continue;
+                }
+                final DBObject accumulator = (DBObject) specification.get(field);
+                final String operator = accumulator.keySet().iterator().next();
+                final Object value = evaluate(document, accumulator.get(operator));
+                accumulate(group, field, operator, value);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void accumulate(final DBObject group, final String field, final String operator, final Object value) {
+        final Object current = group.get(field);
+        switch (operator) {
+            case "$sum":
+                final long sum = current == null ? 0 : ((Number) current).longValue();
+                group.put(field, sum + (value == null ? 0 : ((Number) value).longValue()));
+                break;
+            case "$max":
+                if (current == null || compare(value, current) > 0) {
+                    group.put(field, value);
+                }
+                break;
+            case "$push":
+                final List<Object> values = current == null ? new ArrayList<>() : (List<Object>) current;
+                values.add(value);
+                group.put(field, values);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported accumulator: " + operator);
+        }
+    }
+
+    private static Object evaluate(final DBObject document, final Object expression) {
+        if (expression instanceof String && ((String) expression).startsWith("$")) {
+            return getPath(document, ((String) expression).substring(1));
+        }
+        if (expression instanceof DBObject) {
+            final DBObject result = new BasicDBObject();
+            for (final String field : ((DBObject) expression).keySet()) {
+                result.put(field, evaluate(document, ((DBObject) expression).get(field)));
+            }
+            return result;
+        }
+        return expression;
+    }
+
+    private static Object getPath(final DBObject document, final String path) {
+        Object value = document;
+        for (final String field : path.split("\\.")) {
+            if (!(value instanceof DBObject)) {
+                return null;
+            }
+            value = ((DBObject) value).get(field);
+        }
+        return value;
+    }
+
+    private static Comparator<DBObject> comparator(final DBObject sort) {
+        Comparator<DBObject> comparator = (first, second) -> 0;
+        for (final String field : sort.keySet()) {
+            final int direction = ((Number) sort.get(field)).intValue();
+            final Comparator<DBObject> fieldComparator = (first, second) -> direction * compare(getPath(first, field), getPath(second, field));
+            comparator = comparator.thenComparing(fieldComparator);
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(final Object first, final Object second) {
+        if (first instanceof Number && second instanceof Number) {
+            return Long.compare(((Number) first).longValue(), ((Number) second).longValue());
+        }
+        return ((Comparable) first).compareTo(second);
+    }
+
+    private static class ListCursor implements Cursor {
+
+        private final Iterator<DBObject> iterator;
+
+        ListCursor(final List<DBObject> results) {
+            iterator = results.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public DBObject next() {
+            return iterator.next();
+        }
+
+        @Override
+        public long getCursorId() {
+            return 0;
+        }
+
+        @Override
+        public ServerAddress getServerAddress() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
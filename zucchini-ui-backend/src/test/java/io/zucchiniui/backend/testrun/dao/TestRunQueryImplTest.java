@@ -0,0 +1,62 @@
+package io.zucchiniui.backend.testrun.dao;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+import io.zucchiniui.backend.support.morphia.ZonedDateTimeConverter;
+import io.zucchiniui.backend.testrun.domain.TestRun;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import xyz.morphia.Morphia;
+import xyz.morphia.query.Query;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestRunQueryImplTest {
+
+    private MongoClient mongoClient;
+
+    private TestRunDAO testRunDAO;
+
+    @Before
+    public void setUp() {
+        // Queries are only built, the client never connects
+        mongoClient = new MongoClient();
+
+        final Morphia morphia = new Morphia();
+        morphia.getMapper().getConverters().addConverter(ZonedDateTimeConverter.class);
+        testRunDAO = new TestRunDAO(morphia.createDatastore(mongoClient, "test"));
+    }
+
+    @After
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void should_select_test_runs_following_a_test_run() {
+        // given
+        final TestRun testRun = new TestRun("TYPE");
+        final Date date = Date.from(testRun.getDate().toInstant());
+
+        // when
+        final Query<TestRun> query = testRunDAO.prepareTypedQuery(q -> q.olderThan(testRun).orderByLatestFirst());
+
+        // then
+        final DBObject expectedQuery = new BasicDBObject("$or", Arrays.asList(
+            new BasicDBObject("date", new BasicDBObject("$lt", date)),
+            new BasicDBObject("$and", Arrays.asList(
+                new BasicDBObject("date", date),
+                new BasicDBObject("_id", new BasicDBObject("$lt", testRun.getId()))
+            ))
+        ));
+        assertThat(query.getQueryObject()).isEqualTo(expectedQuery);
+        assertThat(query.getSortObject()).isEqualTo(new BasicDBObject("date", -1).append("_id", -1));
+    }
+
+}
@@ -0,0 +1,144 @@
+package io.zucchiniui.backend.testrun.rest;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.io.ByteStreams;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+import io.zucchiniui.backend.BackendConfiguration;
+import org.junit.Test;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ImportAdmissionControllerTest {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    @Test
+    public void should_admit_uploads_within_limits() {
+        final ImportAdmissionController controller = createController(2, 100, 0, Duration.seconds(1));
+
+        try (final ImportAdmissionController.Admission first = controller.admit(40)) {
+            try (final ImportAdmissionController.Admission second = controller.admit(60)) {
+                assertThat(first.getSize() + second.getSize()).isEqualTo(100L);
+                assertThat(gaugeValue("runningImports")).isEqualTo(2);
+                assertThat(gaugeValue("inFlightBytes")).isEqualTo(100L);
+            }
+        }
+
+        assertThat(gaugeValue("runningImports")).isEqualTo(0);
+        assertThat(gaugeValue("inFlightBytes")).isEqualTo(0L);
+    }
+
+    @Test
+    public void should_admit_upload_bigger_than_in_flight_size_when_alone() {
+        final ImportAdmissionController controller = createController(2, 100, 0, Duration.seconds(1));
+
+        try (final ImportAdmissionController.Admission admission = controller.admit(500)) {
+            assertThat(admission.getSize()).isEqualTo(500L);
+            assertThat(gaugeValue("inFlightBytes")).isEqualTo(500L);
+        }
+    }
+
+    @Test
+    public void should_reject_upload_with_too_many_requests_when_queue_is_full() {
+        final ImportAdmissionController controller = createController(1, 100, 0, Duration.seconds(10));
+
+        try (final ImportAdmissionController.Admission admission = controller.admit(10)) {
+            assertThat(admission.getSize()).isEqualTo(10L);
+            assertThatThrownBy(() -> controller.admit(10))
+                .isInstanceOfSatisfying(WebApplicationException.class, e -> {
+                    assertThat(e.getResponse().getStatus()).isEqualTo(429);
+                    assertThat(e.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+                });
+        }
+    }
+
+    @Test
+    public void should_reject_upload_with_service_unavailable_after_timeout() {
+        final ImportAdmissionController controller = createController(2, 100, 1, Duration.milliseconds(50));
+
+        try (final ImportAdmissionController.Admission admission = controller.admit(80)) {
+            assertThat(admission.getSize()).isEqualTo(80L);
+            assertThatThrownBy(() -> controller.admit(80))
+                .isInstanceOfSatisfying(ServiceUnavailableException.class, e ->
+                    assertThat(e.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER)).isEqualTo("1"));
+        }
+
+        assertThat(gaugeValue("queueDepth")).isEqualTo(0);
+    }
+
+    @Test
+    public void should_admit_waiting_upload_when_other_upload_is_done() throws Exception {
+        final ImportAdmissionController controller = createController(1, 100, 1, Duration.seconds(10));
+
+        final CompletableFuture<Long> waitingUpload;
+        try (final ImportAdmissionController.Admission admission = controller.admit(10)) {
+            waitingUpload = CompletableFuture.supplyAsync(() -> {
+                try (final ImportAdmissionController.Admission waitingAdmission = controller.admit(20)) {
+                    return waitingAdmission.getSize() == controller.getInFlightBytes() ? waitingAdmission.getSize() : -1L;
+                }
+            });
+            assertThat(admission.getSize()).isEqualTo(10L);
+
+            while (controller.getWaitingImports() == 0) {
+                Thread.sleep(5);
+            }
+            assertThat(gaugeValue("queueDepth")).isEqualTo(1);
+        }
+
+        assertThat(waitingUpload.get(10, TimeUnit.SECONDS)).isEqualTo(20L);
+    }
+
+    @Test
+    public void should_charge_decoded_bytes_beyond_admitted_size() throws Exception {
+        final ImportAdmissionController controller = createController(2, 100, 0, Duration.seconds(1));
+
+        try (final ImportAdmissionController.Admission admission = controller.admit(10)) {
+            try (final InputStream decodedStream = admission.charge(new ByteArrayInputStream(new byte[150]))) {
+                ByteStreams.exhaust(decodedStream);
+            }
+            assertThat(gaugeValue("inFlightBytes")).isEqualTo(150L);
+
+            // Next upload waits for decoded bytes to be released
+            assertThatThrownBy(() -> controller.admit(10)).isInstanceOf(WebApplicationException.class);
+        }
+
+        assertThat(gaugeValue("inFlightBytes")).isEqualTo(0L);
+    }
+
+    private ImportAdmissionController createController(
+        final int maxConcurrentImports,
+        final long maxInFlightBytes,
+        final int maxWaitingImports,
+        final Duration admissionTimeout
+    ) {
+        final BackendConfiguration configuration = new BackendConfiguration();
+        configuration.getImportConfiguration().setMaxConcurrentImports(maxConcurrentImports);
+        configuration.getImportConfiguration().setMaxInFlightSize(Size.bytes(maxInFlightBytes));
+        configuration.getImportConfiguration().setMaxWaitingImports(maxWaitingImports);
+        configuration.getImportConfiguration().setAdmissionTimeout(admissionTimeout);
+
+        final Environment environment = mock(Environment.class);
+        given(environment.metrics()).willReturn(metrics);
+        return new ImportAdmissionController(environment, configuration);
+    }
+
+    private Object gaugeValue(final String name) {
+        final Gauge<?> gauge = metrics.getGauges().get(MetricRegistry.name(ImportAdmissionController.class, name));
+        return gauge.getValue();
+    }
+
+}
@@ -0,0 +1,123 @@
+package io.zucchiniui.backend.testrun.rest;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.io.ByteStreams;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.Part;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NotSupportedException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ReportUploadDecoderTest {
+
+    private static final byte[] REPORT = "[{\"id\": \"feature\", \"elements\": []}, {\"id\": \"feature\", \"elements\": []}]".getBytes(StandardCharsets.UTF_8);
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+
+    private ReportUploadDecoder decoder;
+
+    @Before
+    public void setUp() {
+        final Environment environment = mock(Environment.class);
+        given(environment.metrics()).willReturn(metrics);
+        decoder = new ReportUploadDecoder(environment);
+    }
+
+    @Test
+    public void should_read_identity_upload() throws Exception {
+        final byte[] decoded = decode(null, REPORT);
+
+        assertThat(decoded).isEqualTo(REPORT);
+        assertThat(meterCount("compressedBytes")).isEqualTo(REPORT.length);
+        assertThat(meterCount("uncompressedBytes")).isEqualTo(REPORT.length);
+    }
+
+    @Test
+    public void should_decompress_gzip_upload() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(REPORT);
+        }
+
+        final byte[] decoded = decode("x-gzip", compressed.toByteArray());
+
+        assertThat(decoded).isEqualTo(REPORT);
+        assertThat(meterCount("compressedBytes")).isEqualTo(compressed.size());
+        assertThat(meterCount("uncompressedBytes")).isEqualTo(REPORT.length);
+    }
+
+    @Test
+    public void should_decompress_deflate_upload() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final DeflaterOutputStream deflateStream = new DeflaterOutputStream(compressed)) {
+            deflateStream.write(REPORT);
+        }
+
+        assertThat(decode("deflate", compressed.toByteArray())).isEqualTo(REPORT);
+    }
+
+    @Test
+    public void should_reject_unsupported_encoding() {
+        assertThatThrownBy(() -> decode("zstd", REPORT)).isInstanceOf(NotSupportedException.class);
+    }
+
+    @Test
+    public void should_reject_upload_not_encoded_as_declared() {
+        assertThatThrownBy(() -> decode("gzip", REPORT)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    public void should_decompress_gzip_part() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(REPORT);
+        }
+
+        final Part part = mock(Part.class);
+        given(part.getHeader("Content-Encoding")).willReturn("gzip");
+        given(part.getInputStream()).willReturn(new ByteArrayInputStream(compressed.toByteArray()));
+
+        try (final InputStream decodedStream = decoder.decode(part)) {
+            assertThat(ByteStreams.toByteArray(decodedStream)).isEqualTo(REPORT);
+        }
+        assertThat(meterCount("compressedBytes")).isEqualTo(compressed.size());
+        assertThat(meterCount("uncompressedBytes")).isEqualTo(REPORT.length);
+    }
+
+    @Test
+    public void should_reject_part_with_unsupported_encoding() throws Exception {
+        final Part part = mock(Part.class);
+        given(part.getHeader("Content-Encoding")).willReturn("zstd");
+        given(part.getInputStream()).willReturn(new ByteArrayInputStream(REPORT));
+
+        assertThatThrownBy(() -> decoder.decode(part)).isInstanceOf(NotSupportedException.class);
+    }
+
+    private byte[] decode(final String contentEncoding, final byte[] body) throws Exception {
+        given(request.getHeader("Content-Encoding")).willReturn(contentEncoding);
+        try (final InputStream decodedStream = decoder.decode(request, new ByteArrayInputStream(body))) {
+            return ByteStreams.toByteArray(decodedStream);
+        }
+    }
+
+    private long meterCount(final String name) {
+        return metrics.meter(MetricRegistry.name(ReportUploadDecoder.class, name)).getCount();
+    }
+
+}
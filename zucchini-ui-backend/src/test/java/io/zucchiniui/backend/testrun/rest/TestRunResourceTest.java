@@ -0,0 +1,160 @@
+package io.zucchiniui.backend.testrun.rest;
+
+import io.zucchiniui.backend.BackendConfiguration;
+import io.zucchiniui.backend.importjob.domain.ImportJobService;
+import io.zucchiniui.backend.importjob.domain.SpooledReport;
+import io.zucchiniui.backend.reportconverter.domain.ImportResult;
+import io.zucchiniui.backend.reportconverter.domain.ReportConverterService;
+import io.zucchiniui.backend.testrun.domain.TestRun;
+import io.zucchiniui.backend.testrun.domain.TestRunRepository;
+import io.zucchiniui.backend.testrun.domain.TestRunService;
+import io.zucchiniui.backend.testrun.views.TestRunViewAccess;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TestRunResourceTest {
+
+    private static final String IDEMPOTENCY_KEY = "idempotencyKey";
+
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private TestRunRepository testRunRepository;
+
+    @Mock
+    private TestRunService testRunService;
+
+    @Mock
+    private TestRunViewAccess testRunViewAccess;
+
+    @Mock
+    private ReportConverterService reportConverterService;
+
+    @Mock
+    private ImportJobService importJobService;
+
+    @Mock
+    private ReportUploadDecoder reportUploadDecoder;
+
+    @Mock
+    private ImportAdmissionController importAdmissionController;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private BackendConfiguration configuration;
+
+    @Mock
+    private HttpServletRequest request;
+
+    private final TestRun testRun = new TestRun("type", "environment", "name");
+
+    private final InputStream reportStream = new ByteArrayInputStream("[]".getBytes());
+
+    private final SpooledReport spooledReport = new SpooledReport(Paths.get("report.json"), 2, "digest");
+
+    private TestRunResource testRunResource;
+
+    @Before
+    public void setUp() throws Exception {
+        given(configuration.getImportConfiguration().getSpoolDirectory()).willReturn("spool");
+        testRunResource = new TestRunResource(
+            testRunRepository,
+            testRunService,
+            testRunViewAccess,
+            reportConverterService,
+            importJobService,
+            reportUploadDecoder,
+            importAdmissionController,
+            configuration
+        );
+
+        final ImportAdmissionController.Admission admission = mock(ImportAdmissionController.Admission.class);
+        given(admission.charge(reportStream)).willReturn(reportStream);
+        given(importAdmissionController.admit(request)).willReturn(admission);
+        given(reportUploadDecoder.decode(request, reportStream)).willReturn(reportStream);
+
+        given(testRunRepository.getById(testRun.getId())).willReturn(testRun);
+        given(importJobService.spool(reportStream)).willReturn(spooledReport);
+        given(importJobService.isAlreadyImported(anyString(), anyString())).willReturn(true);
+        given(importJobService.isAlreadyImported(anyString(), any(), anyBoolean(), anyBoolean(), any())).willReturn(true);
+    }
+
+    @Test
+    public void should_skip_import_with_known_idempotency_key() throws Exception {
+        // when
+        final Response response = importReport(false, IDEMPOTENCY_KEY);
+
+        // then
+        assertThat(((ImportResult) response.getEntity()).isSkipped()).isTrue();
+        verify(importJobService).isAlreadyImported(testRun.getId(), IDEMPOTENCY_KEY);
+        verify(importJobService, never()).spool(any());
+    }
+
+    @Test
+    public void should_skip_import_of_known_report() throws Exception {
+        // when
+        final Response response = importReport(false, null);
+
+        // then
+        assertThat(((ImportResult) response.getEntity()).isSkipped()).isTrue();
+        verify(importJobService).isAlreadyImported(testRun.getId(), Optional.empty(), false, false, spooledReport);
+        verify(importJobService).discard(spooledReport);
+        verify(importJobService, never()).importNow(anyString(), any(), any(), anyBoolean(), anyBoolean(), anyBoolean(), any());
+    }
+
+    @Test
+    public void should_not_skip_dry_run() throws Exception {
+        // given
+        final ImportResult importResult = new ImportResult();
+        given(importJobService.importNow(testRun.getId(), spooledReport, Optional.empty(), true, false, false, Optional.of(IDEMPOTENCY_KEY)))
+            .willReturn(importResult);
+
+        // when
+        final Response response = importReport(true, IDEMPOTENCY_KEY);
+
+        // then
+        assertThat(response.getEntity()).isSameAs(importResult);
+        verify(importJobService, never()).isAlreadyImported(anyString(), anyString());
+        verify(importJobService, never()).isAlreadyImported(anyString(), any(), anyBoolean(), anyBoolean(), any());
+        verify(importJobService, never()).discard(any());
+        verify(importJobService).importNow(eq(testRun.getId()), eq(spooledReport), any(), eq(true), anyBoolean(), anyBoolean(), any());
+    }
+
+    private Response importReport(final boolean dryRun, final String idempotencyKey) throws Exception {
+        return testRunResource.importCucumberReport(
+            testRun.getId(),
+            null,
+            dryRun,
+            false,
+            false,
+            false,
+            false,
+            idempotencyKey,
+            request,
+            reportStream
+        );
+    }
+
+}
@@ -20,6 +20,25 @@ export default class Step extends React.PureComponent {
     special: false
   };
 
+  buildUrlForText = hash => {
+    const { scenarioId } = this.props;
+    return `/api/scenarii/${scenarioId}/texts/${hash}`;
+  };
+
+  renderFullTextLink(hash) {
+    if (!hash) {
+      return null;
+    }
+    return (
+      <p>
+        <i>Texte tronqué.</i>{" "}
+        <a href={this.buildUrlForText(hash)} target="_blank" rel="noopener noreferrer">
+          Voir le texte complet
+        </a>
+      </p>
+    );
+  }
+
   render() {
     const { step, scenarioId, special, filters } = this.props;
 
@@ -30,6 +49,7 @@ export default class Step extends React.PureComponent {
       errorMessage = (
         <PanelWithTitle title="Message d'erreur" panelBody={true} bsStyle="danger" className="panel-error-message">
           <pre className="error-message text-danger">{step.errorMessage}</pre>
+          {this.renderFullTextLink(step.errorMessageHash)}
         </PanelWithTitle>
       );
     }
@@ -39,6 +59,7 @@ export default class Step extends React.PureComponent {
       logs = (
         <PanelWithTitle title="Logs" panelBody={true} bsStyle="default" className="panel-log">
           <pre className="log">{step.output}</pre>
+          {this.renderFullTextLink(step.outputHash)}
         </PanelWithTitle>
       );
     }
@@ -0,0 +1,8 @@
+migrate(() => {
+
+  db.importJobs.createIndex({ status: 1, createdAt: 1 });
+
+  // Ended import jobs are kept one week
+  db.importJobs.createIndex({ endedAt: 1 }, { expireAfterSeconds: 7 * 24 * 3600 });
+
+});
@@ -0,0 +1,17 @@
+migrate(() => {
+
+  // Same report imported again into the same test run, with the same options, is skipped
+  db.importRecords.createIndex(
+    { testRunId: 1, group: 1, digest: 1, onlyNewScenarii: 1, mergeOnlyNewPassedScenarii: 1 },
+    { unique: true }
+  );
+
+  db.importRecords.createIndex(
+    { testRunId: 1, idempotencyKey: 1 },
+    { unique: true, partialFilterExpression: { idempotencyKey: { $exists: true } } }
+  );
+
+  // Import records are kept one month
+  db.importRecords.createIndex({ createdAt: 1 }, { expireAfterSeconds: 30 * 24 * 3600 });
+
+});
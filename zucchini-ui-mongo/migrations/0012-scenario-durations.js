@@ -0,0 +1,6 @@
+migrate(() => {
+
+  // Slowest scenarii of a test run
+  db.scenarii.createIndex({ testRunId: 1, duration: -1 }, { background: true });
+
+});
@@ -0,0 +1,9 @@
+migrate(() => {
+
+  // History of a scenario, joined to test runs
+  db.scenarii.createIndex({ scenarioKey: 1, testRunId: 1 }, { background: true });
+
+  // Prefix of the previous index
+  db.scenarii.dropIndex({ scenarioKey: 1 });
+
+});